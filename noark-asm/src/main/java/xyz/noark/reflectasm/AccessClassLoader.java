@@ -71,6 +71,8 @@ class AccessClassLoader extends ClassLoader {
 			return FieldAccess.class;
 		if (name.equals(MethodAccess.class.getName()))
 			return MethodAccess.class;
+		if (name.equals(MethodInvoker.class.getName()))
+			return MethodInvoker.class;
 		if (name.equals(ConstructorAccess.class.getName()))
 			return ConstructorAccess.class;
 		if (name.equals(PublicConstructorAccess.class.getName()))
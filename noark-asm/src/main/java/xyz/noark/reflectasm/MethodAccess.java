@@ -18,7 +18,6 @@ import static xyz.noark.asm.Opcodes.AALOAD;
 import static xyz.noark.asm.Opcodes.ACC_PUBLIC;
 import static xyz.noark.asm.Opcodes.ACC_SUPER;
 import static xyz.noark.asm.Opcodes.ACC_VARARGS;
-import static xyz.noark.asm.Opcodes.ACONST_NULL;
 import static xyz.noark.asm.Opcodes.ALOAD;
 import static xyz.noark.asm.Opcodes.ARETURN;
 import static xyz.noark.asm.Opcodes.ASTORE;
@@ -228,46 +227,7 @@ public abstract class MethodAccess {
 									mv.visitIntInsn(BIPUSH, paramIndex);
 									mv.visitInsn(AALOAD);
 									Type paramType = Type.getType(paramTypes[paramIndex]);
-									switch (paramType.getSort()) {
-									case Type.BOOLEAN:
-										mv.visitTypeInsn(CHECKCAST, "java/lang/Boolean");
-										mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z");
-										break;
-									case Type.BYTE:
-										mv.visitTypeInsn(CHECKCAST, "java/lang/Byte");
-										mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Byte", "byteValue", "()B");
-										break;
-									case Type.CHAR:
-										mv.visitTypeInsn(CHECKCAST, "java/lang/Character");
-										mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Character", "charValue", "()C");
-										break;
-									case Type.SHORT:
-										mv.visitTypeInsn(CHECKCAST, "java/lang/Short");
-										mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Short", "shortValue", "()S");
-										break;
-									case Type.INT:
-										mv.visitTypeInsn(CHECKCAST, "java/lang/Integer");
-										mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I");
-										break;
-									case Type.FLOAT:
-										mv.visitTypeInsn(CHECKCAST, "java/lang/Float");
-										mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Float", "floatValue", "()F");
-										break;
-									case Type.LONG:
-										mv.visitTypeInsn(CHECKCAST, "java/lang/Long");
-										mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Long", "longValue", "()J");
-										break;
-									case Type.DOUBLE:
-										mv.visitTypeInsn(CHECKCAST, "java/lang/Double");
-										mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Double", "doubleValue", "()D");
-										break;
-									case Type.ARRAY:
-										mv.visitTypeInsn(CHECKCAST, paramType.getDescriptor());
-										break;
-									case Type.OBJECT:
-										mv.visitTypeInsn(CHECKCAST, paramType.getInternalName());
-										break;
-									}
+									MethodInvoker.unbox(mv, paramType);
 									buffer.append(paramType.getDescriptor());
 								}
 
@@ -282,35 +242,7 @@ public abstract class MethodAccess {
 									invoke = INVOKEVIRTUAL;
 								mv.visitMethodInsn(invoke, classNameInternal, methodNames[i], buffer.toString());
 
-								switch (Type.getType(returnType).getSort()) {
-								case Type.VOID:
-									mv.visitInsn(ACONST_NULL);
-									break;
-								case Type.BOOLEAN:
-									mv.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;");
-									break;
-								case Type.BYTE:
-									mv.visitMethodInsn(INVOKESTATIC, "java/lang/Byte", "valueOf", "(B)Ljava/lang/Byte;");
-									break;
-								case Type.CHAR:
-									mv.visitMethodInsn(INVOKESTATIC, "java/lang/Character", "valueOf", "(C)Ljava/lang/Character;");
-									break;
-								case Type.SHORT:
-									mv.visitMethodInsn(INVOKESTATIC, "java/lang/Short", "valueOf", "(S)Ljava/lang/Short;");
-									break;
-								case Type.INT:
-									mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
-									break;
-								case Type.FLOAT:
-									mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "valueOf", "(F)Ljava/lang/Float;");
-									break;
-								case Type.LONG:
-									mv.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "valueOf", "(J)Ljava/lang/Long;");
-									break;
-								case Type.DOUBLE:
-									mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "valueOf", "(D)Ljava/lang/Double;");
-									break;
-								}
+								MethodInvoker.box(mv, Type.getType(returnType));
 
 								mv.visitInsn(ARETURN);
 							}
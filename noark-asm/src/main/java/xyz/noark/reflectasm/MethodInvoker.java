@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.reflectasm;
+
+import static xyz.noark.asm.Opcodes.AALOAD;
+import static xyz.noark.asm.Opcodes.ACC_PUBLIC;
+import static xyz.noark.asm.Opcodes.ACC_SUPER;
+import static xyz.noark.asm.Opcodes.ACC_VARARGS;
+import static xyz.noark.asm.Opcodes.ACONST_NULL;
+import static xyz.noark.asm.Opcodes.ALOAD;
+import static xyz.noark.asm.Opcodes.ARETURN;
+import static xyz.noark.asm.Opcodes.BIPUSH;
+import static xyz.noark.asm.Opcodes.CHECKCAST;
+import static xyz.noark.asm.Opcodes.INVOKEINTERFACE;
+import static xyz.noark.asm.Opcodes.INVOKESPECIAL;
+import static xyz.noark.asm.Opcodes.INVOKESTATIC;
+import static xyz.noark.asm.Opcodes.INVOKEVIRTUAL;
+import static xyz.noark.asm.Opcodes.RETURN;
+import static xyz.noark.asm.Opcodes.V1_1;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import xyz.noark.asm.ClassWriter;
+import xyz.noark.asm.MethodVisitor;
+import xyz.noark.asm.Type;
+
+/**
+ * 单个方法的直接调用器.
+ * <p>
+ * 与{@link MethodAccess}一个类生成一个带tableswitch的访问类不同，这里为每一个方法单独生成一个小类，<br>
+ * 调用点里只有一条确定的invoke指令，没有下标分支，JIT可以把目标方法直接内联进来.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public abstract class MethodInvoker {
+	private static final String INVOKER_INTERNAL_NAME = "xyz/noark/reflectasm/MethodInvoker";
+
+	private Method method;
+
+	/**
+	 * 调用这个方法.
+	 * 
+	 * @param object 方法宿主对象，静态方法时可为null
+	 * @param args 参数列表
+	 * @return 返回方法执行后的返回值，void方法返回null
+	 */
+	abstract public Object invoke(Object object, Object... args);
+
+	/**
+	 * 获取这个调用器所对应的方法.
+	 * 
+	 * @return 方法
+	 */
+	public Method getMethod() {
+		return method;
+	}
+
+	/**
+	 * 为指定方法创建一个直接调用器.
+	 * 
+	 * @param method 非私有的方法
+	 * @return 返回这个方法的调用器
+	 */
+	static public MethodInvoker get(Method method) {
+		if (Modifier.isPrivate(method.getModifiers())) {
+			throw new IllegalArgumentException("Unable to invoke private method: " + method);
+		}
+
+		Class<?> type = method.getDeclaringClass();
+		String className = type.getName();
+		String methodDescriptor = Type.getMethodDescriptor(method);
+		// 同名重载方法靠描述符的Hash来区分
+		String invokerClassName = className + "MethodInvoker$" + method.getName() + "$" + Integer.toHexString(methodDescriptor.hashCode());
+		if (invokerClassName.startsWith("java.")) {
+			invokerClassName = "reflectasm." + invokerClassName;
+		}
+
+		AccessClassLoader loader = AccessClassLoader.get(type);
+		Class<?> invokerClass = loader.loadAccessClass(invokerClassName);
+		if (invokerClass == null) {
+			synchronized (loader) {
+				invokerClass = loader.loadAccessClass(invokerClassName);
+				if (invokerClass == null) {
+					byte[] data = generate(invokerClassName.replace('.', '/'), type, method, methodDescriptor);
+					invokerClass = loader.defineAccessClass(invokerClassName, data);
+				}
+			}
+		}
+
+		try {
+			MethodInvoker invoker = (MethodInvoker) invokerClass.newInstance();
+			invoker.method = method;
+			return invoker;
+		} catch (Throwable t) {
+			throw new RuntimeException("Error constructing method invoker class: " + invokerClassName, t);
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	private static byte[] generate(String invokerClassNameInternal, Class<?> type, Method method, String methodDescriptor) {
+		String classNameInternal = type.getName().replace('.', '/');
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		MethodVisitor mv;
+		cw.visit(V1_1, ACC_PUBLIC + ACC_SUPER, invokerClassNameInternal, null, INVOKER_INTERNAL_NAME, null);
+		{
+			mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+			mv.visitCode();
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitMethodInsn(INVOKESPECIAL, INVOKER_INTERNAL_NAME, "<init>", "()V");
+			mv.visitInsn(RETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+		{
+			mv = cw.visitMethod(ACC_PUBLIC + ACC_VARARGS, "invoke", "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+			mv.visitCode();
+			if (!isStatic) {
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitTypeInsn(CHECKCAST, classNameInternal);
+			}
+
+			Class<?>[] paramTypes = method.getParameterTypes();
+			for (int paramIndex = 0; paramIndex < paramTypes.length; paramIndex++) {
+				mv.visitVarInsn(ALOAD, 2);
+				mv.visitIntInsn(BIPUSH, paramIndex);
+				mv.visitInsn(AALOAD);
+				unbox(mv, Type.getType(paramTypes[paramIndex]));
+			}
+
+			int invoke;
+			if (isStatic) {
+				invoke = INVOKESTATIC;
+			} else if (type.isInterface()) {
+				invoke = INVOKEINTERFACE;
+			} else {
+				invoke = INVOKEVIRTUAL;
+			}
+			mv.visitMethodInsn(invoke, classNameInternal, method.getName(), methodDescriptor);
+
+			box(mv, Type.getType(method.getReturnType()));
+			mv.visitInsn(ARETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * 把栈顶的Object转化为指定类型，基本类型会拆箱.
+	 */
+	@SuppressWarnings("deprecation")
+	static void unbox(MethodVisitor mv, Type type) {
+		switch (type.getSort()) {
+		case Type.BOOLEAN:
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Boolean");
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z");
+			break;
+		case Type.BYTE:
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Byte");
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Byte", "byteValue", "()B");
+			break;
+		case Type.CHAR:
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Character");
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Character", "charValue", "()C");
+			break;
+		case Type.SHORT:
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Short");
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Short", "shortValue", "()S");
+			break;
+		case Type.INT:
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Integer");
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I");
+			break;
+		case Type.FLOAT:
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Float");
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Float", "floatValue", "()F");
+			break;
+		case Type.LONG:
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Long");
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Long", "longValue", "()J");
+			break;
+		case Type.DOUBLE:
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Double");
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Double", "doubleValue", "()D");
+			break;
+		case Type.ARRAY:
+			mv.visitTypeInsn(CHECKCAST, type.getDescriptor());
+			break;
+		case Type.OBJECT:
+			mv.visitTypeInsn(CHECKCAST, type.getInternalName());
+			break;
+		}
+	}
+
+	/**
+	 * 把栈顶的返回值转化为Object，基本类型会装箱，void则压入null.
+	 */
+	@SuppressWarnings("deprecation")
+	static void box(MethodVisitor mv, Type type) {
+		switch (type.getSort()) {
+		case Type.VOID:
+			mv.visitInsn(ACONST_NULL);
+			break;
+		case Type.BOOLEAN:
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;");
+			break;
+		case Type.BYTE:
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Byte", "valueOf", "(B)Ljava/lang/Byte;");
+			break;
+		case Type.CHAR:
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Character", "valueOf", "(C)Ljava/lang/Character;");
+			break;
+		case Type.SHORT:
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Short", "valueOf", "(S)Ljava/lang/Short;");
+			break;
+		case Type.INT:
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+			break;
+		case Type.FLOAT:
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "valueOf", "(F)Ljava/lang/Float;");
+			break;
+		case Type.LONG:
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "valueOf", "(J)Ljava/lang/Long;");
+			break;
+		case Type.DOUBLE:
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "valueOf", "(D)Ljava/lang/Double;");
+			break;
+		}
+	}
+}
\ No newline at end of file
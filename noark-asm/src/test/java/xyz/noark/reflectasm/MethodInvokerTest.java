@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.reflectasm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Method;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import xyz.noark.benchmark.Benchmark;
+
+/**
+ * 方法直接调用器测试用例.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class MethodInvokerTest {
+	private final Benchmark benchmark = new Benchmark();
+	private final TestBean bean = new TestBean();
+	private MethodAccess access;// ReflectAsm
+	private int methodIndex;
+	private MethodInvoker invoker;
+
+	@Before
+	public void setUp() throws Exception {
+		access = MethodAccess.get(TestBean.class);
+		methodIndex = access.getIndex("setId");
+		invoker = MethodInvoker.get(TestBean.class.getMethod("setId", int.class));
+	}
+
+	@Test
+	public void testInvoke() throws Exception {
+		assertNull(invoker.invoke(bean, 123));
+		assertEquals(123, bean.getId());
+
+		MethodInvoker getter = MethodInvoker.get(TestBean.class.getMethod("getId"));
+		assertEquals(123, getter.invoke(bean));
+
+		Method valueOf = String.class.getMethod("valueOf", int.class);
+		assertEquals("456", MethodInvoker.get(valueOf).invoke(null, 456));
+		// 同一个方法重复获取时复用已生成的类
+		assertEquals(invoker.getClass(), MethodInvoker.get(TestBean.class.getMethod("setId", int.class)).getClass());
+	}
+
+	@Test
+	public void test() throws Exception {
+		for (int i = 1; i < 10; i++) {
+			this.testReflectAsm();
+			this.testMethodInvoker();
+			System.out.println();
+		}
+	}
+
+	@Test
+	public void testReflectAsm() throws Exception {
+		benchmark.doSomething("testReflectAsm:", () -> access.invoke(bean, methodIndex, 1));
+	}
+
+	@Test
+	public void testMethodInvoker() throws Exception {
+		benchmark.doSomething("testMethodInvoker:", () -> invoker.invoke(bean, 1));
+	}
+}
\ No newline at end of file
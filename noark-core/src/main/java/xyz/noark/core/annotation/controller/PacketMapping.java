@@ -59,4 +59,14 @@ public @interface PacketMapping {
 	 * @return 默认为游戏中状态
 	 */
 	Session.State state() default Session.State.INGAME;
+
+	/**
+	 * 是否可以合并执行.
+	 * <p>
+	 * 像移动同步，刷新面板这类只有最新一个才有意义的协议，可以标识为合并执行<br>
+	 * 同一个玩家同一个协议还在排队没有开始执行的任务，会被新来的任务替换掉
+	 * 
+	 * @return 默认为不合并
+	 */
+	boolean coalesce() default false;
 }
\ No newline at end of file
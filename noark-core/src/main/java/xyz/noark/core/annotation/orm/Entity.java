@@ -40,6 +40,16 @@ public @interface Entity {
 	 */
 	FetchType fetch() default FetchType.USE;
 
+	/**
+	 * 返回当前实体类是否开启脏数据检测.
+	 * <p>
+	 * 开启后回写时会对比上次保存的字段值，只修改有变化的字段，内容没有变化的实体就不回写了.<br>
+	 * 适合有大字段(比如@Json)但只有少量字段经常变化的实体.
+	 * 
+	 * @return 默认值为不开启.
+	 */
+	boolean dirtyCheck() default false;
+
 	/**
 	 * 抓取策略.
 	 * <p>
@@ -17,6 +17,7 @@ import java.lang.reflect.Parameter;
 
 import xyz.noark.core.annotation.Order;
 import xyz.noark.reflectasm.MethodAccess;
+import xyz.noark.reflectasm.MethodInvoker;
 
 /**
  * 一个方法的定义.
@@ -40,6 +41,13 @@ public interface MethodDefinition {
 	 */
 	public int getMethodIndex();
 
+	/**
+	 * 获取此方法的直接调用器.
+	 * 
+	 * @return 直接调用器
+	 */
+	public MethodInvoker getMethodInvoker();
+
 	/**
 	 * 获取参数列表
 	 * 
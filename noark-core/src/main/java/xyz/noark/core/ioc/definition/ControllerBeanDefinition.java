@@ -107,24 +107,24 @@ public class ControllerBeanDefinition extends DefaultBeanDefinition {
 	/** 分析延迟任务处理入口. */
 	private void doAnalysisScheduledHandler(NoarkIoc noarkIoc) {
 		final ScheduledMethodManager manager = ScheduledMethodManager.getInstance();
-		smds.forEach(smd -> manager.resetScheduledHandler(new ScheduledMethodWrapper(methodAccess, single, smd, threadGroup, controllerMasterClass)));
+		smds.forEach(smd -> manager.resetScheduledHandler(new ScheduledMethodWrapper(single, smd, threadGroup, controllerMasterClass)));
 	}
 
 	/** 分析HTTP处理入口. */
 	private void doAnalysisHttpHandler(NoarkIoc noarkIoc) {
 		final HttpMethodManager manager = HttpMethodManager.getInstance();
-		hmds.forEach(hmd -> manager.resetHttpHandler(new HttpMethodWrapper(methodAccess, single, hmd, threadGroup, controllerMasterClass)));
+		hmds.forEach(hmd -> manager.resetHttpHandler(new HttpMethodWrapper(single, hmd, threadGroup, controllerMasterClass)));
 	}
 
 	/** 分析事件处理入口. */
 	private void doAnalysisEventHandler(NoarkIoc ioc) {
 		final EventMethodManager manager = EventMethodManager.getInstance();
-		emds.forEach(emd -> manager.resetEventHandler(new EventMethodWrapper(methodAccess, single, emd, threadGroup, controllerMasterClass)));
+		emds.forEach(emd -> manager.resetEventHandler(new EventMethodWrapper(single, emd, threadGroup, controllerMasterClass)));
 	}
 
 	/** 分析一下封包处理方法. */
 	private void doAnalysisPacketHandler(NoarkIoc noarkIoc) {
 		final PacketMethodManager manager = PacketMethodManager.getInstance();
-		pmds.forEach(pmd -> manager.resetPacketHandler(new PacketMethodWrapper(methodAccess, single, pmd, threadGroup, controllerMasterClass)));
+		pmds.forEach(pmd -> manager.resetPacketHandler(new PacketMethodWrapper(single, pmd, threadGroup, controllerMasterClass)));
 	}
 }
\ No newline at end of file
@@ -52,6 +52,10 @@ public class PacketMethodDefinition extends SimpleMethodDefinition {
 		return packetMapping.state();
 	}
 
+	public boolean isCoalesce() {
+		return packetMapping.coalesce();
+	}
+
 	@Override
 	public Parameter[] getParameters() {
 		return parameters;
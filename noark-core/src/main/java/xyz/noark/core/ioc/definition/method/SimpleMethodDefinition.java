@@ -19,6 +19,7 @@ import java.lang.reflect.Parameter;
 import xyz.noark.core.annotation.Order;
 import xyz.noark.core.ioc.MethodDefinition;
 import xyz.noark.reflectasm.MethodAccess;
+import xyz.noark.reflectasm.MethodInvoker;
 
 /**
  * 一个简单的方法定义.
@@ -47,6 +48,11 @@ public class SimpleMethodDefinition implements MethodDefinition {
 		return methodAccess.getIndex(method.getName());
 	}
 
+	@Override
+	public MethodInvoker getMethodInvoker() {
+		return MethodInvoker.get(method);
+	}
+
 	@Override
 	public Parameter[] getParameters() {
 		return parameters;
@@ -13,15 +13,20 @@
  */
 package xyz.noark.core.ioc.manager;
 
+import static xyz.noark.log.LogHelper.logger;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import xyz.noark.core.event.Event;
 import xyz.noark.core.ioc.wrap.method.EventMethodWrapper;
+import xyz.noark.core.lang.LatencyHistogram;
 
 /**
  * 事件处理管理类.
@@ -66,6 +71,26 @@ public class EventMethodManager {
 		handlers.values().forEach(v -> v.sort((h1, h2) -> h1.getOrder() - h2.getOrder()));
 	}
 
+	/**
+	 * 输出所有被调用过的事件处理方法的延迟与耗时统计.
+	 * <p>
+	 * 监听父类的处理方法会被扩展到子类事件上，这里按处理方法去重后再输出.
+	 */
+	public void outputLatencyInfo() {
+		Set<EventMethodWrapper> outputs = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (List<EventMethodWrapper> list : handlers.values()) {
+			for (EventMethodWrapper handler : list) {
+				if (!outputs.add(handler)) {
+					continue;
+				}
+				LatencyHistogram.Snapshot exec = handler.getExecHistogram().snapshot();
+				if (exec.getCount() > 0) {
+					logger.info("event latency. event={}, module={}, delay=[{}], exec=[{}]", handler.getEventClass().getName(), handler.getModule(), handler.getDelayHistogram().snapshot(), exec);
+				}
+			}
+		}
+	}
+
 	/**
 	 * 扩展事件监听处理器.
 	 * 
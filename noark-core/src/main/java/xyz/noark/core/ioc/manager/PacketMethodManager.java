@@ -21,6 +21,7 @@ import java.util.concurrent.ConcurrentMap;
 
 import xyz.noark.core.exception.ServerBootstrapException;
 import xyz.noark.core.ioc.wrap.method.PacketMethodWrapper;
+import xyz.noark.core.lang.LatencyHistogram;
 
 /**
  * 封包方法管理类.
@@ -86,11 +87,45 @@ public class PacketMethodManager {
 		return true;
 	}
 
+	/**
+	 * 获取指定协议的排队延迟统计.
+	 * 
+	 * @param opcode 协议编号
+	 * @return 排队延迟的快照，协议编号不存在时返回null
+	 */
+	public LatencyHistogram.Snapshot getDelaySnapshot(Integer opcode) {
+		PacketMethodWrapper method = this.getPacketMethodWrapper(opcode);
+		return method == null ? null : method.getDelayHistogram().snapshot();
+	}
+
+	/**
+	 * 获取指定协议的执行耗时统计.
+	 * 
+	 * @param opcode 协议编号
+	 * @return 执行耗时的快照，协议编号不存在时返回null
+	 */
+	public LatencyHistogram.Snapshot getExecSnapshot(Integer opcode) {
+		PacketMethodWrapper method = this.getPacketMethodWrapper(opcode);
+		return method == null ? null : method.getExecHistogram().snapshot();
+	}
+
+	/**
+	 * 输出所有被调用过的协议的延迟与耗时统计.
+	 */
+	public void outputLatencyInfo() {
+		for (Map.Entry<Integer, PacketMethodWrapper> e : handlers.entrySet()) {
+			LatencyHistogram.Snapshot exec = e.getValue().getExecHistogram().snapshot();
+			if (exec.getCount() > 0) {
+				logger.info("protocol latency. opcode={}, delay=[{}], exec=[{}]", e.getKey(), e.getValue().getDelayHistogram().snapshot(), exec);
+			}
+		}
+	}
+
 	public void outputStatInfo() {
 		for (Map.Entry<Integer, PacketMethodWrapper> e : handlers.entrySet()) {
 			final long num = e.getValue().getCallNum();
 			if (num > 0) {
-				logger.info("protocol stat. opcode={}, call={}", e.getKey(), num);
+				logger.info("protocol stat. opcode={}, call={}, reject={}, coalesce={}", e.getKey(), num, e.getValue().getRejectNum(), e.getValue().getCoalesceNum());
 			}
 		}
 	}
@@ -13,11 +13,14 @@
  */
 package xyz.noark.core.ioc.manager;
 
+import static xyz.noark.log.LogHelper.logger;
+
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import xyz.noark.core.ioc.wrap.method.ScheduledMethodWrapper;
+import xyz.noark.core.lang.LatencyHistogram;
 
 /**
  * 延迟任务管理类.
@@ -52,4 +55,16 @@ public class ScheduledMethodManager {
 	public void resetScheduledHandler(ScheduledMethodWrapper scheduledWrapper) {
 		handlers.put(scheduledWrapper.getId(), scheduledWrapper);
 	}
+
+	/**
+	 * 输出所有被调用过的延迟任务的延迟与耗时统计.
+	 */
+	public void outputLatencyInfo() {
+		for (ScheduledMethodWrapper handler : handlers.values()) {
+			LatencyHistogram.Snapshot exec = handler.getExecHistogram().snapshot();
+			if (exec.getCount() > 0) {
+				logger.info("scheduled latency. module={}, method={}, delay=[{}], exec=[{}]", handler.getModule(), handler.logCode(), handler.getDelayHistogram().snapshot(), exec);
+			}
+		}
+	}
 }
\ No newline at end of file
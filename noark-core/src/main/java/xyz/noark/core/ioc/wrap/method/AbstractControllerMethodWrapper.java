@@ -13,9 +13,16 @@
  */
 package xyz.noark.core.ioc.wrap.method;
 
+import java.io.Serializable;
+import java.util.concurrent.atomic.LongAdder;
+
 import xyz.noark.core.annotation.Order;
 import xyz.noark.core.annotation.controller.ExecThreadGroup;
-import xyz.noark.reflectasm.MethodAccess;
+import xyz.noark.core.lang.LatencyHistogram;
+import xyz.noark.core.thread.ModuleStatistics;
+import xyz.noark.core.thread.ModuleStatisticsManager;
+import xyz.noark.core.thread.SubKeyResolver;
+import xyz.noark.reflectasm.MethodInvoker;
 
 /**
  * Controller类中的可执行方法.
@@ -33,11 +40,24 @@ public abstract class AbstractControllerMethodWrapper extends BaseMethodWrapper
 	private final String logCode;
 	protected boolean printLog = false;
 
-	public AbstractControllerMethodWrapper(MethodAccess methodAccess, Object single, int methodIndex, ExecThreadGroup threadGroup, String module, Order order, String logCode) {
-		super(methodAccess, single, methodIndex, order);
+	/** 排队延迟的统计 */
+	private final LatencyHistogram delayHistogram = new LatencyHistogram();
+	/** 执行耗时的统计 */
+	private final LatencyHistogram execHistogram = new LatencyHistogram();
+	/** 因任务队列过载而被丢弃的次数 */
+	private final LongAdder rejectNum = new LongAdder();
+	/** 所属模块的执行统计 */
+	private final ModuleStatistics moduleStatistics;
+	/** 模块子Key解析器，只有模块线程组的Controller实现了才有 */
+	private final SubKeyResolver subKeyResolver;
+
+	public AbstractControllerMethodWrapper(MethodInvoker methodInvoker, Object single, ExecThreadGroup threadGroup, String module, Order order, String logCode) {
+		super(methodInvoker, single, order);
 		this.module = module;
 		this.logCode = logCode;
 		this.threadGroup = threadGroup;
+		this.moduleStatistics = ModuleStatisticsManager.getInstance().getModuleStatistics(module);
+		this.subKeyResolver = threadGroup == ExecThreadGroup.ModuleThreadGroup && single instanceof SubKeyResolver ? (SubKeyResolver) single : null;
 	}
 
 	public boolean isPrintLog() {
@@ -64,4 +84,82 @@ public abstract class AbstractControllerMethodWrapper extends BaseMethodWrapper
 	public String logCode() {
 		return logCode;
 	}
+
+	/**
+	 * 记录一次执行的延迟与耗时.
+	 * 
+	 * @param delay 排队延迟，单位：纳秒
+	 * @param exec 执行耗时，单位：纳秒
+	 */
+	public void recordLatency(long delay, long exec) {
+		delayHistogram.record(delay);
+		execHistogram.record(exec);
+		moduleStatistics.recordExecTime(exec);
+	}
+
+	/**
+	 * 记录一次直接执行（没有排队）的耗时.
+	 * <p>
+	 * 直接执行的没有排队延迟，不记入延迟统计，以免把排队延迟的百分位拉低.
+	 * 
+	 * @param exec 执行耗时，单位：纳秒
+	 */
+	public void recordExec(long exec) {
+		execHistogram.record(exec);
+		moduleStatistics.recordExecTime(exec);
+	}
+
+	/**
+	 * 记录一次执行所消耗的CPU时间.
+	 * 
+	 * @param cpu CPU时间，单位：纳秒
+	 */
+	public void recordCpuTime(long cpu) {
+		moduleStatistics.recordCpuTime(cpu);
+	}
+
+	/**
+	 * 解析模块内的子Key.
+	 * 
+	 * @param playerId 玩家ID
+	 * @param args 处理方法的参数列表
+	 * @return 子Key，没有实现{@link SubKeyResolver}或不需要拆分时返回null
+	 */
+	public Serializable resolveSubKey(Serializable playerId, Object[] args) {
+		return subKeyResolver == null ? null : subKeyResolver.resolveSubKey(playerId, args);
+	}
+
+	/**
+	 * 获取排队延迟的统计.
+	 * 
+	 * @return 排队延迟的直方图
+	 */
+	public LatencyHistogram getDelayHistogram() {
+		return delayHistogram;
+	}
+
+	/**
+	 * 获取执行耗时的统计.
+	 * 
+	 * @return 执行耗时的直方图
+	 */
+	public LatencyHistogram getExecHistogram() {
+		return execHistogram;
+	}
+
+	/**
+	 * 被丢弃次数自增
+	 */
+	public void incrRejectNum() {
+		rejectNum.increment();
+	}
+
+	/**
+	 * 获取因任务队列过载而被丢弃的次数.
+	 * 
+	 * @return 被丢弃的次数
+	 */
+	public long getRejectNum() {
+		return rejectNum.longValue();
+	}
 }
\ No newline at end of file
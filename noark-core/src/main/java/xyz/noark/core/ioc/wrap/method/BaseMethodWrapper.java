@@ -15,7 +15,7 @@ package xyz.noark.core.ioc.wrap.method;
 
 import xyz.noark.core.annotation.Order;
 import xyz.noark.core.ioc.wrap.MethodWrapper;
-import xyz.noark.reflectasm.MethodAccess;
+import xyz.noark.reflectasm.MethodInvoker;
 
 /**
  * 一个可执行的方法.
@@ -26,24 +26,20 @@ import xyz.noark.reflectasm.MethodAccess;
 public class BaseMethodWrapper implements MethodWrapper {
 	/** 缓存那个单例对象 */
 	protected final Object single;
-	protected final int methodIndex;
-	protected final MethodAccess methodAccess;
+	/** 这个方法专属的直接调用器 */
+	protected final MethodInvoker methodInvoker;
 	private final int order;
 
-	public BaseMethodWrapper(MethodAccess methodAccess, Object single, int methodIndex, Order order) {
+	public BaseMethodWrapper(MethodInvoker methodInvoker, Object single, Order order) {
 		this.single = single;
-		this.methodIndex = methodIndex;
-		this.methodAccess = methodAccess;
+		this.methodInvoker = methodInvoker;
 		this.order = order == null ? Integer.MAX_VALUE : order.value();
 	}
 
 	@Override
 	public Object invoke(Object... args) {
-		if (args.length == 0) {
-			return methodAccess.invoke(single, methodIndex);
-		} else {
-			return methodAccess.invoke(single, methodIndex, args);
-		}
+		// 参数数组直接透传，不要再走一次可变参数创建新数组
+		return methodInvoker.invoke(single, args);
 	}
 
 	@Override
@@ -22,7 +22,6 @@ import xyz.noark.core.annotation.controller.RequestParam;
 import xyz.noark.core.exception.UnrealizedException;
 import xyz.noark.core.ioc.definition.method.HttpMethodDefinition;
 import xyz.noark.core.ioc.wrap.param.HttpParamWrapper;
-import xyz.noark.reflectasm.MethodAccess;
 
 /**
  * 封包处理方法包装类.
@@ -36,8 +35,8 @@ public class HttpMethodWrapper extends AbstractControllerMethodWrapper {
 	/** 当前方法是否已废弃使用. */
 	private boolean deprecated = false;
 
-	public HttpMethodWrapper(MethodAccess methodAccess, Object single, HttpMethodDefinition method, ExecThreadGroup threadGroup, Class<?> controllerMasterClass) {
-		super(methodAccess, single, method.getMethodIndex(), threadGroup, controllerMasterClass.getName(), method.getOrder(), "http(" + method.uri() + ")");
+	public HttpMethodWrapper(Object single, HttpMethodDefinition method, ExecThreadGroup threadGroup, Class<?> controllerMasterClass) {
+		super(method.getMethodInvoker(), single, threadGroup, controllerMasterClass.getName(), method.getOrder(), "http(" + method.uri() + ")");
 		this.uri = method.uri();
 		this.deprecated = method.isDeprecated();
 
@@ -15,9 +15,7 @@ package xyz.noark.core.ioc.wrap.method;
 
 import java.io.Serializable;
 import java.lang.reflect.Parameter;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.concurrent.atomic.LongAdder;
 
 import xyz.noark.core.annotation.PlayerId;
@@ -30,7 +28,6 @@ import xyz.noark.core.ioc.wrap.param.PlayerIdParamWrapper;
 import xyz.noark.core.ioc.wrap.param.SessionParamWrapper;
 import xyz.noark.core.lang.ByteArray;
 import xyz.noark.core.network.Session;
-import xyz.noark.reflectasm.MethodAccess;
 
 /**
  * 封包处理方法包装类.
@@ -39,61 +36,72 @@ import xyz.noark.reflectasm.MethodAccess;
  * @author 小流氓(176543888@qq.com)
  */
 public class PacketMethodWrapper extends AbstractControllerMethodWrapper {
+	/** 没有参数时共用的空参数列表 */
+	private static final Object[] EMPTY_ARGS = new Object[0];
 	private final Integer opcode;
 	private final boolean inner;
 	private final Session.State state;
-	private final ArrayList<ParamWrapper> parameters;
+	/** 启动时就构建好的参数解析器，按方法参数的顺序排列 */
+	private final ParamWrapper[] parameters;
 	/** 调用总次数 */
 	private final LongAdder callNum = new LongAdder();
+	/** 是否可以合并执行 */
+	private final boolean coalesce;
+	/** 被合并掉的次数 */
+	private final LongAdder coalesceNum = new LongAdder();
 
 	/** 当前方法是否已废弃使用. */
 	private boolean deprecated = false;
 
-	public PacketMethodWrapper(MethodAccess methodAccess, Object single, PacketMethodDefinition md, ExecThreadGroup threadGroup, Class<?> controllerMasterClass) {
-		super(methodAccess, single, md.getMethodIndex(), threadGroup, controllerMasterClass.getName(), md.getOrder(), "protocol(opcode=" + md.getOpcode() + ")");
+	public PacketMethodWrapper(Object single, PacketMethodDefinition md, ExecThreadGroup threadGroup, Class<?> controllerMasterClass) {
+		super(md.getMethodInvoker(), single, threadGroup, controllerMasterClass.getName(), md.getOrder(), "protocol(opcode=" + md.getOpcode() + ")");
 		this.state = md.getState();
 		this.opcode = md.getOpcode();
 		this.inner = md.isInnerPacket();
 		this.printLog = md.isPrintLog();
 		this.deprecated = md.isDeprecated();
-		this.parameters = new ArrayList<>(md.getParameters().length);
-
-		Arrays.stream(md.getParameters()).forEach(v -> buildParamWrapper(v));
+		this.coalesce = md.isCoalesce();
+		this.parameters = Arrays.stream(md.getParameters()).map(v -> buildParamWrapper(v)).toArray(ParamWrapper[]::new);
 	}
 
 	/** 构建参数 */
-	private void buildParamWrapper(Parameter parameter) {
+	private static ParamWrapper buildParamWrapper(Parameter parameter) {
 		// Session
 		if (Session.class.isAssignableFrom(parameter.getType())) {
-			this.parameters.add(new SessionParamWrapper());
+			return new SessionParamWrapper();
 		}
 		// 玩家ID
 		else if (parameter.isAnnotationPresent(PlayerId.class)) {
-			this.parameters.add(new PlayerIdParamWrapper());
+			return new PlayerIdParamWrapper();
 		}
 		// byte[]
 		else if (parameter.getType().equals(byte[].class)) {
-			this.parameters.add(new ByteArrayParamWrapper());
+			return new ByteArrayParamWrapper();
 		}
 		// 无法识别的只能依靠Session内置解码器来转化了.
 		else {
-			this.parameters.add(new PacketParamWrapper(parameter.getType()));
+			return new PacketParamWrapper(parameter.getType());
 		}
 	}
 
 	/**
 	 * 分析参数.
+	 * <p>
+	 * 直接按参数个数创建数组并填充，这个数组会跟着任务一起排队，所以每个封包只能分配一次.
 	 * 
 	 * @param session Session对象
 	 * @param bytes 协议封包
 	 * @return 参数列表
 	 */
 	public Object[] analysisParam(Session session, ByteArray bytes) {
-		List<Object> args = new ArrayList<>(parameters.size());
-		for (ParamWrapper parameter : parameters) {
-			args.add(parameter.read(session, bytes));
+		if (parameters.length == 0) {
+			return EMPTY_ARGS;
+		}
+		Object[] args = new Object[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			args[i] = parameters[i].read(session, bytes);
 		}
-		return args.toArray();
+		return args;
 	}
 
 	/**
@@ -104,11 +112,14 @@ public class PacketMethodWrapper extends AbstractControllerMethodWrapper {
 	 * @return 参数列表
 	 */
 	public Object[] analysisParam(Serializable playerId, Object protocol) {
-		List<Object> args = new ArrayList<>(parameters.size());
-		for (ParamWrapper parameter : parameters) {
-			args.add(parameter.read(playerId, protocol));
+		if (parameters.length == 0) {
+			return EMPTY_ARGS;
 		}
-		return args.toArray();
+		Object[] args = new Object[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			args[i] = parameters[i].read(playerId, protocol);
+		}
+		return args;
 	}
 
 	/**
@@ -158,6 +169,33 @@ public class PacketMethodWrapper extends AbstractControllerMethodWrapper {
 		return state;
 	}
 
+	/**
+	 * 是否可以合并执行.
+	 * <p>
+	 * 同一个玩家还在排队的同一个协议任务会被新来的任务替换掉.
+	 * 
+	 * @return 是否可以合并执行
+	 */
+	public boolean isCoalesce() {
+		return coalesce;
+	}
+
+	/**
+	 * 被合并次数自增
+	 */
+	public void incrCoalesceNum() {
+		coalesceNum.increment();
+	}
+
+	/**
+	 * 获取当前被合并掉的次数.
+	 * 
+	 * @return 被合并掉的次数
+	 */
+	public long getCoalesceNum() {
+		return coalesceNum.longValue();
+	}
+
 	/**
 	 * 调用次数自增
 	 */
@@ -20,7 +20,6 @@ import xyz.noark.core.annotation.controller.ExecThreadGroup;
 import xyz.noark.core.cron.DelayTrigger;
 import xyz.noark.core.cron.DelayTriggerFactory;
 import xyz.noark.core.ioc.definition.method.ScheduledMethodDefinition;
-import xyz.noark.reflectasm.MethodAccess;
 
 /**
  * 延迟任务处理方法的包装类.
@@ -34,8 +33,8 @@ public class ScheduledMethodWrapper extends AbstractControllerMethodWrapper {
 	private final Long id;
 	private final DelayTrigger trigger;
 
-	public ScheduledMethodWrapper(MethodAccess methodAccess, Object single, ScheduledMethodDefinition smd, ExecThreadGroup threadGroup, Class<?> controllerMasterClass) {
-		super(methodAccess, single, smd.getMethodIndex(), threadGroup, controllerMasterClass.getName(), smd.getOrder(), "scheduled(" + smd.getMethodName() + ")");
+	public ScheduledMethodWrapper(Object single, ScheduledMethodDefinition smd, ExecThreadGroup threadGroup, Class<?> controllerMasterClass) {
+		super(smd.getMethodInvoker(), single, threadGroup, controllerMasterClass.getName(), smd.getOrder(), "scheduled(" + smd.getMethodName() + ")");
 		// 生成一个唯一ID编号.
 		this.id = AUTO_ID.incrementAndGet();
 		this.trigger = DelayTriggerFactory.create(smd.getScheduled());
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.lang;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图.
+ * <p>
+ * 参考HdrHistogram的对数线性分桶，每个2的N次方区间再均分为16个桶，相对误差不超过1/16.<br>
+ * 记录的单位为微秒，超过最大可记录值的按最大值统计，记录时只有原子累加，不分配任何对象.
+ * 
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class LatencyHistogram {
+	/** 每个区间的细分位数 */
+	private static final int SUB_BITS = 4;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	/** 最大可记录值的位数，2^27微秒约为134秒 */
+	private static final int MAX_BITS = 27;
+	private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+	private static final int BUCKET_COUNT = (MAX_BITS - SUB_BITS + 1) * SUB_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * 记录一次耗时.
+	 * 
+	 * @param nanos 耗时，单位：纳秒
+	 */
+	public void record(long nanos) {
+		long value = nanos / 1000;
+		if (value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(indexOf(Math.min(value, MAX_VALUE)));
+
+		long current;
+		while (value > (current = max.get())) {
+			if (max.compareAndSet(current, value)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * 清空已记录的数据.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		max.set(0);
+	}
+
+	/**
+	 * 生成一个当前数据的快照.
+	 * 
+	 * @return 快照
+	 */
+	public Snapshot snapshot() {
+		long[] copy = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = counts.get(i);
+			total += copy[i];
+		}
+		return new Snapshot(copy, total, max.get());
+	}
+
+	private static int indexOf(long value) {
+		if (value < SUB_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return ((shift + 1) << SUB_BITS) + (int) (value >>> shift) - SUB_COUNT;
+	}
+
+	/** 桶内可表示的最大值 */
+	private static long highestValueOf(int index) {
+		int bucket = index >>> SUB_BITS;
+		if (bucket == 0) {
+			return index;
+		}
+		long lowest = (long) (SUB_COUNT + (index & (SUB_COUNT - 1))) << (bucket - 1);
+		return lowest + (1L << (bucket - 1)) - 1;
+	}
+
+	/**
+	 * 延迟直方图的快照.
+	 * 
+	 * @since 3.3
+	 * @author 小流氓(176543888@qq.com)
+	 */
+	public static class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long max;
+
+		private Snapshot(long[] counts, long count, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.max = max;
+		}
+
+		/**
+		 * 获取记录总次数.
+		 * 
+		 * @return 记录总次数
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * 获取最大耗时.
+		 * 
+		 * @return 最大耗时，单位：微秒
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * 获取指定百分位的耗时.
+		 * 
+		 * @param percentile 百分位，比如99.9
+		 * @return 耗时，单位：微秒
+		 */
+		public long getPercentile(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			long target = Math.max(1, (long) Math.ceil(count * percentile / 100));
+			long sum = 0;
+			for (int i = 0; i < counts.length; i++) {
+				sum += counts[i];
+				if (sum >= target) {
+					return Math.min(highestValueOf(i), max);
+				}
+			}
+			return max;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + count + ", p50=" + getPercentile(50) + "us, p99=" + getPercentile(99) + "us, p999=" + getPercentile(99.9) + "us, max=" + max + "us";
+		}
+	}
+}
\ No newline at end of file
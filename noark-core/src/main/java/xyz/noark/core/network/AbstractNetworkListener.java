@@ -41,6 +41,12 @@ public abstract class AbstractNetworkListener implements NetworkListener {
 		return true;
 	}
 
+	@Override
+	public void handleRateLimit(Session session, NetworkPacket packet) {}
+
 	@Override
 	public void handleException(Session session, int reqId, Throwable e) {}
+
+	@Override
+	public void handleTaskOverload(Session session, String code) {}
 }
\ No newline at end of file
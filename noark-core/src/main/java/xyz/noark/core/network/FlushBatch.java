@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.network;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.util.ArrayList;
+
+/**
+ * 合并刷新的批次.
+ * <p>
+ * 业务线程执行一个任务期间，开启了合并刷新的Session只写入不刷新，并把自己登记到当前线程的批次里，<br>
+ * 任务结束时每个Session统一刷新一次，一个任务里发再多的封包也只有一次系统调用.
+ * <p>
+ * 批次可以嵌套，只有最外层结束时才会刷新.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public final class FlushBatch {
+	private static final ThreadLocal<FlushBatch> CURRENT = ThreadLocal.withInitial(FlushBatch::new);
+
+	/** 当前批次里需要刷新的Session */
+	private final ArrayList<Session> sessions = new ArrayList<>();
+	/** 嵌套深度，0表示当前线程没有开启批次 */
+	private int depth = 0;
+
+	private FlushBatch() {}
+
+	/**
+	 * 在当前线程开启一个批次.
+	 */
+	public static void begin() {
+		CURRENT.get().depth++;
+	}
+
+	/**
+	 * 结束当前线程的批次，最外层结束时刷新所有登记过的Session.
+	 */
+	public static void end() {
+		FlushBatch batch = CURRENT.get();
+		if (batch.depth == 0 || --batch.depth > 0) {
+			return;
+		}
+
+		for (int i = 0, n = batch.sessions.size(); i < n; i++) {
+			try {
+				batch.sessions.get(i).flush();
+			} catch (Exception e) {
+				logger.warn("flush session exception. session={}", batch.sessions.get(i).getId(), e);
+			}
+		}
+		batch.sessions.clear();
+	}
+
+	/**
+	 * 把一个Session登记到当前线程的批次里.
+	 * 
+	 * @param session 需要刷新的Session
+	 * @return 如果当前线程没有开启批次则返回false，调用方需要自己立即刷新
+	 */
+	public static boolean join(Session session) {
+		FlushBatch batch = CURRENT.get();
+		if (batch.depth == 0) {
+			return false;
+		}
+		// 一个任务通常只给很少的几个Session发消息，线性查重就够了
+		if (!batch.sessions.contains(session)) {
+			batch.sessions.add(session);
+		}
+		return true;
+	}
+}
\ No newline at end of file
@@ -81,6 +81,16 @@ public interface NetworkListener {
 	 */
 	boolean handlePacketWarning(Session session, int second, int count, int threshold);
 
+	/**
+	 * 处理超出限流速率的封包.
+	 * <p>
+	 * 调用之后还会按配置的处理方式丢弃封包、暂停读取或断开链接
+	 * 
+	 * @param session Session对象
+	 * @param packet 网络封包
+	 */
+	void handleRateLimit(Session session, NetworkPacket packet);
+
 	/**
 	 * 处理异常.
 	 * <p>
@@ -91,4 +101,14 @@ public interface NetworkListener {
 	 * @param e 异常信息
 	 */
 	void handleException(Session session, int reqId, Throwable e);
+
+	/**
+	 * 处理任务队列过载.
+	 * <p>
+	 * 过载策略为{@link xyz.noark.core.thread.OverloadPolicy#NOTIFY_LISTENER}时，新来的任务被丢弃后会调用这里
+	 * 
+	 * @param session Session对象
+	 * @param code 被丢弃任务的编码，比如：protocol(opcode=1001)
+	 */
+	void handleTaskOverload(Session session, String code);
 }
\ No newline at end of file
@@ -46,4 +46,16 @@ public interface PacketCodec {
 	 * @return 封包字节数组
 	 */
 	public ByteArray encodePacket(NetworkProtocol protocol);
+
+	/**
+	 * 编码一个用于群发的封包.
+	 * <p>
+	 * 只编码一次，发给所有人的都是同一份数据，用完后一定要调用{@link ByteArray#close()}.
+	 * 
+	 * @param protocol 网络协议
+	 * @return 封包字节数组
+	 */
+	default ByteArray encodeBroadcast(NetworkProtocol protocol) {
+		return this.encodePacket(protocol);
+	}
 }
\ No newline at end of file
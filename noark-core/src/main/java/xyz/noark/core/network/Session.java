@@ -76,6 +76,13 @@ public interface Session extends SessionAttrMap {
 	 */
 	public void send(NetworkProtocol networkProtocol);
 
+	/**
+	 * 刷新已写入但还未刷新的封包.
+	 * <p>
+	 * 开启了合并刷新时由{@link FlushBatch}在任务结束时调用.
+	 */
+	default void flush() {}
+
 	/**
 	 * 获取当前链接状态.
 	 * 
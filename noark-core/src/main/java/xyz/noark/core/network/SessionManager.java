@@ -52,17 +52,19 @@ public class SessionManager {
 	 * @param playerIds 接受人的ID列表
 	 */
 	public static void send(Integer opcode, Object protocol, Serializable... playerIds) {
-		ByteArray packet = PacketCodecHolder.getPacketCodec().encodePacket(new NetworkProtocol(opcode, protocol));
-		// 全服发送
-		if (playerIds.length == 0) {
-			PLAYER_ID_2_SESSION.forEach((k, v) -> v.send(packet));
-		} else {
-			for (Serializable playerId : playerIds) {
-				Session session = PLAYER_ID_2_SESSION.get(playerId);
-				if (session == null) {
-					logger.debug("未找到Session，无法发送, playerId={}", playerId);
-				} else {
-					session.send(packet);
+		// 只编码一次，关闭时才会真正发出去并回收
+		try (ByteArray packet = PacketCodecHolder.getPacketCodec().encodeBroadcast(new NetworkProtocol(opcode, protocol))) {
+			// 全服发送
+			if (playerIds.length == 0) {
+				PLAYER_ID_2_SESSION.forEach((k, v) -> v.send(packet));
+			} else {
+				for (Serializable playerId : playerIds) {
+					Session session = PLAYER_ID_2_SESSION.get(playerId);
+					if (session == null) {
+						logger.debug("未找到Session，无法发送, playerId={}", playerId);
+					} else {
+						session.send(packet);
+					}
 				}
 			}
 		}
@@ -16,10 +16,14 @@ package xyz.noark.core.thread;
 import static xyz.noark.log.LogHelper.logger;
 
 import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
+import xyz.noark.core.network.FlushBatch;
 import xyz.noark.core.network.NetworkListener;
 import xyz.noark.core.network.ResultHelper;
 import xyz.noark.core.network.Session;
+import xyz.noark.core.thread.command.AbstractThreadCommand;
 
 /**
  * 异步任务.
@@ -28,6 +32,14 @@ import xyz.noark.core.network.Session;
  * @author 小流氓(176543888@qq.com)
  */
 public class AsyncTask implements Runnable {
+	private static final AtomicIntegerFieldUpdater<AsyncTask> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(AsyncTask.class, "state");
+	/** 任务状态：排队中 */
+	private static final int STATE_PENDING = 0;
+	/** 任务状态：已开始 */
+	private static final int STATE_STARTED = 1;
+	/** 任务状态：已取消 */
+	private static final int STATE_CANCELLED = 2;
+
 	/** 任务创建时间 */
 	protected final long createTime = System.nanoTime();
 	protected final TaskQueue taskQueue;
@@ -39,6 +51,11 @@ public class AsyncTask implements Runnable {
 	private final int reqId;
 	private final Session session;
 
+	/** 任务队列中的下一个任务，由{@link TaskQueue}维护 */
+	volatile AsyncTask next;
+	/** 任务状态 */
+	private volatile int state = STATE_PENDING;
+
 	public AsyncTask(NetworkListener networkListener, TaskQueue taskQueue, ThreadCommand command, Serializable playerId, int reqId, Session session) {
 		this.taskQueue = taskQueue;
 		this.command = command;
@@ -50,8 +67,18 @@ public class AsyncTask implements Runnable {
 
 	@Override
 	public void run() {
+		taskQueue.drain(this);
+	}
+
+	/**
+	 * 执行这个任务，后继任务由{@link TaskQueue}负责调度.
+	 */
+	void execute() {
 		// 开始执行的时间
 		long startExecuteTime = System.nanoTime();
+		long startCpuTime = ModuleStatisticsManager.getInstance().currentThreadCpuTime();
+		// 这个任务里发出的所有封包，在任务结束时统一刷新
+		FlushBatch.begin();
 		try {
 			// 开始处理协议，并发送结果
 			ResultHelper.trySendResult(session, reqId, command.exec());
@@ -61,21 +88,69 @@ public class AsyncTask implements Runnable {
 				networkListener.handleException(session, reqId, e);
 			}
 		} finally {
-			taskQueue.complete();// 后继逻辑...
+			FlushBatch.end();
 			// 执行之后
-			this.execCommandAfter(startExecuteTime);
+			this.execCommandAfter(startExecuteTime, startCpuTime);
+		}
+	}
+
+	/**
+	 * 标识任务已开始，与取消互斥.
+	 * 
+	 * @return 如果任务已被取消则返回false
+	 */
+	boolean start() {
+		return STATE_UPDATER.compareAndSet(this, STATE_PENDING, STATE_STARTED);
+	}
+
+	/**
+	 * 取消一个还在排队的任务.
+	 * 
+	 * @return 如果任务已开始或已取消则返回false
+	 */
+	boolean cancel() {
+		return STATE_UPDATER.compareAndSet(this, STATE_PENDING, STATE_CANCELLED);
+	}
+
+	/**
+	 * 判定两个任务是否为同一个玩家的同一个处理方法.
+	 * <p>
+	 * 模块线程的队列是多个玩家共用的，所以还需要判定玩家ID
+	 * 
+	 * @param other 另一个任务
+	 * @return 如果是同一个玩家的同一个处理方法则返回true
+	 */
+	boolean isSameHandler(AsyncTask other) {
+		if (command instanceof AbstractThreadCommand && other.command instanceof AbstractThreadCommand) {
+			return ((AbstractThreadCommand) command).getMethod() == ((AbstractThreadCommand) other.command).getMethod() && Objects.equals(playerId, other.playerId);
 		}
+		return false;
+	}
+
+	ThreadCommand getCommand() {
+		return command;
+	}
+
+	Session getSession() {
+		return session;
 	}
 
 	/**
 	 * 执行之后做一个逻辑.
 	 * 
 	 * @param startExecuteTime 开始执行时间
+	 * @param startCpuTime 开始执行时当前线程的CPU时间
 	 */
-	private void execCommandAfter(long startExecuteTime) {
+	private void execCommandAfter(long startExecuteTime, long startCpuTime) {
+		// 执行结束的时间
+		long endExecuteTime = System.nanoTime();
+		command.recordLatency(startExecuteTime - createTime, endExecuteTime - startExecuteTime);
+		ModuleStatisticsManager statisticsManager = ModuleStatisticsManager.getInstance();
+		if (statisticsManager.isCpuAccounting()) {
+			command.recordCpuTime(statisticsManager.currentThreadCpuTime() - startCpuTime);
+		}
+
 		if (command.isPrintLog()) {
-			// 执行结束的时间
-			long endExecuteTime = System.nanoTime();
 			if (playerId == null) {
 				logger.info("handle {},delay={} ms,exe={} ms", command.code(), (startExecuteTime - createTime) / 100_0000F, (endExecuteTime - startExecuteTime) / 100_0000F);
 			} else {
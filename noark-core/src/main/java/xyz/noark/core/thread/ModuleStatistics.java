@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.thread;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个模块的执行统计.
+ * <p>
+ * 同一个主Controller下的所有处理方法共用一份统计，用于观察各个模块消耗了多少CPU.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class ModuleStatistics {
+	private final String module;
+	/** 执行过的任务数量 */
+	private final LongAdder taskNum = new LongAdder();
+	/** 执行总耗时，单位：纳秒 */
+	private final LongAdder execTime = new LongAdder();
+	/** 消耗的CPU总时间，单位：纳秒 */
+	private final LongAdder cpuTime = new LongAdder();
+
+	ModuleStatistics(String module) {
+		this.module = module;
+	}
+
+	/**
+	 * 记录一次执行.
+	 * 
+	 * @param exec 执行耗时，单位：纳秒
+	 */
+	public void recordExecTime(long exec) {
+		taskNum.increment();
+		execTime.add(exec);
+	}
+
+	/**
+	 * 记录一次执行所消耗的CPU时间.
+	 * 
+	 * @param cpu CPU时间，单位：纳秒
+	 */
+	public void recordCpuTime(long cpu) {
+		cpuTime.add(cpu);
+	}
+
+	public String getModule() {
+		return module;
+	}
+
+	public long getTaskNum() {
+		return taskNum.longValue();
+	}
+
+	public long getExecTime() {
+		return execTime.longValue();
+	}
+
+	public long getCpuTime() {
+		return cpuTime.longValue();
+	}
+
+	@Override
+	public String toString() {
+		return "task=" + getTaskNum() + ", exec=" + getExecTime() / 100_0000 + " ms, cpu=" + getCpuTime() / 100_0000 + " ms";
+	}
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.thread;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 模块执行统计管理类.
+ * <p>
+ * CPU时间通过{@link ThreadMXBean}获取当前线程的CPU时间来计算，JVM不支持时只统计次数与耗时.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class ModuleStatisticsManager {
+	private static final ModuleStatisticsManager INSTANCE = new ModuleStatisticsManager();
+	private final ConcurrentMap<String, ModuleStatistics> modules = new ConcurrentHashMap<>(64);
+	private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+	/** 是否统计CPU时间 */
+	private volatile boolean cpuAccounting = false;
+
+	private ModuleStatisticsManager() {}
+
+	public static ModuleStatisticsManager getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * 获取一个模块的统计，不存在时就创建一个.
+	 * 
+	 * @param module 模块唯一标识
+	 * @return 模块的统计
+	 */
+	public ModuleStatistics getModuleStatistics(String module) {
+		return modules.computeIfAbsent(module, ModuleStatistics::new);
+	}
+
+	/**
+	 * 开启或关闭CPU时间的统计.
+	 * 
+	 * @param cpuAccounting 是否统计CPU时间
+	 */
+	public void setCpuAccounting(boolean cpuAccounting) {
+		if (cpuAccounting && !threadMXBean.isCurrentThreadCpuTimeSupported()) {
+			logger.warn("current thread cpu time is not supported, module cpu accounting disabled.");
+			cpuAccounting = false;
+		}
+		if (cpuAccounting && !threadMXBean.isThreadCpuTimeEnabled()) {
+			threadMXBean.setThreadCpuTimeEnabled(true);
+		}
+		this.cpuAccounting = cpuAccounting;
+	}
+
+	public boolean isCpuAccounting() {
+		return cpuAccounting;
+	}
+
+	/**
+	 * 获取当前线程的CPU时间.
+	 * 
+	 * @return 当前线程的CPU时间，单位：纳秒，没有开启统计时返回0
+	 */
+	public long currentThreadCpuTime() {
+		return cpuAccounting ? threadMXBean.getCurrentThreadCpuTime() : 0;
+	}
+
+	/**
+	 * 输出所有执行过任务的模块统计.
+	 */
+	public void outputStatInfo() {
+		for (ModuleStatistics statistics : modules.values()) {
+			if (statistics.getTaskNum() > 0) {
+				logger.info("module stat. module={}, {}", statistics.getModule(), statistics);
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.thread;
+
+import xyz.noark.core.exception.UnrealizedException;
+
+/**
+ * 任务队列过载时的处理策略.
+ * <p>
+ * 只针对客户端发来的封包，服务器内部的事件与延迟任务不受队列上限的限制.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public enum OverloadPolicy {
+	/**
+	 * 丢弃新来的任务.
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * 丢弃队列中最早的同一协议的任务，再放入新来的任务.
+	 * <p>
+	 * 队列中没有同一协议的任务时，丢弃新来的任务
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * 丢弃新来的任务，并关闭这个客户端的链接.
+	 */
+	CLOSE_SESSION,
+
+	/**
+	 * 丢弃新来的任务，并通知网络监听器，由监听器来决定如何处理.
+	 */
+	NOTIFY_LISTENER;
+
+	/**
+	 * 根据配置的名称获取处理策略，忽略大小写.
+	 * 
+	 * @param name 策略名称
+	 * @return 处理策略
+	 */
+	public static OverloadPolicy of(String name) {
+		for (OverloadPolicy policy : values()) {
+			if (policy.name().equalsIgnoreCase(name)) {
+				return policy;
+			}
+		}
+		throw new UnrealizedException("未知的任务队列过载处理策略：" + name);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.thread;
+
+import java.io.Serializable;
+
+/**
+ * 模块子Key解析器.
+ * <p>
+ * 模块线程组默认以主Controller类名为Key，整个模块串行执行.<br>
+ * 当一个模块里的逻辑可以按某个维度（比如联盟）相互独立时，Controller类可以实现这个接口，<br>
+ * 同一个子Key的任务依然串行，不同子Key的任务就可以并行执行了.
+ * <p>
+ * 注意：返回null的任务会进入模块的公共队列，这个队列和各子Key的队列之间是并行的，<br>
+ * 所以两边都会访问的模块数据需要自己保证线程安全.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+@FunctionalInterface
+public interface SubKeyResolver {
+
+	/**
+	 * 解析一个任务的子Key.
+	 * 
+	 * @param playerId 玩家ID，事件与延迟任务时可能为null
+	 * @param args 处理方法的参数列表
+	 * @return 子Key，返回null则进入模块的公共队列
+	 */
+	Serializable resolveSubKey(Serializable playerId, Object[] args);
+}
\ No newline at end of file
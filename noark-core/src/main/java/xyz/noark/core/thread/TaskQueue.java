@@ -13,23 +13,68 @@
  */
 package xyz.noark.core.thread;
 
-import java.util.LinkedList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 任务处理队列.
+ * <p>
+ * 无锁的多生产者单消费者队列，任务本身就是链表节点，提交时不再额外分配节点对象.<br>
+ * 同一时刻只有抢到调度状态的那一方可以出队并执行任务，从而保证同一个队列里的任务串行执行.<br>
+ * 开启批量执行后，拿到队列的线程会连续执行多个任务（数量或时间达到上限）才把线程让出来，以减少线程池的切换次数.<br>
+ * 还在排队的任务可以被取消，被取消的任务出队时直接跳过.
  *
  * @since 3.0
  * @author 小流氓(176543888@qq.com)
  */
 public class TaskQueue {
 	private final ExecutorService threadPool;
-	/** 任务处理队列 */
-	private LinkedList<AsyncTask> queue;
+	/** 队尾，由生产者通过原子交换来追加 */
+	private final AtomicReference<AsyncTask> tail;
+	/** 队头（已出队的最后一个任务），只有消费者才能修改 */
+	private volatile AsyncTask head;
+	/** 调度状态，true表示已有任务交给线程池在执行了 */
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	/** 一次最多连续执行的任务数量 */
+	private final int drainMaxTasks;
+	/** 一次连续执行的时间预算，单位：纳秒，0表示不限制 */
+	private final long drainTimeBudget;
+	/** 出队的任务数量，只由消费者累加，用于判定队列是否空闲 */
+	private int pollCount;
+	/** 当前队列中等待执行的任务数量 */
+	private final AtomicInteger size = new AtomicInteger();
+	/** 所有队列中等待执行的任务总数量，不需要统计时为null */
+	private final AtomicInteger totalSize;
+	/** 正在往这个队列提交任务的生产者数量，{@link #RETIRED}表示队列已被清理，不能再使用 */
+	private final AtomicInteger producers = new AtomicInteger();
+	private static final int RETIRED = Integer.MIN_VALUE;
 
 	public TaskQueue(ExecutorService threadPool) {
+		this(threadPool, 1, 0);
+	}
+
+	public TaskQueue(ExecutorService threadPool, int drainMaxTasks, long drainTimeBudget) {
+		this(threadPool, drainMaxTasks, drainTimeBudget, null);
+	}
+
+	/**
+	 * 创建一个批量执行模式的任务队列.
+	 * 
+	 * @param threadPool 线程池
+	 * @param drainMaxTasks 一次最多连续执行的任务数量
+	 * @param drainTimeBudget 一次连续执行的时间预算，单位：微秒，0表示不限制
+	 * @param totalSize 所有队列共享的等待任务总数量，可以为null
+	 */
+	public TaskQueue(ExecutorService threadPool, int drainMaxTasks, long drainTimeBudget, AtomicInteger totalSize) {
 		this.threadPool = threadPool;
-		this.queue = new LinkedList<>();
+		this.totalSize = totalSize;
+		this.drainMaxTasks = Math.max(1, drainMaxTasks);
+		this.drainTimeBudget = TimeUnit.MICROSECONDS.toNanos(Math.max(0, drainTimeBudget));
+		this.head = new AsyncTask(null, this, null, null, 0, null);
+		this.tail = new AtomicReference<>(head);
 	}
 
 	/**
@@ -38,27 +83,225 @@ public class TaskQueue {
 	 * @param task 任务
 	 */
 	public void submit(AsyncTask task) {
-		synchronized (this) {
-			queue.add(task);
-			// 只有一个任务，那就是刚刚加的，直接开始执行...
-			if (queue.size() == 1) {
+		this.incrSize();
+		AsyncTask prev = tail.getAndSet(task);
+		prev.next = task;
+
+		// 抢到调度权的那一方负责开始执行...
+		if (scheduled.compareAndSet(false, true)) {
+			this.schedule();
+		}
+	}
+
+	/**
+	 * 把下一个任务交给线程池，调用者必需持有调度权.
+	 */
+	private void schedule() {
+		AsyncTask next = this.next();
+		if (next != null) {
+			threadPool.execute(next);
+		}
+	}
+
+	/**
+	 * 在当前线程里执行队列中的任务，由线程池里的{@link AsyncTask}调用.
+	 * <p>
+	 * 连续执行的任务数量或时间达到上限时，剩下的任务重新提交给线程池，让其他队列也有机会执行.
+	 * 
+	 * @param task 第一个要执行的任务
+	 */
+	void drain(AsyncTask task) {
+		final long start = drainTimeBudget > 0 ? System.nanoTime() : 0;
+		int count = 0;
+		while (true) {
+			boolean completed = false;
+			try {
+				task.execute();
+				completed = true;
+			} finally {
+				// 异常处理的逻辑也可能抛出异常，这时也要把剩下的任务交出去，不然调度权一直不释放，这个队列就再也不会执行了
+				if (!completed) {
+					this.schedule();
+				}
+			}
+
+			// 完成一个任务后，如果还有任务，则继续执行。
+			task = this.next();
+			if (task == null) {
+				return;
+			}
+
+			if (++count >= drainMaxTasks || (drainTimeBudget > 0 && System.nanoTime() - start >= drainTimeBudget)) {
 				threadPool.execute(task);
+				return;
 			}
 		}
 	}
 
 	/**
-	 * 完成一个任务后续处理
+	 * 取出下一个任务，调用者必需持有调度权.
+	 * <p>
+	 * 队列为空时释放调度权，释放后再检查一次，防止与刚刚提交任务的生产者错过.
+	 * 
+	 * @return 下一个任务，如果返回null则表示已释放了调度权
 	 */
-	public void complete() {
-		synchronized (this) {
-			// 移除已经完成的任务。
-			queue.removeFirst();
+	private AsyncTask next() {
+		while (true) {
+			AsyncTask task = this.poll();
+			if (task != null) {
+				return task;
+			}
 
-			// 完成一个任务后，如果还有任务，则继续执行。
-			if (!queue.isEmpty()) {
-				this.threadPool.submit(queue.getFirst());
+			scheduled.set(false);
+			if (this.isEmpty() || !scheduled.compareAndSet(false, true)) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * 取出队头的任务，只能由持有调度权的消费者调用.
+	 * <p>
+	 * 已被取消的任务直接跳过.
+	 * 
+	 * @return 如果队列为空则返回null
+	 */
+	private AsyncTask poll() {
+		while (true) {
+			AsyncTask current = head;
+			AsyncTask next = current.next;
+			if (next == null) {
+				if (current == tail.get()) {
+					return null;
+				}
+				// 生产者已交换了队尾但还没有链接上，自旋等待一下...
+				while ((next = current.next) == null) {
+					Thread.yield();
+				}
+			}
+			current.next = null;
+			head = next;
+			pollCount++;
+
+			if (next.start()) {
+				this.decrSize();
+				return next;
+			}
+		}
+	}
+
+	/**
+	 * 取消队列中第一个还在排队的同一处理方法的任务.
+	 * <p>
+	 * 从队头向后查找，与消费者并发时可能找不到，找不到就返回false.
+	 * 
+	 * @param task 参考任务
+	 * @return 如果取消成功则返回true
+	 */
+	boolean cancelSameHandler(AsyncTask task) {
+		for (AsyncTask node = head.next; node != null; node = node.next) {
+			if (node.isSameHandler(task) && node.cancel()) {
+				this.decrSize();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 获取当前队列中等待执行的任务数量.
+	 * 
+	 * @return 等待执行的任务数量
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	private void incrSize() {
+		size.incrementAndGet();
+		if (totalSize != null) {
+			totalSize.incrementAndGet();
+		}
+	}
+
+	private void decrSize() {
+		size.decrementAndGet();
+		if (totalSize != null) {
+			totalSize.decrementAndGet();
+		}
+	}
+
+	/**
+	 * 获取出队的任务数量.
+	 * <p>
+	 * 非消费者线程读取时不保证是最新的值，只用于判定两次检查之间是否有任务执行过.
+	 * 
+	 * @return 出队的任务数量
+	 */
+	int getPollCount() {
+		return pollCount;
+	}
+
+	/**
+	 * 占用这个队列，占用期间队列不会被清理.
+	 * <p>
+	 * 提交完任务后必需调用{@link #release()}.
+	 * 
+	 * @return 如果队列已被清理则返回false，需要换一个新的队列
+	 */
+	boolean acquire() {
+		while (true) {
+			int count = producers.get();
+			if (count < 0) {
+				return false;
 			}
+			if (producers.compareAndSet(count, count + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 释放对这个队列的占用.
+	 */
+	void release() {
+		producers.decrementAndGet();
+	}
+
+	/**
+	 * 尝试清理这个队列.
+	 * <p>
+	 * 只有没有生产者占用并且空闲时才能清理，清理后再也不能占用.<br>
+	 * 生产者是先提交任务再释放占用的，所以抢到清理状态后再检查一次空闲就不会漏掉任务.
+	 * 
+	 * @return 如果清理成功则返回true
+	 */
+	boolean retire() {
+		if (!producers.compareAndSet(0, RETIRED)) {
+			return false;
 		}
+		if (this.isIdle()) {
+			return true;
+		}
+		producers.set(0);
+		return false;
+	}
+
+	/**
+	 * 判定队列是否空闲，即没有正在执行和等待执行的任务.
+	 * 
+	 * @return 如果空闲则返回true
+	 */
+	boolean isIdle() {
+		return !scheduled.get() && this.isEmpty();
+	}
+
+	/**
+	 * 判定队列是否为空.
+	 * 
+	 * @return 如果为空则返回true
+	 */
+	private boolean isEmpty() {
+		return head == tail.get();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,238 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.thread;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * 以long为Key的任务队列表.
+ * <p>
+ * 分段的开放寻址（线性探测）哈希表，专门用于以long类型玩家ID查找任务队列.<br>
+ * 查找走乐观读，不装箱也不分配对象，只有创建新队列时才会加写锁.<br>
+ * 空闲队列由后台线程定时清理，一个队列在一次清理周期内没有执行过任务并且当前空闲才会被移除，访问时不再记录时间戳.<br>
+ * 取出的队列已被占用，提交完任务后必需调用{@link TaskQueue#release()}，占用期间不会被清理，这样同一个Key不会同时有两个队列.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+class TaskQueueTable {
+	/** 分段数量，必需是2的N次方 */
+	private static final int STRIPE_NUM = 64;
+	/** 每个分段的初始容量，必需是2的N次方 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Stripe[] stripes;
+	private final Supplier<TaskQueue> loading;
+	private final ScheduledExecutorService sweeper;
+
+	/**
+	 * 创建一个任务队列表.
+	 * 
+	 * @param timeout 空闲队列的清理周期
+	 * @param unit 时间单位
+	 * @param loading 创建任务队列的方法
+	 */
+	TaskQueueTable(long timeout, TimeUnit unit, Supplier<TaskQueue> loading) {
+		this.loading = loading;
+		this.stripes = new Stripe[STRIPE_NUM];
+		for (int i = 0; i < STRIPE_NUM; i++) {
+			stripes[i] = new Stripe();
+		}
+		this.sweeper = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("task-queue-sweeper", false));
+		this.sweeper.scheduleWithFixedDelay(() -> this.sweep(), timeout, timeout, unit);
+	}
+
+	/**
+	 * 获取并占用指定Key的任务队列，如果不存在则创建一个.
+	 * 
+	 * @param key 玩家ID
+	 * @return 已占用的任务队列
+	 */
+	TaskQueue get(long key) {
+		long hash = hash(key);
+		return stripes[(int) (hash >>> 58)].get(key, (int) hash, loading);
+	}
+
+	/**
+	 * 当前任务队列的数量.
+	 * 
+	 * @return 任务队列的数量
+	 */
+	int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	/**
+	 * 清理空闲的任务队列.
+	 */
+	void sweep() {
+		for (Stripe stripe : stripes) {
+			stripe.sweep();
+		}
+	}
+
+	/**
+	 * 停止后台清理线程.
+	 */
+	void shutdown() {
+		sweeper.shutdownNow();
+	}
+
+	private static long hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 32);
+	}
+
+	private static class Entry {
+		private final long key;
+		private final TaskQueue queue;
+		/** 上一次清理时队列的出队数量 */
+		private int lastPollCount;
+
+		private Entry(long key, TaskQueue queue) {
+			this.key = key;
+			this.queue = queue;
+			this.lastPollCount = -1;
+		}
+	}
+
+	private static class Stripe {
+		private final StampedLock lock = new StampedLock();
+		private Entry[] table = new Entry[INITIAL_CAPACITY];
+		private int size;
+
+		private TaskQueue get(long key, int hash, Supplier<TaskQueue> loading) {
+			// 先乐观读，绝大多数情况下队列已存在
+			long stamp = lock.tryOptimisticRead();
+			if (stamp != 0) {
+				TaskQueue queue = find(table, key, hash);
+				// 占用失败说明刚刚被清理了，加写锁时清理已完成，再查就是新的队列了
+				if (lock.validate(stamp) && queue != null && queue.acquire()) {
+					return queue;
+				}
+			}
+
+			stamp = lock.writeLock();
+			try {
+				// 清理和移除在同一次写锁内完成，表里的队列都是可以占用的
+				TaskQueue queue = find(table, key, hash);
+				if (queue == null || !queue.acquire()) {
+					queue = loading.get();
+					queue.acquire();
+					this.insert(new Entry(key, queue), hash);
+				}
+				return queue;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		private int size() {
+			long stamp = lock.readLock();
+			try {
+				return size;
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		private void insert(Entry entry, int hash) {
+			// 负载因子0.5，保证探测时一定能碰到空位
+			if ((size + 1) << 1 > table.length) {
+				this.rehash(table.length << 1);
+			}
+			place(table, entry, hash);
+			size++;
+		}
+
+		private void sweep() {
+			long stamp = lock.writeLock();
+			try {
+				Entry[] old = table;
+				int capacity = table.length;
+				int live = 0;
+				for (int i = 0; i < old.length; i++) {
+					Entry entry = old[i];
+					if (entry == null) {
+						continue;
+					}
+					int pollCount = entry.queue.getPollCount();
+					// 一个周期内没有执行过任务并且现在也是空闲的，也没有生产者正在提交任务，那就移除
+					if (pollCount == entry.lastPollCount && entry.queue.retire()) {
+						old[i] = null;
+					} else {
+						entry.lastPollCount = pollCount;
+						live++;
+					}
+				}
+
+				// 移除后开放寻址的探测链会断开，直接重建一次
+				while (capacity > INITIAL_CAPACITY && live << 2 < capacity) {
+					capacity >>= 1;
+				}
+				Entry[] rebuild = new Entry[capacity];
+				for (Entry entry : old) {
+					if (entry != null) {
+						place(rebuild, entry, (int) hash(entry.key));
+					}
+				}
+				this.table = rebuild;
+				this.size = live;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		private void rehash(int capacity) {
+			Entry[] rebuild = new Entry[capacity];
+			for (Entry entry : table) {
+				if (entry != null) {
+					place(rebuild, entry, (int) hash(entry.key));
+				}
+			}
+			this.table = rebuild;
+		}
+
+		private static TaskQueue find(Entry[] table, long key, int hash) {
+			int mask = table.length - 1;
+			for (int i = hash & mask, n = 0; n < table.length; i = (i + 1) & mask, n++) {
+				Entry entry = table[i];
+				if (entry == null) {
+					return null;
+				}
+				if (entry.key == key) {
+					return entry.queue;
+				}
+			}
+			return null;
+		}
+
+		private static void place(Entry[] table, Entry entry, int hash) {
+			int mask = table.length - 1;
+			int i = hash & mask;
+			while (table[i] != null) {
+				i = (i + 1) & mask;
+			}
+			table[i] = entry;
+		}
+	}
+}
\ No newline at end of file
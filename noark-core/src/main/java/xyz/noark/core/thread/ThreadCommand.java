@@ -42,4 +42,19 @@ public interface ThreadCommand {
 	 * @return 如果为true则输出日志，false为不输出
 	 */
 	boolean isPrintLog();
+
+	/**
+	 * 记录执行的延迟与耗时.
+	 * 
+	 * @param delay 排队延迟，单位：纳秒
+	 * @param exec 执行耗时，单位：纳秒
+	 */
+	default void recordLatency(long delay, long exec) {}
+
+	/**
+	 * 记录执行所消耗的CPU时间.
+	 * 
+	 * @param cpu CPU时间，单位：纳秒
+	 */
+	default void recordCpuTime(long cpu) {}
 }
\ No newline at end of file
@@ -17,9 +17,10 @@ import static xyz.noark.log.LogHelper.logger;
 
 import java.io.Serializable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
 
 import xyz.noark.core.annotation.Autowired;
 import xyz.noark.core.annotation.Service;
@@ -27,15 +28,20 @@ import xyz.noark.core.event.Event;
 import xyz.noark.core.event.PlayerEvent;
 import xyz.noark.core.exception.UnrealizedException;
 import xyz.noark.core.ioc.manager.PacketMethodManager;
+import xyz.noark.core.ioc.wrap.method.AbstractControllerMethodWrapper;
 import xyz.noark.core.ioc.wrap.method.EventMethodWrapper;
+import xyz.noark.core.ioc.wrap.method.HttpMethodWrapper;
 import xyz.noark.core.ioc.wrap.method.PacketMethodWrapper;
 import xyz.noark.core.ioc.wrap.method.ScheduledMethodWrapper;
 import xyz.noark.core.lang.TimeoutHashMap;
+import xyz.noark.core.network.FlushBatch;
 import xyz.noark.core.network.NetworkListener;
 import xyz.noark.core.network.NetworkPacket;
 import xyz.noark.core.network.ResultHelper;
 import xyz.noark.core.network.Session;
 import xyz.noark.core.network.SessionManager;
+import xyz.noark.core.thread.command.AbstractThreadCommand;
+import xyz.noark.core.thread.command.HttpThreadCommand;
 import xyz.noark.core.thread.command.PlayerThreadCommand;
 import xyz.noark.core.thread.command.SystemThreadCommand;
 
@@ -54,6 +60,19 @@ public class ThreadDispatcher {
 	private ExecutorService businessThreadPool;
 	/** 处理业务逻辑的任务队列 */
 	private TimeoutHashMap<Serializable, TaskQueue> businessThreadPoolTaskQueue;
+	/** 以long类型玩家ID划分的任务队列 */
+	private TaskQueueTable playerThreadPoolTaskQueue;
+
+	/** 单个任务队列的上限，0表示不限制 */
+	private int queueLimit = 0;
+	/** 所有任务队列的总上限，0表示不限制 */
+	private int totalLimit = 0;
+	/** 所有任务队列中等待执行的任务总数量 */
+	private AtomicInteger totalSize;
+	/** 任务队列过载时的处理策略 */
+	private OverloadPolicy overloadPolicy = OverloadPolicy.DROP_NEWEST;
+	/** 因过载而被丢弃的任务数量 */
+	private final LongAdder rejectedNum = new LongAdder();
 
 	@Autowired(required = false)
 	private NetworkListener networkListener;
@@ -63,13 +82,32 @@ public class ThreadDispatcher {
 	/**
 	 * 初始线程调度器的配置.
 	 * 
+	 * @param poolType 处理业务逻辑的线程池类型
 	 * @param poolSize 处理业务逻辑的线程数量
 	 * @param threadNamePrefix 线程名称前缀
 	 * @param timeout 队列超时销毁时间，单位：分钟
+	 * @param drainMaxTasks 一个队列一次最多连续执行的任务数量
+	 * @param drainTimeBudget 一个队列一次连续执行的时间预算，单位：微秒
+	 */
+	public void init(ThreadPoolType poolType, int poolSize, String threadNamePrefix, int timeout, int drainMaxTasks, long drainTimeBudget) {
+		this.businessThreadPool = poolType.newThreadPool(poolSize, threadNamePrefix);
+		this.businessThreadPoolTaskQueue = new TimeoutHashMap<>(timeout, TimeUnit.MINUTES, () -> new TaskQueue(businessThreadPool, drainMaxTasks, drainTimeBudget, totalSize));
+		this.playerThreadPoolTaskQueue = new TaskQueueTable(timeout, TimeUnit.MINUTES, () -> new TaskQueue(businessThreadPool, drainMaxTasks, drainTimeBudget, totalSize));
+	}
+
+	/**
+	 * 初始任务队列的过载配置，需要在{@link #init(ThreadPoolType, int, String, int, int, long)}之前调用.
+	 * 
+	 * @param queueLimit 单个任务队列的上限，0表示不限制
+	 * @param totalLimit 所有任务队列的总上限，0表示不限制
+	 * @param overloadPolicy 过载时的处理策略
 	 */
-	public void init(int poolSize, String threadNamePrefix, int timeout) {
-		this.businessThreadPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory(threadNamePrefix));
-		this.businessThreadPoolTaskQueue = new TimeoutHashMap<>(timeout, TimeUnit.MINUTES, () -> new TaskQueue(businessThreadPool));
+	public void initOverload(int queueLimit, int totalLimit, OverloadPolicy overloadPolicy) {
+		this.queueLimit = queueLimit;
+		this.totalLimit = totalLimit;
+		this.overloadPolicy = overloadPolicy;
+		// 没有总上限时就不用统计了，减少一个全局竞争点
+		this.totalSize = totalLimit > 0 ? new AtomicInteger() : null;
 	}
 
 	/**
@@ -158,19 +196,120 @@ public class ThreadDispatcher {
 
 	/** 派发给Netty线程处理的逻辑. */
 	void dispatchNettyThreadHandle(Session session, int reqId, PacketMethodWrapper protocol, Object... args) {
-		ResultHelper.trySendResult(session, reqId, protocol.invoke(args));
+		long startExecuteTime = System.nanoTime();
+		FlushBatch.begin();
+		try {
+			ResultHelper.trySendResult(session, reqId, protocol.invoke(args));
+		} finally {
+			FlushBatch.end();
+			protocol.recordExec(System.nanoTime() - startExecuteTime);
+		}
 	}
 
 	/** 派发给系统线程处理的逻辑. */
 	void dispatchSystemThreadHandle(Session session, int reqId, SystemThreadCommand command) {
-		TaskQueue taskQueue = businessThreadPoolTaskQueue.get(command.getModule());
-		taskQueue.submit(new AsyncTask(networkListener, taskQueue, command, command.getPlayerId(), reqId, session));
+		TaskQueue taskQueue = businessThreadPoolTaskQueue.get(command.getQueueKey());
+		this.submit(taskQueue, new AsyncTask(networkListener, taskQueue, command, command.getPlayerId(), reqId, session));
 	}
 
 	/** 派发给玩家线程处理的逻辑. */
 	void dispatchPlayerThreadHandle(Session session, int reqId, PlayerThreadCommand command) {
-		TaskQueue taskQueue = businessThreadPoolTaskQueue.get(command.getPlayerId());
-		taskQueue.submit(new AsyncTask(networkListener, taskQueue, command, command.getPlayerId(), reqId, session));
+		Serializable playerId = command.getPlayerId();
+		// long类型的玩家ID走专用的队列表，不需要再装箱
+		if (playerId instanceof Long) {
+			TaskQueue taskQueue = playerThreadPoolTaskQueue.get(((Long) playerId).longValue());
+			try {
+				this.submit(taskQueue, new AsyncTask(networkListener, taskQueue, command, playerId, reqId, session));
+			} finally {
+				// 提交完成才释放占用，在此之前队列不会被清理
+				taskQueue.release();
+			}
+			return;
+		}
+		TaskQueue taskQueue = businessThreadPoolTaskQueue.get(playerId);
+		this.submit(taskQueue, new AsyncTask(networkListener, taskQueue, command, playerId, reqId, session));
+	}
+
+	/**
+	 * 提交任务到任务队列.
+	 * <p>
+	 * 可合并的协议先替换掉还在排队的同类任务，替换成功就不用再检测上限了.<br>
+	 * 只有客户端发来的封包才会检测队列上限，上限是软限制，并发提交时可能会稍稍超出一点.
+	 */
+	private void submit(TaskQueue taskQueue, AsyncTask task) {
+		if (this.tryCoalesce(taskQueue, task)) {
+			taskQueue.submit(task);
+			return;
+		}
+		if (task.getSession() != null && this.isOverload(taskQueue) && !this.handleOverload(taskQueue, task)) {
+			return;
+		}
+		taskQueue.submit(task);
+	}
+
+	/**
+	 * 尝试取消队列中还在排队的同一个玩家同一个协议的任务.
+	 * 
+	 * @return 如果取消成功则返回true
+	 */
+	private boolean tryCoalesce(TaskQueue taskQueue, AsyncTask task) {
+		ThreadCommand command = task.getCommand();
+		if (command instanceof AbstractThreadCommand) {
+			AbstractControllerMethodWrapper method = ((AbstractThreadCommand) command).getMethod();
+			if (method instanceof PacketMethodWrapper && ((PacketMethodWrapper) method).isCoalesce() && taskQueue.cancelSameHandler(task)) {
+				((PacketMethodWrapper) method).incrCoalesceNum();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isOverload(TaskQueue taskQueue) {
+		return (queueLimit > 0 && taskQueue.size() >= queueLimit) || (totalSize != null && totalSize.get() >= totalLimit);
+	}
+
+	/**
+	 * 处理任务队列过载.
+	 * 
+	 * @return 如果新任务还可以放入队列则返回true
+	 */
+	private boolean handleOverload(TaskQueue taskQueue, AsyncTask task) {
+		rejectedNum.increment();
+		ThreadCommand command = task.getCommand();
+		if (command instanceof AbstractThreadCommand) {
+			((AbstractThreadCommand) command).getMethod().incrRejectNum();
+		}
+
+		Session session = task.getSession();
+		switch (overloadPolicy) {
+		case DROP_OLDEST:
+			if (taskQueue.cancelSameHandler(task)) {
+				return true;
+			}
+			logger.warn("task queue overload, drop newest. code={}, playerId={}", command.code(), session.getPlayerId());
+			return false;
+		case CLOSE_SESSION:
+			logger.warn("task queue overload, close session. code={}, playerId={}", command.code(), session.getPlayerId());
+			session.close();
+			return false;
+		case NOTIFY_LISTENER:
+			if (networkListener != null) {
+				networkListener.handleTaskOverload(session, command.code());
+			}
+			return false;
+		default:
+			logger.warn("task queue overload, drop newest. code={}, playerId={}", command.code(), session.getPlayerId());
+			return false;
+		}
+	}
+
+	/**
+	 * 获取因过载而被丢弃的任务数量.
+	 * 
+	 * @return 被丢弃的任务数量
+	 */
+	public long getRejectedNum() {
+		return rejectedNum.longValue();
 	}
 
 	/**
@@ -221,11 +360,40 @@ public class ThreadDispatcher {
 		}
 	}
 
+	/**
+	 * 派发HTTP请求.
+	 * <p>
+	 * Netty线程组的接口直接在当前线程执行，其他的投递到模块的任务队列，不再占用HTTP服务的IO线程.<br>
+	 * HTTP请求没有玩家的概念，玩家线程组的接口也按模块排队.
+	 * 
+	 * @param handler HTTP接口处理方法
+	 * @param callback 执行结果回调，第一个参数为返回值，第二个参数为异常
+	 * @param args 接口参数
+	 */
+	public void dispatchHttp(HttpMethodWrapper handler, BiConsumer<Object, Throwable> callback, Object... args) {
+		HttpThreadCommand command = new HttpThreadCommand(handler, callback, args);
+		switch (handler.threadGroup()) {
+		case NettyThreadGroup: {
+			long startExecuteTime = System.nanoTime();
+			try {
+				command.exec();
+			} finally {
+				handler.recordExec(System.nanoTime() - startExecuteTime);
+			}
+			break;
+		}
+		default:
+			this.dispatchSystemThreadHandle(null, 0, command);
+			break;
+		}
+	}
+
 	/**
 	 * 停止接受新的任务，把老的都处理掉.
 	 */
 	public void shutdown() {
 		logger.info("开始通知停止处理业务逻辑的线程池停止服务.");
+		playerThreadPoolTaskQueue.shutdown();
 		businessThreadPool.shutdown();
 		try {
 			if (!businessThreadPool.awaitTermination(SHUTDOWN_MAX_TIME, TimeUnit.MINUTES)) {
@@ -27,13 +27,30 @@ import xyz.noark.core.annotation.Value;
 @Component(name = Modular.THREAD_MODULAR)
 public class ThreadModular implements Modular {
 
+	/** 处理业务逻辑的线程池类型，可选：fixed，work_stealing，virtual */
+	public static final String THREAD_POOL_TYPE = "thread.pool.type";
 	/** 处理业务逻辑的线程数量 */
 	public static final String THREAD_POOL_SIZE = "thread.pool.size";
 	/** 线程名称前缀 */
 	public static final String THREAD_NAME_PREFIX = "thread.name.prefix";
 	/** 队列超时销毁时间，单位：分钟 */
 	public static final String THREAD_TASK_QUEUE_TIMEOUT = "thread.task.queue.timeout";
+	/** 一个队列一次最多连续执行的任务数量，默认为1，即每个任务执行完都让出线程 */
+	public static final String THREAD_DRAIN_MAX_TASKS = "thread.drain.max.tasks";
+	/** 一个队列一次连续执行的时间预算，单位：微秒，默认为0，即不限制 */
+	public static final String THREAD_DRAIN_TIME_BUDGET = "thread.drain.time.budget";
+	/** 单个任务队列的上限，默认为0，即不限制 */
+	public static final String THREAD_TASK_QUEUE_LIMIT = "thread.task.queue.limit";
+	/** 所有任务队列的总上限，默认为0，即不限制 */
+	public static final String THREAD_TASK_TOTAL_LIMIT = "thread.task.total.limit";
+	/** 任务队列过载时的处理策略，可选：drop_newest，drop_oldest，close_session，notify_listener */
+	public static final String THREAD_OVERLOAD_POLICY = "thread.overload.policy";
+	/** 是否统计各模块消耗的CPU时间，默认为true */
+	public static final String THREAD_CPU_ACCOUNTING = "thread.cpu.accounting";
 
+	/** 处理业务逻辑的线程池类型 */
+	@Value(ThreadModular.THREAD_POOL_TYPE)
+	private String poolType = ThreadPoolType.FIXED.name();
 	/** 处理业务逻辑的线程数量 */
 	@Value(ThreadModular.THREAD_POOL_SIZE)
 	private int poolSize = 8;
@@ -41,15 +58,35 @@ public class ThreadModular implements Modular {
 	@Value(ThreadModular.THREAD_NAME_PREFIX)
 	private String threadNamePrefix = "business";
 	/** 队列超时销毁时间，单位：分钟 */
-	@Value(ThreadModular.THREAD_NAME_PREFIX)
+	@Value(ThreadModular.THREAD_TASK_QUEUE_TIMEOUT)
 	private int timeout = 1;
+	/** 一个队列一次最多连续执行的任务数量 */
+	@Value(ThreadModular.THREAD_DRAIN_MAX_TASKS)
+	private int drainMaxTasks = 1;
+	/** 一个队列一次连续执行的时间预算，单位：微秒 */
+	@Value(ThreadModular.THREAD_DRAIN_TIME_BUDGET)
+	private long drainTimeBudget = 0;
+	/** 单个任务队列的上限 */
+	@Value(ThreadModular.THREAD_TASK_QUEUE_LIMIT)
+	private int queueLimit = 0;
+	/** 所有任务队列的总上限 */
+	@Value(ThreadModular.THREAD_TASK_TOTAL_LIMIT)
+	private int totalLimit = 0;
+	/** 任务队列过载时的处理策略 */
+	@Value(ThreadModular.THREAD_OVERLOAD_POLICY)
+	private String overloadPolicy = OverloadPolicy.DROP_NEWEST.name();
+	/** 是否统计各模块消耗的CPU时间 */
+	@Value(ThreadModular.THREAD_CPU_ACCOUNTING)
+	private boolean cpuAccounting = true;
 
 	@Autowired
 	private ThreadDispatcher threadDispatcher;
 
 	@Override
 	public void init() {
-		threadDispatcher.init(poolSize, threadNamePrefix, timeout);
+		ModuleStatisticsManager.getInstance().setCpuAccounting(cpuAccounting);
+		threadDispatcher.initOverload(queueLimit, totalLimit, OverloadPolicy.of(overloadPolicy));
+		threadDispatcher.init(ThreadPoolType.of(poolType), poolSize, threadNamePrefix, timeout, drainMaxTasks, drainTimeBudget);
 	}
 
 	@Override
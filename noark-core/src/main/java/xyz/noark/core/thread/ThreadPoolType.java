@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.thread;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import xyz.noark.core.exception.UnrealizedException;
+
+/**
+ * 处理业务逻辑的线程池类型.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public enum ThreadPoolType {
+	/**
+	 * 固定数量线程的线程池.
+	 * <p>
+	 * 默认的类型，线程数量由{@link ThreadModular#THREAD_POOL_SIZE}配置
+	 */
+	FIXED {
+		@Override
+		public ExecutorService newThreadPool(int poolSize, String threadNamePrefix) {
+			return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory(threadNamePrefix));
+		}
+	},
+
+	/**
+	 * 工作窃取的ForkJoin线程池.
+	 * <p>
+	 * 每个线程有自己的任务队列，空闲的线程会去窃取其他线程的任务，减少共享队列上的竞争
+	 */
+	WORK_STEALING {
+		@Override
+		public ExecutorService newThreadPool(int poolSize, String threadNamePrefix) {
+			final AtomicInteger threadCounter = new AtomicInteger(1);
+			return new ForkJoinPool(poolSize, pool -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName(threadNamePrefix + "-" + threadCounter.getAndIncrement());
+				return thread;
+			}, null, true);
+		}
+	},
+
+	/**
+	 * 每个任务一个虚拟线程.
+	 * <p>
+	 * 需要运行在支持虚拟线程的JDK上，业务线程阻塞在数据库加载时不会占用平台线程，不支持时退化为{@link #FIXED}
+	 */
+	VIRTUAL {
+		@Override
+		public ExecutorService newThreadPool(int poolSize, String threadNamePrefix) {
+			try {
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+				Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+				builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix + "-", 1L);
+				ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+				return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+			} catch (ReflectiveOperationException e) {
+				logger.warn("当前JDK不支持虚拟线程，使用固定数量的线程池. java.version={}", System.getProperty("java.version"));
+				return FIXED.newThreadPool(poolSize, threadNamePrefix);
+			}
+		}
+	};
+
+	/**
+	 * 创建一个处理业务逻辑的线程池.
+	 * 
+	 * @param poolSize 线程数量
+	 * @param threadNamePrefix 线程名称前缀
+	 * @return 线程池
+	 */
+	public abstract ExecutorService newThreadPool(int poolSize, String threadNamePrefix);
+
+	/**
+	 * 根据配置的名称获取线程池类型，忽略大小写.
+	 * 
+	 * @param name 类型名称
+	 * @return 线程池类型
+	 */
+	public static ThreadPoolType of(String name) {
+		for (ThreadPoolType type : values()) {
+			if (type.name().equalsIgnoreCase(name)) {
+				return type;
+			}
+		}
+		throw new UnrealizedException("未知的线程池类型：" + name);
+	}
+}
\ No newline at end of file
@@ -50,7 +50,21 @@ public class AbstractThreadCommand implements ThreadCommand {
 		return method.isPrintLog();
 	}
 
+	@Override
+	public void recordLatency(long delay, long exec) {
+		method.recordLatency(delay, exec);
+	}
+
+	@Override
+	public void recordCpuTime(long cpu) {
+		method.recordCpuTime(cpu);
+	}
+
 	public Serializable getPlayerId() {
 		return playerId;
 	}
+
+	public AbstractControllerMethodWrapper getMethod() {
+		return method;
+	}
 }
\ No newline at end of file
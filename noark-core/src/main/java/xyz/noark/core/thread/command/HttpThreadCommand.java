@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.thread.command;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.util.function.BiConsumer;
+
+import xyz.noark.core.ioc.wrap.method.HttpMethodWrapper;
+
+/**
+ * HTTP接口处理命令.
+ * <p>
+ * 在模块线程中执行HTTP接口，执行结果或异常通过回调交还给HTTP服务，由它负责写回响应.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class HttpThreadCommand extends SystemThreadCommand {
+	/** 执行结果回调，第一个参数为返回值，第二个参数为异常 */
+	private final BiConsumer<Object, Throwable> callback;
+
+	public HttpThreadCommand(HttpMethodWrapper method, BiConsumer<Object, Throwable> callback, Object... args) {
+		super(method.getModule(), method, args);
+		this.callback = callback;
+	}
+
+	@Override
+	public Object exec() {
+		Object returnValue = null;
+		try {
+			returnValue = super.exec();
+		} catch (Throwable e) {
+			// 异常被回调处理了，不会再交给外层，所以这里要把堆栈记下来
+			logger.error("handle {} exception.{}", this.code(), e);
+			// 异常也要有响应，不然客户端就只能等超时了
+			callback.accept(null, e);
+			return null;
+		}
+		callback.accept(returnValue, null);
+		// 响应由回调写回，这里就不需要再发送了
+		return null;
+	}
+}
\ No newline at end of file
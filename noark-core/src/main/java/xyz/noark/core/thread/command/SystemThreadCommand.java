@@ -25,6 +25,8 @@ import xyz.noark.core.ioc.wrap.method.AbstractControllerMethodWrapper;
  */
 public class SystemThreadCommand extends AbstractThreadCommand {
 	private final String module;
+	/** 任务队列的Key，没有子Key时就是模块名称 */
+	private final Serializable queueKey;
 
 	public SystemThreadCommand(String module, AbstractControllerMethodWrapper method, Object... args) {
 		this(null, module, method, args);
@@ -33,9 +35,59 @@ public class SystemThreadCommand extends AbstractThreadCommand {
 	public SystemThreadCommand(Serializable playerId, String module, AbstractControllerMethodWrapper method, Object... args) {
 		super(method, playerId, args);
 		this.module = module;
+
+		Serializable subKey = method.resolveSubKey(playerId, args);
+		this.queueKey = subKey == null ? module : new SubQueueKey(module, subKey);
 	}
 
 	public String getModule() {
 		return module;
 	}
+
+	/**
+	 * 获取任务队列的Key.
+	 * <p>
+	 * 模块实现了子Key解析时，同一子Key的任务共用一个队列，否则整个模块共用一个队列.
+	 * 
+	 * @return 任务队列的Key
+	 */
+	public Serializable getQueueKey() {
+		return queueKey;
+	}
+
+	/**
+	 * 模块加子Key组成的队列Key.
+	 */
+	private static final class SubQueueKey implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final String module;
+		private final Serializable subKey;
+
+		private SubQueueKey(String module, Serializable subKey) {
+			this.module = module;
+			this.subKey = subKey;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * module.hashCode() + subKey.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof SubQueueKey)) {
+				return false;
+			}
+			SubQueueKey other = (SubQueueKey) obj;
+			return module.equals(other.module) && subKey.equals(other.subKey);
+		}
+
+		@Override
+		public String toString() {
+			return module + "#" + subKey;
+		}
+	}
 }
\ No newline at end of file
@@ -24,6 +24,19 @@ import java.util.zip.Inflater;
  * @author 小流氓(176543888@qq.com)
  */
 public class ZlibUtils {
+	/**
+	 * 每个线程复用一个压缩器，避免每次调用都分配Native内存
+	 */
+	private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+	/**
+	 * 每个线程复用一个解压器
+	 */
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+	/**
+	 * 每个线程复用的临时缓冲区
+	 */
+	private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[8192]);
+
 	/**
 	 * 压缩字节数组.
 	 * 
@@ -31,11 +44,11 @@ public class ZlibUtils {
 	 * @return 压缩后的字节数组
 	 */
 	public static byte[] compress(byte[] array) {
-		final Deflater deflater = new Deflater();
+		final Deflater deflater = DEFLATER.get();
 		try (ByteArrayOutputStream baos = new ByteArrayOutputStream(array.length)) {
 			deflater.setInput(array);
 			deflater.finish();
-			byte[] buf = new byte[1024];
+			final byte[] buf = BUFFER.get();
 			while (!deflater.finished()) {
 				baos.write(buf, 0, deflater.deflate(buf));
 			}
@@ -44,7 +57,7 @@ public class ZlibUtils {
 			// 压缩失败，那就不压了嘛...
 			return array;
 		} finally {
-			deflater.end();
+			deflater.reset();
 		}
 	}
 
@@ -55,21 +68,25 @@ public class ZlibUtils {
 	 * @return 解压缩后的数据
 	 */
 	public static byte[] uncompress(byte[] data) {
-		final Inflater decompresser = new Inflater();
-		try (ByteArrayOutputStream o = new ByteArrayOutputStream(data.length)) {
-			decompresser.reset();
+		final Inflater decompresser = INFLATER.get();
+		try (ByteArrayOutputStream o = new ByteArrayOutputStream(data.length << 1)) {
 			decompresser.setInput(data);
 
-			byte[] buf = new byte[1024];
+			final byte[] buf = BUFFER.get();
 			while (!decompresser.finished()) {
-				o.write(buf, 0, decompresser.inflate(buf));
+				int count = decompresser.inflate(buf);
+				// 数据不完整时不再死循环，当作解不开处理
+				if (count == 0 && (decompresser.needsInput() || decompresser.needsDictionary())) {
+					return data;
+				}
+				o.write(buf, 0, count);
 			}
 			return o.toByteArray();
 		} catch (Exception e) {
 			// 解不开那就不解了...
 			return data;
 		} finally {
-			decompresser.end();
+			decompresser.reset();
 		}
 	}
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * 延迟直方图测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void testPercentile() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		// 1~10000微秒各记录一次
+		for (long i = 1; i <= 10000; i++) {
+			histogram.record(i * 1000);
+		}
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(10000, snapshot.getCount());
+		assertEquals(10000, snapshot.getMax());
+		assertInRange(5000, snapshot.getPercentile(50));
+		assertInRange(9900, snapshot.getPercentile(99));
+		assertInRange(9990, snapshot.getPercentile(99.9));
+		assertEquals(10000, snapshot.getPercentile(100));
+
+		histogram.reset();
+		assertEquals(0, histogram.snapshot().getCount());
+		assertEquals(0, histogram.snapshot().getPercentile(99));
+	}
+
+	@Test
+	public void testOverflow() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(Long.MAX_VALUE);
+		histogram.record(-1);
+		assertEquals(2, histogram.snapshot().getCount());
+		assertEquals(Long.MAX_VALUE / 1000, histogram.snapshot().getMax());
+	}
+
+	private static void assertInRange(long expected, long actual) {
+		// 分桶的相对误差不超过1/16
+		assertTrue(actual >= expected && actual <= expected + expected / 16);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * 合并刷新批次测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class FlushBatchTest {
+
+	@Test
+	public void testBatch() {
+		AtomicInteger flushNum = new AtomicInteger();
+		Session session = newSession(flushNum);
+
+		// 没有开启批次，调用方需要自己刷新
+		assertFalse(FlushBatch.join(session));
+
+		FlushBatch.begin();
+		assertTrue(FlushBatch.join(session));
+		assertTrue(FlushBatch.join(session));
+		// 嵌套的批次结束时不刷新
+		FlushBatch.begin();
+		assertTrue(FlushBatch.join(session));
+		FlushBatch.end();
+		assertEquals(0, flushNum.get());
+
+		// 最外层结束时同一个Session只刷新一次
+		FlushBatch.end();
+		assertEquals(1, flushNum.get());
+		assertFalse(FlushBatch.join(session));
+	}
+
+	private static Session newSession(AtomicInteger flushNum) {
+		return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[] { Session.class }, (proxy, method, args) -> {
+			if ("flush".equals(method.getName())) {
+				flushNum.incrementAndGet();
+			}
+			if ("equals".equals(method.getName())) {
+				return proxy == args[0];
+			}
+			return null;
+		});
+	}
+}
\ No newline at end of file
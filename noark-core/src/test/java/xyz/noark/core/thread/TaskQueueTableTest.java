@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.thread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+/**
+ * 以long为Key的任务队列表测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class TaskQueueTableTest {
+	private static final int PRODUCER_NUM = 4;
+	private static final int TASK_NUM = 5_0000;
+	private static final ExecutorService POOL = Executors.newFixedThreadPool(4);
+
+	@AfterClass
+	public static void tearDownAfterClass() {
+		POOL.shutdown();
+	}
+
+	@Test
+	public void testGet() {
+		TaskQueueTable table = new TaskQueueTable(1, TimeUnit.HOURS, () -> new TaskQueue(POOL));
+		try {
+			TaskQueue queue = get(table, 1L);
+			assertSame(queue, get(table, 1L));
+			assertNotSame(queue, get(table, 2L));
+
+			// 扩容后还是原来的那个队列
+			for (long i = 0; i < 10000; i++) {
+				get(table, i * 31);
+			}
+			assertEquals(10002, table.size());
+			assertSame(queue, get(table, 1L));
+		} finally {
+			table.shutdown();
+		}
+	}
+
+	@Test
+	public void testSweep() {
+		TaskQueueTable table = new TaskQueueTable(1, TimeUnit.HOURS, () -> new TaskQueue(POOL));
+		try {
+			for (long i = 0; i < 1000; i++) {
+				get(table, i);
+			}
+			TaskQueue queue = get(table, 1L);
+
+			// 第一次清理只记录，第二次清理还是空闲的才移除
+			table.sweep();
+			assertEquals(1000, table.size());
+			table.sweep();
+			assertEquals(0, table.size());
+			assertNotSame(queue, get(table, 1L));
+
+			// 还被占用着的队列不会被清理
+			TaskQueue acquired = table.get(2L);
+			table.sweep();
+			table.sweep();
+			assertSame(acquired, get(table, 2L));
+			acquired.release();
+		} finally {
+			table.shutdown();
+		}
+	}
+
+	@Test
+	public void testConcurrentSweep() throws Exception {
+		TaskQueueTable table = new TaskQueueTable(1, TimeUnit.HOURS, () -> new TaskQueue(POOL));
+		ExecutorService producers = Executors.newFixedThreadPool(PRODUCER_NUM);
+		AtomicBoolean stop = new AtomicBoolean(false);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger counter = new AtomicInteger();
+		boolean[] error = new boolean[1];
+		CountDownLatch latch = new CountDownLatch(PRODUCER_NUM * TASK_NUM);
+		try {
+			// 清理线程不停地清理，同一个Key的任务还是只能串行执行
+			Thread sweeper = new Thread(() -> {
+				while (!stop.get()) {
+					table.sweep();
+				}
+			});
+			sweeper.start();
+
+			for (int p = 0; p < PRODUCER_NUM; p++) {
+				producers.execute(() -> {
+					for (int i = 0; i < TASK_NUM; i++) {
+						TaskQueue queue = table.get(1L);
+						try {
+							queue.submit(new AsyncTask(null, queue, new TestCommand(() -> {
+								if (running.incrementAndGet() != 1) {
+									error[0] = true;
+								}
+								counter.incrementAndGet();
+								running.decrementAndGet();
+								latch.countDown();
+							}), null, 0, null));
+						} finally {
+							queue.release();
+						}
+					}
+				});
+			}
+
+			assertTrue(latch.await(1, TimeUnit.MINUTES));
+			stop.set(true);
+			sweeper.join();
+			assertEquals(PRODUCER_NUM * TASK_NUM, counter.get());
+			assertFalse(error[0]);
+		} finally {
+			producers.shutdown();
+			table.shutdown();
+		}
+	}
+
+	/** 取出队列后马上释放占用，模拟提交完成 */
+	private static TaskQueue get(TaskQueueTable table, long key) {
+		TaskQueue queue = table.get(key);
+		queue.release();
+		return queue;
+	}
+
+	private static class TestCommand implements ThreadCommand {
+		private final Runnable runnable;
+
+		private TestCommand(Runnable runnable) {
+			this.runnable = runnable;
+		}
+
+		@Override
+		public Object exec() {
+			runnable.run();
+			return null;
+		}
+
+		@Override
+		public String code() {
+			return "test";
+		}
+
+		@Override
+		public boolean isPrintLog() {
+			return false;
+		}
+	}
+}
\ No newline at end of file
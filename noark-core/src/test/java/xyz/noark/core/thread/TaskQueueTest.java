@@ -0,0 +1,262 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.core.thread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import xyz.noark.core.network.AbstractNetworkListener;
+import xyz.noark.core.network.NetworkListener;
+import xyz.noark.core.network.Session;
+import xyz.noark.core.thread.command.AbstractThreadCommand;
+
+/**
+ * 任务处理队列测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class TaskQueueTest {
+	private static final int PRODUCER_NUM = 4;
+	private static final int TASK_NUM = 10_0000;
+	private static final ExecutorService PRODUCERS = Executors.newFixedThreadPool(PRODUCER_NUM);
+	private static final ExecutorService POOL = Executors.newFixedThreadPool(8);
+
+	@AfterClass
+	public static void tearDownAfterClass() {
+		PRODUCERS.shutdown();
+		POOL.shutdown();
+	}
+
+	@Test
+	public void testSerial() throws Exception {
+		this.serial(new TaskQueue(POOL));
+	}
+
+	@Test
+	public void testDrainSerial() throws Exception {
+		this.serial(new TaskQueue(POOL, 64, 0));
+		this.serial(new TaskQueue(POOL, Integer.MAX_VALUE, 100));
+	}
+
+	private void serial(TaskQueue queue) throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger counter = new AtomicInteger();
+		int[] lastSeq = new int[PRODUCER_NUM];
+		CountDownLatch latch = new CountDownLatch(PRODUCER_NUM * TASK_NUM);
+		boolean[] error = new boolean[1];
+
+		for (int p = 0; p < PRODUCER_NUM; p++) {
+			final int producer = p;
+			PRODUCERS.execute(() -> {
+				for (int i = 1; i <= TASK_NUM; i++) {
+					final int seq = i;
+					queue.submit(new AsyncTask(null, queue, new TestCommand(() -> {
+						// 同一个队列同一时刻只能有一个任务在执行，并且同一个生产者提交的顺序不能乱
+						if (running.incrementAndGet() != 1 || lastSeq[producer] + 1 != seq) {
+							error[0] = true;
+						}
+						lastSeq[producer] = seq;
+						counter.incrementAndGet();
+						running.decrementAndGet();
+						latch.countDown();
+					}), null, 0, null));
+				}
+			});
+		}
+
+		assertTrue(latch.await(1, TimeUnit.MINUTES));
+		assertEquals(PRODUCER_NUM * TASK_NUM, counter.get());
+		assertTrue(!error[0]);
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		TaskQueue queue = new TaskQueue(POOL);
+		CountDownLatch blocking = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(1);
+		StringBuilder result = new StringBuilder();
+
+		// 第一个任务卡住队列，后面的任务都在排队
+		queue.submit(new AsyncTask(null, queue, new TestCommand(() -> {
+			try {
+				blocking.await();
+			} catch (InterruptedException e) {}
+		}), null, 0, null));
+		queue.submit(new AsyncTask(null, queue, new TestHandlerCommand(() -> result.append("A")), null, 0, null));
+		queue.submit(new AsyncTask(null, queue, new TestHandlerCommand(() -> result.append("B")), null, 0, null));
+		queue.submit(new AsyncTask(null, queue, new TestCommand(() -> finish.countDown()), null, 0, null));
+		assertEquals(3, queue.size());
+
+		// 取消最早的同一处理方法的任务
+		assertTrue(queue.cancelSameHandler(new AsyncTask(null, queue, new TestHandlerCommand(() -> {}), null, 0, null)));
+		assertEquals(2, queue.size());
+
+		blocking.countDown();
+		assertTrue(finish.await(1, TimeUnit.SECONDS));
+		assertEquals("B", result.toString());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testListenerException() throws Exception {
+		TaskQueue queue = new TaskQueue(POOL, 64, 0);
+		CountDownLatch finish = new CountDownLatch(1);
+		NetworkListener listener = new AbstractNetworkListener() {
+			@Override
+			public void channelActive(Session session) {}
+
+			@Override
+			public void channelInactive(Session session) {}
+
+			@Override
+			public void handleException(Session session, int reqId, Throwable e) {
+				throw new IllegalStateException("listener failed");
+			}
+		};
+
+		// 异常处理的逻辑又抛出了异常，后面的任务还要能执行
+		queue.submit(new AsyncTask(listener, queue, new TestCommand(() -> {
+			throw new IllegalArgumentException("command failed");
+		}), null, 0, null));
+		queue.submit(new AsyncTask(null, queue, new TestCommand(() -> finish.countDown()), null, 0, null));
+		assertTrue(finish.await(1, TimeUnit.SECONDS));
+
+		// 队列空闲之后再提交的任务也要能执行
+		CountDownLatch again = new CountDownLatch(1);
+		queue.submit(new AsyncTask(null, queue, new TestCommand(() -> again.countDown()), null, 0, null));
+		assertTrue(again.await(1, TimeUnit.SECONDS));
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testBenchmark() throws Exception {
+		System.out.println("synchronized LinkedList:\t" + run(true, 1) + " ms");
+		System.out.println("lock-free MPSC:\t" + run(false, 1) + " ms");
+		System.out.println("lock-free MPSC drain 64:\t" + run(false, 64) + " ms");
+	}
+
+	private static float run(boolean legacy, int drainMaxTasks) throws Exception {
+		CountDownLatch latch = new CountDownLatch(PRODUCER_NUM * TASK_NUM);
+		TaskQueue queue = new TaskQueue(POOL, drainMaxTasks, 0);
+		LegacyTaskQueue legacyQueue = new LegacyTaskQueue(POOL);
+		long start = System.nanoTime();
+		for (int p = 0; p < PRODUCER_NUM; p++) {
+			PRODUCERS.execute(() -> {
+				for (int i = 0; i < TASK_NUM; i++) {
+					if (legacy) {
+						legacyQueue.submit(() -> {
+							latch.countDown();
+							legacyQueue.complete();
+						});
+					} else {
+						queue.submit(new AsyncTask(null, queue, new TestCommand(() -> latch.countDown()), null, 0, null));
+					}
+				}
+			});
+		}
+		latch.await(1, TimeUnit.MINUTES);
+		return (System.nanoTime() - start) / 100_0000F;
+	}
+
+	private static class TestCommand implements ThreadCommand {
+		private final Runnable runnable;
+
+		private TestCommand(Runnable runnable) {
+			this.runnable = runnable;
+		}
+
+		@Override
+		public Object exec() {
+			runnable.run();
+			return null;
+		}
+
+		@Override
+		public String code() {
+			return "test";
+		}
+
+		@Override
+		public boolean isPrintLog() {
+			return false;
+		}
+	}
+
+	/**
+	 * 同一个处理方法的指令.
+	 */
+	private static class TestHandlerCommand extends AbstractThreadCommand {
+		private final Runnable runnable;
+
+		private TestHandlerCommand(Runnable runnable) {
+			super(null, null);
+			this.runnable = runnable;
+		}
+
+		@Override
+		public Object exec() {
+			runnable.run();
+			return null;
+		}
+
+		@Override
+		public boolean isPrintLog() {
+			return false;
+		}
+
+		@Override
+		public void recordLatency(long delay, long exec) {}
+	}
+
+	/**
+	 * 原来synchronized+LinkedList的实现，用于对比.
+	 */
+	private static class LegacyTaskQueue {
+		private final ExecutorService threadPool;
+		private final LinkedList<Runnable> queue = new LinkedList<>();
+
+		private LegacyTaskQueue(ExecutorService threadPool) {
+			this.threadPool = threadPool;
+		}
+
+		public void submit(Runnable task) {
+			synchronized (this) {
+				queue.add(task);
+				if (queue.size() == 1) {
+					threadPool.execute(task);
+				}
+			}
+		}
+
+		public void complete() {
+			synchronized (this) {
+				queue.removeFirst();
+				if (!queue.isEmpty()) {
+					this.threadPool.submit(queue.getFirst());
+				}
+			}
+		}
+	}
+}
\ No newline at end of file
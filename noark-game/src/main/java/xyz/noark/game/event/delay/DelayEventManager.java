@@ -84,7 +84,12 @@ public class DelayEventManager implements EventManager {
 				}
 				// 有一些特别的情况需要同步执行.
 				else {
-					handler.invoke(event);
+					long startExecuteTime = System.nanoTime();
+					try {
+						handler.invoke(event);
+					} finally {
+						handler.recordExec(System.nanoTime() - startExecuteTime);
+					}
 				}
 			} catch (Exception e) {
 				logger.warn("handle event exception. {}", e);
@@ -15,7 +15,10 @@ package xyz.noark.game.monitor.impl;
 
 import java.util.concurrent.TimeUnit;
 
+import xyz.noark.core.ioc.manager.EventMethodManager;
 import xyz.noark.core.ioc.manager.PacketMethodManager;
+import xyz.noark.core.ioc.manager.ScheduledMethodManager;
+import xyz.noark.core.thread.ModuleStatisticsManager;
 import xyz.noark.game.monitor.AbstractMonitorService;
 
 /**
@@ -46,5 +49,9 @@ public class PacketMonitorService extends AbstractMonitorService {
 	@Override
 	protected void exe() throws Exception {
 		PacketMethodManager.getInstance().outputStatInfo();
+		PacketMethodManager.getInstance().outputLatencyInfo();
+		EventMethodManager.getInstance().outputLatencyInfo();
+		ScheduledMethodManager.getInstance().outputLatencyInfo();
+		ModuleStatisticsManager.getInstance().outputStatInfo();
 	}
 }
\ No newline at end of file
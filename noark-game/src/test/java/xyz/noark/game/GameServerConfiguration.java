@@ -48,7 +48,7 @@ public class GameServerConfiguration {
 		dataSource.setDriverClassName("com.mysql.jdbc.Driver");
 		dataSource.setUsername(mysqlUser);
 		dataSource.setPassword(mysqlPassword);
-		dataSource.setUrl(String.format("jdbc:mysql://%s:%d/%s?autoReconnect=true&useUnicode=true&characterEncoding=UTF-8&useSSL=false", mysqlIp, mysqlPort, mysqlDB));
+		dataSource.setUrl(String.format("jdbc:mysql://%s:%d/%s?autoReconnect=true&useUnicode=true&characterEncoding=UTF-8&useSSL=false&rewriteBatchedStatements=true", mysqlIp, mysqlPort, mysqlDB));
 		dataSource.setInitialSize(4);
 		dataSource.setMinIdle(4);
 		dataSource.setMaxActive(8);
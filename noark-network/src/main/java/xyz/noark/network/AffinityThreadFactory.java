@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.lang.reflect.Method;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * 绑定CPU的线程工厂.
+ * <p>
+ * EventLoop线程启动时独占一个CPU核心，减少线程在核心间迁移带来的缓存失效.<br>
+ * Java本身不能设置线程亲和性，这里通过反射使用OpenHFT的Java-Thread-Affinity，没有引入时就是普通的线程工厂.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class AffinityThreadFactory extends DefaultThreadFactory {
+	private static final Method ACQUIRE_LOCK;
+	private static final Method RELEASE;
+
+	static {
+		Method acquireLock = null, release = null;
+		try {
+			Class<?> klass = Class.forName("net.openhft.affinity.AffinityLock");
+			acquireLock = klass.getMethod("acquireLock");
+			release = klass.getMethod("release");
+		} catch (ReflectiveOperationException | LinkageError e) {
+			acquireLock = null;
+			release = null;
+		}
+		ACQUIRE_LOCK = acquireLock;
+		RELEASE = release;
+	}
+
+	public AffinityThreadFactory(String poolName) {
+		super(poolName);
+	}
+
+	/**
+	 * 判定是否支持绑定CPU.
+	 * 
+	 * @return 引入了Java-Thread-Affinity时返回true
+	 */
+	public static boolean isSupported() {
+		return ACQUIRE_LOCK != null;
+	}
+
+	@Override
+	protected Thread newThread(Runnable r, String name) {
+		if (!isSupported()) {
+			return super.newThread(r, name);
+		}
+
+		return super.newThread(() -> {
+			Object lock = acquireLock();
+			try {
+				r.run();
+			} finally {
+				release(lock);
+			}
+		}, name);
+	}
+
+	private static Object acquireLock() {
+		try {
+			Object lock = ACQUIRE_LOCK.invoke(null);
+			logger.debug("线程绑定CPU成功. thread={}, lock={}", Thread.currentThread().getName(), lock);
+			return lock;
+		} catch (ReflectiveOperationException e) {
+			logger.warn("线程绑定CPU失败. thread={}", Thread.currentThread().getName(), e);
+			return null;
+		}
+	}
+
+	private static void release(Object lock) {
+		if (lock != null) {
+			try {
+				RELEASE.invoke(lock);
+			} catch (ReflectiveOperationException e) {
+				logger.warn("线程释放CPU失败. thread={}", Thread.currentThread().getName(), e);
+			}
+		}
+	}
+}
\ No newline at end of file
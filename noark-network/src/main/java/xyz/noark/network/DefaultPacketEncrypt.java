@@ -15,15 +15,18 @@ package xyz.noark.network;
 
 import java.util.UUID;
 
+import io.netty.buffer.ByteBuf;
 import xyz.noark.core.lang.ByteArray;
 import xyz.noark.core.network.PacketEncrypt;
 import xyz.noark.core.util.CharsetUtils;
 import xyz.noark.core.util.StringUtils;
+import xyz.noark.network.codec.ByteBufWrapper;
 
 /**
  * Noark提供的一种加密方式.
  * <p>
- * 利用一组数字对协议进行循环异或
+ * 利用一组数字对协议进行循环异或<br>
+ * 密钥与公钥先合成一个按8字节一组的密钥流，解密时一次异或一个long，不足8字节的尾巴再逐字节处理.
  *
  * @since 3.1
  * @author 小流氓(176543888@qq.com)
@@ -35,12 +38,38 @@ public class DefaultPacketEncrypt implements PacketEncrypt {
 	private final byte[] publicKey;
 	/** 是否使用加密方案 */
 	private final boolean encrypt;
+	/** 密钥与公钥异或后的循环密钥流，小端序每8字节一组 */
+	private final long[] keyStream;
 
 	public DefaultPacketEncrypt(boolean encrypt, byte[] secretKey) {
 		this.encrypt = encrypt;
 		this.secretKey = secretKey;
 		// 随机生成一个公钥
 		this.publicKey = StringUtils.utf8Bytes(encrypt ? UUID.randomUUID().toString() : StringUtils.EMPTY);
+		this.keyStream = encrypt ? buildKeyStream(secretKey, publicKey) : null;
+	}
+
+	/**
+	 * 两组密钥长度与8的最小公倍数就是密钥流的循环周期，按周期预先算好.
+	 */
+	private static long[] buildKeyStream(byte[] secretKey, byte[] publicKey) {
+		final int length = lcm(lcm(secretKey.length, publicKey.length), Long.BYTES);
+		final long[] stream = new long[length / Long.BYTES];
+		for (int i = 0; i < length; i++) {
+			long value = (secretKey[i % secretKey.length] ^ publicKey[i % publicKey.length]) & 0xFFL;
+			stream[i >>> 3] |= value << ((i & 7) << 3);
+		}
+		return stream;
+	}
+
+	private static int lcm(int a, int b) {
+		int x = a, y = b;
+		while (y != 0) {
+			int t = x % y;
+			x = y;
+			y = t;
+		}
+		return a / x * b;
 	}
 
 	@Override
@@ -55,15 +84,23 @@ public class DefaultPacketEncrypt implements PacketEncrypt {
 
 	@Override
 	public void decode(ByteArray data, int incode) {
-		int publicKeyIndex = 0;
-		int secretKeyIndex = 0;
+		final ByteBuf buf = ByteBufWrapper.unwrap(data);
+		final int start = buf.readerIndex();
+		final int len = buf.readableBytes();
+		// 自增校验位的那个字节复制到8个字节上
+		final long mask = ((incode << 2) & 0xFFL) * 0x0101010101010101L;
+
 		// XOR
-		for (int i = 0, len = data.length(); i < len; i++) {
-			byte value = data.getByte(i);
-			value ^= secretKey[secretKeyIndex++ % secretKey.length];
-			value ^= publicKey[publicKeyIndex++ % publicKey.length];
-			value ^= incode << 2;
-			data.setByte(i, value);
+		int i = 0, k = 0;
+		for (final int end = len & ~7; i < end; i += Long.BYTES) {
+			buf.setLongLE(start + i, buf.getLongLE(start + i) ^ keyStream[k] ^ mask);
+			if (++k == keyStream.length) {
+				k = 0;
+			}
+		}
+		for (; i < len; i++) {
+			long key = (keyStream[k] ^ mask) >>> ((i & 7) << 3);
+			buf.setByte(start + i, buf.getByte(start + i) ^ (int) key);
 		}
 		// 备选方案
 		// 首尾交换 [0]=[len-1]
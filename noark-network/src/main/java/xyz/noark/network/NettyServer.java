@@ -19,19 +19,21 @@ import java.net.BindException;
 import java.util.concurrent.TimeUnit;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.Epoll;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollServerSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.Future;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import xyz.noark.core.annotation.Autowired;
@@ -51,9 +53,9 @@ import xyz.noark.network.log.NettyLoggerFactory;
 public class NettyServer implements TcpServer {
 	private final ServerBootstrap bootstrap;
 	/** Boss线程就用一个线程 */
-	private final EventLoopGroup bossGroup;
+	private EventLoopGroup bossGroup;
 	/** Work线程:CPU<=4的话CPU*2,CPU<=8的话CPU+4, 其他直接使用12 */
-	private final EventLoopGroup workGroup;
+	private EventLoopGroup workGroup;
 
 	/** Netty监听端口 */
 	@Value(NetworkConstant.PORT)
@@ -71,6 +73,38 @@ public class NettyServer implements TcpServer {
 	@Value(NetworkConstant.LOG_ACTIVE)
 	protected boolean logActive = false;
 
+	/** 是否关闭Nagle算法 */
+	@Value(NetworkConstant.TCP_NODELAY)
+	protected boolean tcpNodelay = true;
+	/** Socket接收缓冲区大小，0表示使用系统默认值 */
+	@Value(NetworkConstant.SO_RCVBUF)
+	protected int soRcvbuf = 0;
+	/** Socket发送缓冲区大小，0表示使用系统默认值 */
+	@Value(NetworkConstant.SO_SNDBUF)
+	protected int soSndbuf = 0;
+	/** 写缓冲区低水位 */
+	@Value(NetworkConstant.WRITE_BUFFER_LOW)
+	protected int writeBufferLow = 32 * 1024;
+	/** 写缓冲区高水位 */
+	@Value(NetworkConstant.WRITE_BUFFER_HIGH)
+	protected int writeBufferHigh = 64 * 1024;
+	/** 每次读取时自适应分配的最大缓冲区 */
+	@Value(NetworkConstant.READ_BUFFER_MAX)
+	protected int readBufferMax = 65536;
+	/** ByteBuf分配器 */
+	@Value(NetworkConstant.ALLOCATOR)
+	protected String allocator = "pooled";
+
+	/** 传输层实现 */
+	@Value(NetworkConstant.TRANSPORT)
+	protected String transport = "auto";
+	/** epoll是否使用边缘触发 */
+	@Value(NetworkConstant.EPOLL_EDGE_TRIGGERED)
+	protected boolean epollEdgeTriggered = true;
+	/** EventLoop线程是否绑定CPU */
+	@Value(NetworkConstant.AFFINITY)
+	protected boolean affinity = false;
+
 	@Autowired
 	protected InitializeHandlerManager initializeHandlerManager;
 	@Autowired
@@ -79,17 +113,6 @@ public class NettyServer implements TcpServer {
 	public NettyServer() {
 		this.bootstrap = new ServerBootstrap();
 
-		final int nThreads = workthreads == 0 ? NetworkConstant.DEFAULT_EVENT_LOOP_THREADS : workthreads;
-		if (Epoll.isAvailable()) {
-			this.bossGroup = new EpollEventLoopGroup(1);
-			this.workGroup = new EpollEventLoopGroup(nThreads);
-			bootstrap.group(bossGroup, workGroup).channel(EpollServerSocketChannel.class);
-		} else {
-			this.bossGroup = new NioEventLoopGroup(1);
-			this.workGroup = new NioEventLoopGroup(nThreads);
-			bootstrap.group(bossGroup, workGroup).channel(NioServerSocketChannel.class);
-		}
-
 		// http://www.jianshu.com/p/0bff7c020af2
 		bootstrap.option(ChannelOption.SO_REUSEADDR, true);
 		// Socket参数，服务端接受连接的队列长度，如果队列已满，客户端连接将被拒绝。默认值，Windows为200，其他为128。
@@ -126,9 +149,51 @@ public class NettyServer implements TcpServer {
 		pipeline.addLast(new InitializeDecoder(initializeHandlerManager));
 	}
 
+	/**
+	 * 选择传输层实现并创建线程组.
+	 * <p>
+	 * 线程数等配置是在构造之后才注入的，所以放在启动时再创建.
+	 */
+	protected void initEventLoopGroup() {
+		final NettyTransport nettyTransport = NettyTransport.select(transport);
+		final int nThreads = workthreads <= 0 ? NetworkConstant.DEFAULT_EVENT_LOOP_THREADS : workthreads;
+		logger.info("netty transport={}, workthreads={}, affinity={}", nettyTransport, nThreads, affinity);
+
+		if (affinity && !AffinityThreadFactory.isSupported()) {
+			logger.warn("没有引入net.openhft:affinity，EventLoop线程不会绑定CPU.");
+		}
+		this.bossGroup = nettyTransport.newEventLoopGroup(1, new DefaultThreadFactory("netty-boss"));
+		this.workGroup = nettyTransport.newEventLoopGroup(nThreads, affinity ? new AffinityThreadFactory("netty-work") : new DefaultThreadFactory("netty-work"));
+		bootstrap.group(bossGroup, workGroup).channel(nettyTransport.serverChannelClass());
+
+		if (nettyTransport == NettyTransport.EPOLL) {
+			bootstrap.childOption(EpollChannelOption.EPOLL_MODE, epollEdgeTriggered ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED);
+		}
+	}
+
+	/**
+	 * 配置链接参数.
+	 * <p>
+	 * 配置是在构造之后才注入的，所以放在启动时再设置.
+	 */
+	protected void configChildOptions() {
+		bootstrap.childOption(ChannelOption.TCP_NODELAY, tcpNodelay);
+		if (soRcvbuf > 0) {
+			bootstrap.childOption(ChannelOption.SO_RCVBUF, soRcvbuf);
+		}
+		if (soSndbuf > 0) {
+			bootstrap.childOption(ChannelOption.SO_SNDBUF, soSndbuf);
+		}
+		bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(writeBufferLow, writeBufferHigh));
+		bootstrap.childOption(ChannelOption.RCVBUF_ALLOCATOR, new AdaptiveRecvByteBufAllocator(64, Math.min(1024, readBufferMax), readBufferMax));
+		bootstrap.childOption(ChannelOption.ALLOCATOR, "unpooled".equalsIgnoreCase(allocator) ? UnpooledByteBufAllocator.DEFAULT : PooledByteBufAllocator.DEFAULT);
+	}
+
 	@Override
 	public void startup() {
 		logger.info("game tcp server start on {}", port);
+		this.initEventLoopGroup();
+		this.configChildOptions();
 
 		// 如果封包日志打开的话，需要桥接进Noark日志实现
 		if (logActive) {
@@ -149,6 +214,11 @@ public class NettyServer implements TcpServer {
 
 	@Override
 	public void shutdown() {
+		// 还没启动过
+		if (bossGroup == null) {
+			return;
+		}
+
 		Future<?> boosFuture = bossGroup.shutdownGracefully();
 		Future<?> workFuture = workGroup.shutdownGracefully();
 		try {
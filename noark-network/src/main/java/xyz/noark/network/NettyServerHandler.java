@@ -63,6 +63,17 @@ public class NettyServerHandler extends ChannelInboundHandlerAdapter {
 		}
 	}
 
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		if (ctx.channel().isWritable()) {
+			Session session = SessionManager.getSession(ctx.channel().id());
+			if (session instanceof SocketSession) {
+				((SocketSession) session).channelWritable();
+			}
+		}
+		super.channelWritabilityChanged(ctx);
+	}
+
 	@Override
 	public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
 		super.userEventTriggered(ctx, evt);
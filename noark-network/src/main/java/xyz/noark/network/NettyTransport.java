@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.util.concurrent.ThreadFactory;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.kqueue.KQueue;
+import io.netty.channel.kqueue.KQueueEventLoopGroup;
+import io.netty.channel.kqueue.KQueueServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import xyz.noark.core.exception.ServerBootstrapException;
+
+/**
+ * Netty的传输层实现.
+ * <p>
+ * 默认自动选择当前系统可用的最优实现：io_uring &gt; epoll &gt; kqueue &gt; nio.<br>
+ * io_uring在独立的孵化包里，只有引入了netty-incubator-transport-io_uring才可用，这里通过反射加载，不强制依赖.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public enum NettyTransport {
+	/**
+	 * JDK自带的NIO，所有系统都可用.
+	 */
+	NIO {
+		@Override
+		public boolean isAvailable() {
+			return true;
+		}
+
+		@Override
+		public EventLoopGroup newEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+			return new NioEventLoopGroup(nThreads, threadFactory);
+		}
+
+		@Override
+		public Class<? extends ServerChannel> serverChannelClass() {
+			return NioServerSocketChannel.class;
+		}
+	},
+
+	/**
+	 * Linux下的epoll.
+	 */
+	EPOLL {
+		@Override
+		public boolean isAvailable() {
+			return Epoll.isAvailable();
+		}
+
+		@Override
+		public EventLoopGroup newEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+			return new EpollEventLoopGroup(nThreads, threadFactory);
+		}
+
+		@Override
+		public Class<? extends ServerChannel> serverChannelClass() {
+			return EpollServerSocketChannel.class;
+		}
+	},
+
+	/**
+	 * MacOS与BSD下的kqueue.
+	 */
+	KQUEUE {
+		@Override
+		public boolean isAvailable() {
+			return KQueue.isAvailable();
+		}
+
+		@Override
+		public EventLoopGroup newEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+			return new KQueueEventLoopGroup(nThreads, threadFactory);
+		}
+
+		@Override
+		public Class<? extends ServerChannel> serverChannelClass() {
+			return KQueueServerSocketChannel.class;
+		}
+	},
+
+	/**
+	 * Linux 5.1以上内核的io_uring.
+	 */
+	IO_URING {
+		@Override
+		public boolean isAvailable() {
+			return IoUring.AVAILABLE;
+		}
+
+		@Override
+		public EventLoopGroup newEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+			try {
+				return (EventLoopGroup) IoUring.eventLoopGroupClass.getConstructor(int.class, ThreadFactory.class).newInstance(nThreads, threadFactory);
+			} catch (ReflectiveOperationException e) {
+				throw new ServerBootstrapException("创建io_uring线程组失败", e);
+			}
+		}
+
+		@Override
+		public Class<? extends ServerChannel> serverChannelClass() {
+			return IoUring.serverChannelClass;
+		}
+	};
+
+	/**
+	 * 判定当前系统是否可用.
+	 * 
+	 * @return 如果可用返回true
+	 */
+	public abstract boolean isAvailable();
+
+	/**
+	 * 创建EventLoop线程组.
+	 * 
+	 * @param nThreads 线程数
+	 * @param threadFactory 线程工厂
+	 * @return EventLoop线程组
+	 */
+	public abstract EventLoopGroup newEventLoopGroup(int nThreads, ThreadFactory threadFactory);
+
+	/**
+	 * 获取服务端Channel的实现类.
+	 * 
+	 * @return 服务端Channel的实现类
+	 */
+	public abstract Class<? extends ServerChannel> serverChannelClass();
+
+	/**
+	 * 根据配置选择传输层实现，忽略大小写.
+	 * <p>
+	 * 配置为auto时按优先级选择当前系统可用的，配置的实现不可用时也自动选择一个可用的.
+	 * 
+	 * @param name 配置的名称：auto，nio，epoll，kqueue，io_uring
+	 * @return 传输层实现
+	 */
+	public static NettyTransport select(String name) {
+		if (!"auto".equalsIgnoreCase(name)) {
+			for (NettyTransport transport : values()) {
+				if (transport.name().equalsIgnoreCase(name)) {
+					if (transport.isAvailable()) {
+						return transport;
+					}
+					logger.warn("当前系统不支持{}，自动选择一个可用的传输层实现.", name);
+					break;
+				}
+			}
+		}
+
+		for (NettyTransport transport : new NettyTransport[] { IO_URING, EPOLL, KQUEUE }) {
+			if (transport.isAvailable()) {
+				return transport;
+			}
+		}
+		return NIO;
+	}
+
+	/**
+	 * io_uring的实现类，没有引入孵化包时不可用.
+	 */
+	private static class IoUring {
+		private static final String PACKAGE = "io.netty.incubator.channel.uring.";
+		private static final boolean AVAILABLE;
+		private static Class<?> eventLoopGroupClass;
+		private static Class<? extends ServerChannel> serverChannelClass;
+
+		static {
+			boolean available = false;
+			try {
+				available = (Boolean) Class.forName(PACKAGE + "IOUring").getMethod("isAvailable").invoke(null);
+				eventLoopGroupClass = Class.forName(PACKAGE + "IOUringEventLoopGroup");
+				serverChannelClass = Class.forName(PACKAGE + "IOUringServerSocketChannel").asSubclass(ServerChannel.class);
+			} catch (ReflectiveOperationException | LinkageError e) {
+				available = false;
+			}
+			AVAILABLE = available;
+		}
+	}
+}
\ No newline at end of file
@@ -37,6 +37,12 @@ public class NetworkConstant {
 	public static final String HEARTBEAT = "network.heartbeat";
 	/** Netty的Work线程数 */
 	public static final String WORK_THREADS = "network.workthreads";
+	/** 传输层实现：auto，nio，epoll，kqueue，io_uring，默认：auto，自动选择当前系统可用的最优实现 */
+	public static final String TRANSPORT = "network.transport";
+	/** epoll是否使用边缘触发，默认：true */
+	public static final String EPOLL_EDGE_TRIGGERED = "network.epoll.edge";
+	/** EventLoop线程是否绑定CPU，需要引入net.openhft:affinity，默认：false */
+	public static final String AFFINITY = "network.affinity";
 
 	/** 是否为WebSocket */
 	public static final String WEBSOCKET_PATH = "network.websocket.path";
@@ -44,11 +50,45 @@ public class NetworkConstant {
 	/** 网络封包日志激活 */
 	public static final String LOG_ACTIVE = "network.log.active";
 
+	/** 合并刷新，一个业务任务里发出的封包在任务结束时统一刷新，默认false不开启 */
+	public static final String FLUSH_CONSOLIDATION = "network.flush.consolidation";
+	/** 合并刷新时，一个链接最多积攒多少个封包就要提前刷新，默认：64 */
+	public static final String FLUSH_MAX_PENDING = "network.flush.max.pending";
+
+	/** 是否关闭Nagle算法，默认：true */
+	public static final String TCP_NODELAY = "network.tcp.nodelay";
+	/** Socket接收缓冲区大小，默认值为0，则使用系统默认值 */
+	public static final String SO_RCVBUF = "network.so.rcvbuf";
+	/** Socket发送缓冲区大小，默认值为0，则使用系统默认值 */
+	public static final String SO_SNDBUF = "network.so.sndbuf";
+	/** 写缓冲区低水位，积压的数据降到这个值以下时恢复可写，默认：32K */
+	public static final String WRITE_BUFFER_LOW = "network.write.buffer.low";
+	/** 写缓冲区高水位，积压的数据超过这个值时不可写，默认：64K */
+	public static final String WRITE_BUFFER_HIGH = "network.write.buffer.high";
+	/** 每次读取时自适应分配的最大缓冲区，默认：65536 */
+	public static final String READ_BUFFER_MAX = "network.read.buffer.max";
+	/** ByteBuf分配器：pooled，unpooled，默认：pooled */
+	public static final String ALLOCATOR = "network.allocator";
+
+	/** 慢消费者缓冲区最多积压的字节数，默认值为0，则不可写时直接丢弃封包 */
+	public static final String SLOW_CONSUMER_BUFFER = "network.slow.consumer.buffer";
+	/** 慢消费者持续不可写多少秒就断开链接，默认：30秒，0表示不断开 */
+	public static final String SLOW_CONSUMER_TIMEOUT = "network.slow.consumer.timeout";
+	/** 慢消费者缓冲区里可以合并的协议编号，只保留最新的一个，如：1001,1002 */
+	public static final String SLOW_CONSUMER_COALESCE = "network.slow.consumer.coalesce";
+
+	/** 封包压缩阈值，协议内容达到这个长度才压缩，只对通过Session申请开启压缩的链接生效，默认值为0，则不压缩 */
+	public static final String COMPRESS_THRESHOLD = "network.compress.threshold";
+	/** 封包压缩级别，默认：1，即最快的压缩速度 */
+	public static final String COMPRESS_LEVEL = "network.compress.level";
+
 	// 接收HTTP服务相关配置--------------------------------------
 	/** 向内部提供HTTP服务的端口 */
 	public static final String HTTP_PORT = "network.http.port";
 	/** 向内部提供HTTP服务的密钥 */
 	public static final String HTTP_SECRET_KEY = "network.http.secret.key";
+	/** HTTP长连接空闲多少秒后关闭，默认：60秒，0表示不使用长连接 */
+	public static final String HTTP_KEEPALIVE_TIMEOUT = "network.http.keepalive.timeout";
 
 	// 接收流量统计相关配置--------------------------------------
 	/** 接收封包统计预警功能是否激活，默认：不启用 */
@@ -60,6 +100,22 @@ public class NetworkConstant {
 	/** 统计周期内可以出现多少次预警，默认：3次 */
 	public static final String RECEIVE_COUNT = "network.stat.receive.count";
 
+	// 接收封包限流相关配置--------------------------------------
+	/** 封包限流功能是否激活，默认：不启用 */
+	public static final String LIMIT_ACTIVE = "network.limit.active";
+	/** 每个链接每秒最多接收的封包数，默认：50，0表示不限制 */
+	public static final String LIMIT_SESSION_PACKETS = "network.limit.session.packets";
+	/** 每个链接每秒最多接收的字节数，默认：65535，0表示不限制 */
+	public static final String LIMIT_SESSION_BYTES = "network.limit.session.bytes";
+	/** 每个IP每秒最多接收的封包数，默认：0，不限制 */
+	public static final String LIMIT_IP_PACKETS = "network.limit.ip.packets";
+	/** 每个IP每秒最多接收的字节数，默认：0，不限制 */
+	public static final String LIMIT_IP_BYTES = "network.limit.ip.bytes";
+	/** 按协议分类限制每个链接每秒的封包数，格式：1001-1099:10,2001:5，默认：不限制 */
+	public static final String LIMIT_OPCODE_RATES = "network.limit.opcode.rates";
+	/** 超出速率时的处理方式：drop，delay，disconnect，默认：drop */
+	public static final String LIMIT_ACTION = "network.limit.action";
+
 	/**
 	 * 停止服务时存储数据最大等待时间，单位：分钟
 	 */
@@ -0,0 +1,289 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.channel.Channel;
+import io.netty.util.ReferenceCountUtil;
+import xyz.noark.core.lang.IntList;
+import xyz.noark.core.network.NetworkProtocol;
+import xyz.noark.core.network.PacketCodecHolder;
+import xyz.noark.network.codec.AbstractPacketCodec;
+
+/**
+ * 慢消费者的出站缓冲区.
+ * <p>
+ * 链接不可写时封包不再直接丢弃，而是先放入这个有上限的缓冲区，等链接恢复可写后按顺序写出.<br>
+ * 可合并的协议在缓冲区里只保留最新的一个，超出上限的封包才丢弃并计数，<br>
+ * 持续不可写超过期限的链接就直接断开，不让一个慢客户端一直占着服务器的内存.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class SlowConsumerBuffer {
+	/** 所有链接累计丢弃的封包数量 */
+	private static final LongAdder TOTAL_DROPPED_PACKETS = new LongAdder();
+	/** 所有链接累计丢弃的字节数 */
+	private static final LongAdder TOTAL_DROPPED_BYTES = new LongAdder();
+
+	private final Channel channel;
+	/** 缓冲区最多积压的字节数 */
+	private final int maxBytes;
+	/** 持续不可写多久就断开链接，0表示不断开 */
+	private final long timeoutNanos;
+	/** 可以合并的协议编号 */
+	private final IntList coalesceOpcodes;
+
+	private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+	/** 积压的封包数量，用于不加锁的快速判定 */
+	private volatile int pending = 0;
+	/** 积压的字节数 */
+	private int pendingBytes = 0;
+	/** 这一轮开始积压的时间，0表示没有积压 */
+	private long blockedSince = 0;
+	private long droppedPackets = 0;
+	private long droppedBytes = 0;
+
+	/**
+	 * 创建一个慢消费者的出站缓冲区.
+	 * 
+	 * @param channel 链接
+	 * @param maxBytes 最多积压的字节数
+	 * @param timeoutSeconds 持续不可写多少秒就断开链接，0表示不断开
+	 * @param coalesceOpcodes 可以合并的协议编号
+	 */
+	public SlowConsumerBuffer(Channel channel, int maxBytes, int timeoutSeconds, IntList coalesceOpcodes) {
+		this.channel = channel;
+		this.maxBytes = maxBytes;
+		this.timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+		this.coalesceOpcodes = coalesceOpcodes;
+		channel.closeFuture().addListener(future -> this.clear());
+	}
+
+	/**
+	 * 放入一个出站消息.
+	 * <p>
+	 * 链接可写并且没有积压时由调用方直接写出，否则放入缓冲区，满了就丢弃.
+	 * 
+	 * @param msg 出站消息
+	 * @return 如果可以直接写出返回true
+	 */
+	public boolean offer(Object msg) {
+		if (pending == 0 && channel.isWritable()) {
+			return true;
+		}
+
+		final int size = ((AbstractPacketCodec) PacketCodecHolder.getPacketCodec()).outboundSize(msg);
+		final int opcode = msg instanceof NetworkProtocol ? ((NetworkProtocol) msg).getOpcode() : -1;
+		synchronized (this) {
+			if (queue.isEmpty() && channel.isWritable()) {
+				return true;
+			}
+
+			// 同一个可合并的协议，只保留最新的
+			if (opcode >= 0 && coalesceOpcodes.contains(opcode)) {
+				for (Entry entry : queue) {
+					if (entry.opcode == opcode) {
+						ReferenceCountUtil.release(entry.msg);
+						pendingBytes += size - entry.size;
+						entry.msg = msg;
+						entry.size = size;
+						return false;
+					}
+				}
+			}
+
+			if (pendingBytes + size > maxBytes) {
+				this.drop(msg, size);
+				return false;
+			}
+
+			queue.add(new Entry(msg, size, opcode));
+			pendingBytes += size;
+			pending = queue.size();
+			if (blockedSince == 0) {
+				this.startBlocking();
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 群发的封包是所有链接共享的，不能放入缓冲区，链接积压时直接丢弃.
+	 * 
+	 * @param size 封包长度
+	 * @return 如果已丢弃返回true
+	 */
+	public boolean dropIfBlocked(int size) {
+		if (pending == 0 && channel.isWritable()) {
+			return false;
+		}
+		synchronized (this) {
+			this.drop(null, size);
+		}
+		return true;
+	}
+
+	private void startBlocking() {
+		final long since = System.nanoTime();
+		this.blockedSince = since;
+		logger.debug("channel is blocked, buffer outbound packets. channel={}", channel);
+
+		if (timeoutNanos > 0) {
+			channel.eventLoop().schedule(() -> this.checkDeadline(since), timeoutNanos, TimeUnit.NANOSECONDS);
+		}
+		// 放入时链接已恢复可写，说明恢复可写的事件已经错过了
+		if (channel.isWritable()) {
+			channel.eventLoop().execute(this::drain);
+		}
+	}
+
+	private void checkDeadline(long since) {
+		synchronized (this) {
+			if (blockedSince != since) {
+				return;
+			}
+		}
+		logger.warn("slow consumer blocked more than {}s, disconnect. channel={}, droppedPackets={}, droppedBytes={}", TimeUnit.NANOSECONDS.toSeconds(timeoutNanos), channel, droppedPackets, droppedBytes);
+		channel.close();
+	}
+
+	/**
+	 * 链接恢复可写时，在EventLoop线程里按顺序写出积压的封包.
+	 */
+	public void drain() {
+		boolean written = false;
+		while (true) {
+			final Object msg;
+			synchronized (this) {
+				if (queue.isEmpty()) {
+					this.blockedSince = 0;
+					break;
+				}
+				if (!channel.isWritable()) {
+					break;
+				}
+				Entry entry = queue.poll();
+				pendingBytes -= entry.size;
+				pending = queue.size();
+				msg = entry.msg;
+			}
+			channel.write(msg, channel.voidPromise());
+			written = true;
+		}
+		if (written) {
+			channel.flush();
+			// 有进展就重新计算期限，只有一直写不出去的才断开
+			synchronized (this) {
+				if (!queue.isEmpty()) {
+					this.startBlocking();
+				}
+			}
+		}
+	}
+
+	/** 链接关闭时，还没写出的封包都算丢弃 */
+	private synchronized void clear() {
+		Entry entry;
+		while ((entry = queue.poll()) != null) {
+			this.drop(entry.msg, entry.size);
+		}
+		pendingBytes = 0;
+		pending = 0;
+		blockedSince = 0;
+	}
+
+	private void drop(Object msg, int size) {
+		if (msg != null) {
+			ReferenceCountUtil.release(msg);
+		}
+		if (droppedPackets++ == 0) {
+			logger.warn("slow consumer buffer is full, drop packet. channel={}, maxBytes={}", channel, maxBytes);
+		}
+		droppedBytes += size;
+		TOTAL_DROPPED_PACKETS.increment();
+		TOTAL_DROPPED_BYTES.add(size);
+	}
+
+	/**
+	 * 获取当前积压的封包数量.
+	 * 
+	 * @return 当前积压的封包数量
+	 */
+	public int getPending() {
+		return pending;
+	}
+
+	/**
+	 * 获取当前积压的字节数.
+	 * 
+	 * @return 当前积压的字节数
+	 */
+	public synchronized int getPendingBytes() {
+		return pendingBytes;
+	}
+
+	/**
+	 * 获取这个链接累计丢弃的封包数量.
+	 * 
+	 * @return 这个链接累计丢弃的封包数量
+	 */
+	public synchronized long getDroppedPackets() {
+		return droppedPackets;
+	}
+
+	/**
+	 * 获取这个链接累计丢弃的字节数.
+	 * 
+	 * @return 这个链接累计丢弃的字节数
+	 */
+	public synchronized long getDroppedBytes() {
+		return droppedBytes;
+	}
+
+	/**
+	 * 获取所有链接累计丢弃的封包数量.
+	 * 
+	 * @return 所有链接累计丢弃的封包数量
+	 */
+	public static long getTotalDroppedPackets() {
+		return TOTAL_DROPPED_PACKETS.sum();
+	}
+
+	/**
+	 * 获取所有链接累计丢弃的字节数.
+	 * 
+	 * @return 所有链接累计丢弃的字节数
+	 */
+	public static long getTotalDroppedBytes() {
+		return TOTAL_DROPPED_BYTES.sum();
+	}
+
+	private static class Entry {
+		private Object msg;
+		private int size;
+		private final int opcode;
+
+		private Entry(Object msg, int size, int opcode) {
+			this.msg = msg;
+			this.size = size;
+			this.opcode = opcode;
+		}
+	}
+}
\ No newline at end of file
@@ -19,16 +19,22 @@ import java.io.Serializable;
 import java.net.InetSocketAddress;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import xyz.noark.core.lang.ByteArray;
+import xyz.noark.core.lang.IntList;
 import xyz.noark.core.network.AbstractSession;
+import xyz.noark.core.network.FlushBatch;
 import xyz.noark.core.network.NetworkProtocol;
 import xyz.noark.core.network.PacketCodecHolder;
 import xyz.noark.core.network.PacketEncrypt;
 import xyz.noark.core.network.SessionAttr;
 import xyz.noark.core.network.SessionAttrKey;
+import xyz.noark.network.codec.AbstractPacketCodec;
+import xyz.noark.network.codec.BroadcastPacket;
+import xyz.noark.network.codec.PacketCompressor;
 
 /**
  * 基于Netty的Channel实现的Session.
@@ -47,6 +53,13 @@ public class SocketSession extends AbstractSession implements IncodeSession {
 	/** 自增校验位 */
 	protected int incode = -1;
 
+	/** 合并刷新时最多积攒的封包数量，0表示不合并，每个封包都立即刷新 */
+	private int flushMaxPending = 0;
+	/** 已写入还未刷新的封包数量 */
+	private final AtomicInteger pendingWrites = new AtomicInteger();
+	/** 慢消费者缓冲区，没有开启时不可写的封包直接丢弃 */
+	private SlowConsumerBuffer slowConsumerBuffer;
+
 	public SocketSession(Channel channel, boolean encrypt, byte[] secretKey) {
 		super(channel.id(), ((InetSocketAddress) channel.remoteAddress()).getAddress().getHostAddress());
 		this.channel = channel;
@@ -101,43 +114,166 @@ public class SocketSession extends AbstractSession implements IncodeSession {
 
 	@Override
 	public void send(Integer opcode, Object protocol) {
-		this.send(buildPacket(opcode, protocol));
+		this.send(new NetworkProtocol(opcode, protocol));
 	}
 
 	@Override
 	public void send(ByteArray packet) {
+		if (packet instanceof BroadcastPacket && slowConsumerBuffer != null && slowConsumerBuffer.dropIfBlocked(packet.length())) {
+			return;
+		}
+		if (this.checkWritable()) {
+			this.writeAndFlush(packet);
+		}
+	}
+
+	@Override
+	public void send(NetworkProtocol networkProtocol) {
+		if (this.checkWritable()) {
+			this.writeAndFlush(networkProtocol);
+		}
+	}
+
+	private boolean checkWritable() {
 		// 链接已关闭了...
 		if (!channel.isActive()) {
 			logger.warn("send packet fail isActive=false. channel={}, playerId={}", channel, playerId);
-			return;
+			return false;
 		}
 
-		// 不可写，未发送的数据已达最高水位了...
-		if (!channel.isWritable()) {
+		// 不可写，未发送的数据已达最高水位了，开启了慢消费者缓冲区就交给缓冲区处理...
+		if (slowConsumerBuffer == null && !channel.isWritable()) {
 			logger.warn("send packet fail isWritable=false. channel={}, playerId={}", channel, playerId);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 发送封包逻辑.
+	 * 
+	 * @param packet 封包逻辑
+	 */
+	protected void writeAndFlush(ByteArray packet) {
+		// 群发的封包先收集起来，关闭时按EventLoop分组写出
+		if (packet instanceof BroadcastPacket) {
+			((BroadcastPacket) packet).write(channel, false);
+		} else {
+			this.write(packet);
+		}
+	}
+
+	/**
+	 * 发送协议逻辑.
+	 * <p>
+	 * 协议交给长度编码器直接编码进ByteBuf，不再先编码成字节数组.
+	 * 
+	 * @param networkProtocol 网络协议
+	 */
+	protected void writeAndFlush(NetworkProtocol networkProtocol) {
+		this.write(buildOutbound(networkProtocol));
+	}
+
+	/**
+	 * 写入一个出站消息.
+	 * <p>
+	 * 开启合并刷新并且当前线程有批次时只写不刷，由批次结束时统一刷新，积攒过多时提前刷新.
+	 * 
+	 * @param msg 出站消息
+	 */
+	protected void write(Object msg) {
+		// 链接积压时先放入慢消费者缓冲区
+		if (slowConsumerBuffer != null && !slowConsumerBuffer.offer(msg)) {
 			return;
 		}
 
-		this.writeAndFlush(packet);
+		if (flushMaxPending > 0 && FlushBatch.join(this)) {
+			channel.write(msg, channel.voidPromise());
+			if (pendingWrites.incrementAndGet() >= flushMaxPending) {
+				this.flush();
+			}
+		} else {
+			channel.writeAndFlush(msg, channel.voidPromise());
+		}
 	}
 
 	@Override
-	public void send(NetworkProtocol networkProtocol) {
-		this.send(PacketCodecHolder.getPacketCodec().encodePacket(networkProtocol));
+	public void flush() {
+		if (pendingWrites.getAndSet(0) > 0) {
+			channel.flush();
+		}
 	}
 
 	/**
-	 * 发送封包逻辑.
+	 * 开启封包压缩.
+	 * <p>
+	 * 链接默认不压缩，客户端明确申请支持压缩后（比如登录协议里带上标识）再调用，<br>
+	 * 之后达到压缩阈值的封包都会压缩，并在Opcode上标识{@link PacketCompressor#COMPRESS_FLAG}.
 	 * 
-	 * @param packet 封包逻辑
+	 * @return 如果服务器没有配置压缩阈值则返回false
 	 */
-	protected void writeAndFlush(ByteArray packet) {
-		channel.writeAndFlush(packet, channel.voidPromise());
+	public boolean enablePacketCompress() {
+		return PacketCompressor.enable(channel);
+	}
+
+	/**
+	 * 关闭封包压缩.
+	 */
+	public void disablePacketCompress() {
+		PacketCompressor.disable(channel);
+	}
+
+	/**
+	 * 开启合并刷新.
+	 * 
+	 * @param flushMaxPending 最多积攒多少个封包就要提前刷新，0表示不合并
+	 */
+	public void setFlushMaxPending(int flushMaxPending) {
+		this.flushMaxPending = flushMaxPending;
+	}
+
+	/**
+	 * 开启慢消费者缓冲区.
+	 * 
+	 * @param maxBytes 最多积压的字节数
+	 * @param timeoutSeconds 持续不可写多少秒就断开链接，0表示不断开
+	 * @param coalesceOpcodes 可以合并的协议编号
+	 */
+	public void enableSlowConsumerBuffer(int maxBytes, int timeoutSeconds, IntList coalesceOpcodes) {
+		this.slowConsumerBuffer = new SlowConsumerBuffer(channel, maxBytes, timeoutSeconds, coalesceOpcodes);
+	}
+
+	/**
+	 * 获取慢消费者缓冲区.
+	 * 
+	 * @return 慢消费者缓冲区，没有开启时返回null
+	 */
+	public SlowConsumerBuffer getSlowConsumerBuffer() {
+		return slowConsumerBuffer;
+	}
+
+	/**
+	 * 链接恢复可写时调用，写出慢消费者缓冲区里积压的封包.
+	 */
+	public void channelWritable() {
+		if (slowConsumerBuffer != null) {
+			slowConsumerBuffer.drain();
+		}
 	}
 
 	@Override
 	public void sendAndClose(Integer opcode, Object protocol) {
-		channel.writeAndFlush(buildPacket(opcode, protocol)).addListener(ChannelFutureListener.CLOSE);
+		channel.writeAndFlush(buildOutbound(new NetworkProtocol(opcode, protocol))).addListener(ChannelFutureListener.CLOSE);
+	}
+
+	/**
+	 * 构建交给长度编码器的出站消息.
+	 * 
+	 * @param networkProtocol 网络协议
+	 * @return 出站消息
+	 */
+	protected Object buildOutbound(NetworkProtocol networkProtocol) {
+		return ((AbstractPacketCodec) PacketCodecHolder.getPacketCodec()).encodeOutbound(networkProtocol);
 	}
 
 	/**
@@ -18,6 +18,8 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import xyz.noark.core.lang.ByteArray;
+import xyz.noark.core.network.NetworkProtocol;
+import xyz.noark.network.codec.BroadcastPacket;
 
 /**
  * WebSocket的Session.
@@ -33,7 +35,19 @@ public class WebSocketSession extends SocketSession {
 
 	@Override
 	protected void writeAndFlush(ByteArray packet) {
-		channel.writeAndFlush(buildFrame(packet), channel.voidPromise());
+		if (packet instanceof BroadcastPacket) {
+			((BroadcastPacket) packet).write(channel, true);
+		} else {
+			this.write(buildFrame(packet));
+		}
+	}
+
+	/**
+	 * WebSocket没有长度编码器，还是先编码成字节数组再包装成帧.
+	 */
+	@Override
+	protected void writeAndFlush(NetworkProtocol networkProtocol) {
+		this.writeAndFlush(buildPacket(networkProtocol.getOpcode(), networkProtocol.getProtocol()));
 	}
 
 	@Override
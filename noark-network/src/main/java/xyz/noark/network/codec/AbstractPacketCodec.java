@@ -14,9 +14,12 @@
 package xyz.noark.network.codec;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.MessageToByteEncoder;
+import xyz.noark.core.lang.ByteArray;
 import xyz.noark.core.network.NetworkPacket;
+import xyz.noark.core.network.NetworkProtocol;
 import xyz.noark.core.network.PacketCodec;
 
 /**
@@ -44,6 +47,37 @@ public abstract class AbstractPacketCodec implements PacketCodec {
 	 */
 	public abstract ByteToMessageDecoder lengthDecoder();
 
+	/**
+	 * 构建交给长度编码器的出站消息.
+	 * <p>
+	 * 默认就是先编码成字节数组，长度编码器可以直接写入ByteBuf的编解码器可以重写此方法，省掉中间数组.
+	 * 
+	 * @param networkProtocol 网络协议
+	 * @return 出站消息
+	 */
+	public Object encodeOutbound(NetworkProtocol networkProtocol) {
+		return this.encodePacket(networkProtocol);
+	}
+
+	/**
+	 * 估算出站消息写出后的字节数.
+	 * <p>
+	 * 用于慢消费者缓冲区的容量控制，{@link #encodeOutbound(NetworkProtocol)}返回了其他类型的编解码器需要重写此方法.
+	 * 
+	 * @param msg 出站消息
+	 * @return 字节数
+	 */
+	public int outboundSize(Object msg) {
+		if (msg instanceof ByteArray) {
+			return ((ByteArray) msg).length();
+		} else if (msg instanceof ByteBufHolder) {
+			return ((ByteBufHolder) msg).content().readableBytes();
+		} else if (msg instanceof ByteBuf) {
+			return ((ByteBuf) msg).readableBytes();
+		}
+		return 0;
+	}
+
 	/**
 	 * 将二进制数据转化为网络封包对象.
 	 * 
@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.codec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import xyz.noark.core.lang.ByteArray;
+
+/**
+ * 群发用的封包.
+ * <p>
+ * 协议只编码一次，连同包长一起写入一个池化的直接内存ByteBuf，每个链接发送的都是它的引用，没有任何拷贝.<br>
+ * 发送时先按EventLoop分组收集链接，{@link #close()}时每个EventLoop只提交一个任务，在IO线程里依次写出.
+ * <p>
+ * 一定要在群发结束后调用{@link #close()}，不然不但发不出去，内存也不会被回收.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class BroadcastPacket implements ByteArray {
+	/** 带包长的完整封包 */
+	private final ByteBuf frame;
+	/** 包长所占用的字节数 */
+	private final int headerLength;
+	/** 按EventLoop分组的待发送链接 */
+	private final Map<EventLoop, Group> groups = new HashMap<>();
+	private boolean closed = false;
+
+	public BroadcastPacket(ByteBuf frame, int headerLength) {
+		this.frame = frame;
+		this.headerLength = headerLength;
+	}
+
+	/**
+	 * 把一个链接加入群发列表.
+	 * 
+	 * @param channel 链接
+	 * @param websocket 是否为WebSocket链接，WebSocket发送的是不带包长的帧
+	 */
+	public void write(Channel channel, boolean websocket) {
+		if (closed) {
+			throw new IllegalStateException("broadcast packet has been closed.");
+		}
+		Group group = groups.computeIfAbsent(channel.eventLoop(), key -> new Group());
+		(websocket ? group.websockets : group.sockets).add(channel);
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			for (Map.Entry<EventLoop, Group> e : groups.entrySet()) {
+				final Group group = e.getValue();
+				frame.retain();
+				try {
+					e.getKey().execute(() -> flush(group));
+				} catch (RejectedExecutionException ree) {
+					frame.release();
+				}
+			}
+		} finally {
+			groups.clear();
+			frame.release();
+		}
+	}
+
+	/** 在IO线程里执行，写出一个分组内的所有链接 */
+	private void flush(Group group) {
+		try {
+			for (Channel channel : group.sockets) {
+				channel.writeAndFlush(frame.retainedDuplicate(), channel.voidPromise());
+			}
+			for (Channel channel : group.websockets) {
+				channel.writeAndFlush(new BinaryWebSocketFrame(frame.retainedSlice(headerLength, this.length())), channel.voidPromise());
+			}
+		} finally {
+			frame.release();
+		}
+	}
+
+	@Override
+	public byte[] array() {
+		byte[] array = new byte[this.length()];
+		frame.getBytes(headerLength, array);
+		return array;
+	}
+
+	@Override
+	public int length() {
+		return frame.readableBytes() - headerLength;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		return frame.getByte(headerLength + index);
+	}
+
+	@Override
+	public void setByte(int index, byte value) {
+		frame.setByte(headerLength + index, value);
+	}
+
+	/**
+	 * 同一个EventLoop下的链接.
+	 */
+	private static class Group {
+		private final List<Channel> sockets = new ArrayList<>();
+		private final List<Channel> websockets = new ArrayList<>();
+	}
+}
\ No newline at end of file
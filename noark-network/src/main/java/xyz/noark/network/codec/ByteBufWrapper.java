@@ -13,7 +13,10 @@
  */
 package xyz.noark.network.codec;
 
+import java.nio.ByteBuffer;
+
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import xyz.noark.core.lang.ByteArray;
 
 /**
@@ -41,6 +44,33 @@ public class ByteBufWrapper implements ByteArray {
 		return array;
 	}
 
+	/**
+	 * 返回可读内容的NIO视图.
+	 * <p>
+	 * 直接共享ByteBuf的内存，不拷贝也不移动读索引，用于解码时省去{@link #array()}的那次拷贝.
+	 * 
+	 * @return 可读内容的NIO视图
+	 */
+	public ByteBuffer nioBuffer() {
+		return array == null ? byteBuf.nioBuffer() : ByteBuffer.wrap(array);
+	}
+
+	/**
+	 * 以ByteBuf的方式访问字节数组的内容，用于按8字节一组的批量读写.
+	 * <p>
+	 * 返回的ByteBuf与原字节数组共享内容，可读区域就是数组的全部内容，不要释放它.
+	 * 
+	 * @param data 字节数组
+	 * @return 共享内容的ByteBuf
+	 */
+	public static ByteBuf unwrap(ByteArray data) {
+		if (data instanceof ByteBufWrapper) {
+			ByteBufWrapper wrapper = (ByteBufWrapper) data;
+			return wrapper.array == null ? wrapper.byteBuf : Unpooled.wrappedBuffer(wrapper.array);
+		}
+		return Unpooled.wrappedBuffer(data.array());
+	}
+
 	@Override
 	public void close() {
 		byteBuf.release();// 拿出一个带引用的ByteBuf，这里--
@@ -53,13 +83,13 @@ public class ByteBufWrapper implements ByteArray {
 
 	@Override
 	public byte getByte(int index) {
-		return array == null ? byteBuf.getByte(index) : array[index];
+		return array == null ? byteBuf.getByte(byteBuf.readerIndex() + index) : array[index];
 	}
 
 	@Override
 	public void setByte(int index, byte value) {
 		if (array == null) {
-			byteBuf.setByte(index, value);
+			byteBuf.setByte(byteBuf.readerIndex() + index, value);
 		} else {
 			array[index] = value;
 		}
@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.codec;
+
+import java.util.zip.Deflater;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * 封包压缩器.
+ * <p>
+ * 协议内容达到阈值的封包才会压缩，压缩后比原来还大就不压了.<br>
+ * Deflater与缓冲区都是线程本地的，每个EventLoop线程一份，反复使用，不再每次都创建.
+ * <p>
+ * 压缩器挂在Channel的属性上，没有挂的链接就不压缩，可以在与客户端协商后再开启或关闭.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class PacketCompressor {
+	/** 挂在Channel上的压缩器属性，有值时才会压缩 */
+	public static final AttributeKey<PacketCompressor> ATTR_KEY = AttributeKey.valueOf("noark.packet.compressor");
+	/** 服务器配置的压缩器，客户端明确申请开启压缩后才会生效 */
+	public static final AttributeKey<PacketCompressor> SUPPORTED_ATTR_KEY = AttributeKey.valueOf("noark.packet.compressor.supported");
+	/** Opcode最大不会超过Short.MAX_VALUE，所以最高位用作压缩标识 */
+	public static final int COMPRESS_FLAG = 0x8000;
+
+	/** 缓冲区，用来存放序列化后还未压缩的内容和压缩后的内容 */
+	private static final FastThreadLocal<byte[][]> BUFFERS = new FastThreadLocal<byte[][]>() {
+		@Override
+		protected byte[][] initialValue() {
+			return new byte[2][4096];
+		}
+	};
+
+	/** 压缩阈值，单位：字节 */
+	private final int threshold;
+	private final FastThreadLocal<Deflater> deflaters;
+
+	/**
+	 * 为这个链接开启压缩.
+	 * <p>
+	 * 不认识压缩标识的客户端收到压缩封包是解不开的，所以链接默认不压缩，<br>
+	 * 只有客户端明确申请（比如登录协议里带上支持压缩的标识）后才调用这个方法开启.
+	 * 
+	 * @param channel 链接
+	 * @return 如果服务器没有配置压缩则返回false
+	 */
+	public static boolean enable(Channel channel) {
+		PacketCompressor compressor = channel.attr(SUPPORTED_ATTR_KEY).get();
+		if (compressor == null) {
+			return false;
+		}
+		channel.attr(ATTR_KEY).set(compressor);
+		return true;
+	}
+
+	/**
+	 * 关闭这个链接的压缩.
+	 * 
+	 * @param channel 链接
+	 */
+	public static void disable(Channel channel) {
+		channel.attr(ATTR_KEY).set(null);
+	}
+
+	/**
+	 * 创建一个压缩器.
+	 * 
+	 * @param threshold 压缩阈值，协议内容达到这个长度才压缩
+	 * @param level 压缩级别，{@link Deflater#BEST_SPEED}最快
+	 */
+	public PacketCompressor(int threshold, int level) {
+		this.threshold = threshold;
+		this.deflaters = new FastThreadLocal<Deflater>() {
+			@Override
+			protected Deflater initialValue() {
+				return new Deflater(level);
+			}
+
+			@Override
+			protected void onRemoval(Deflater value) {
+				value.end();
+			}
+		};
+	}
+
+	/**
+	 * 判定指定长度的内容是否需要压缩.
+	 * 
+	 * @param length 协议内容长度
+	 * @return 如果需要压缩则返回true
+	 */
+	public boolean isNeedCompress(int length) {
+		return length >= threshold;
+	}
+
+	/**
+	 * 获取当前线程用于存放未压缩内容的缓冲区.
+	 * 
+	 * @param length 需要的长度
+	 * @return 缓冲区
+	 */
+	public byte[] inputBuffer(int length) {
+		return buffer(0, length);
+	}
+
+	/**
+	 * 压缩缓冲区里的内容并写入ByteBuf.
+	 * 
+	 * @param input 未压缩的内容
+	 * @param length 未压缩内容的长度
+	 * @param out 目标ByteBuf
+	 * @return 压缩后的长度，如果压缩后没有变小就什么也不写，返回-1
+	 */
+	public int compress(byte[] input, int length, ByteBuf out) {
+		Deflater deflater = deflaters.get();
+		try {
+			deflater.setInput(input, 0, length);
+			deflater.finish();
+
+			// 只接受比原来小的结果，所以输出区域给原长度就够了
+			final byte[] output = buffer(1, length);
+			int size = 0;
+			while (!deflater.finished() && size < length) {
+				size += deflater.deflate(output, size, length - size);
+			}
+			if (!deflater.finished() || size >= length) {
+				return -1;
+			}
+			out.writeBytes(output, 0, size);
+			return size;
+		} finally {
+			deflater.reset();
+		}
+	}
+
+	private static byte[] buffer(int index, int length) {
+		byte[][] buffers = BUFFERS.get();
+		if (buffers[index].length < length) {
+			buffers[index] = new byte[Math.max(length, buffers[index].length << 1)];
+		}
+		return buffers[index];
+	}
+}
\ No newline at end of file
@@ -16,6 +16,7 @@ package xyz.noark.network.codec.json;
 import com.alibaba.fastjson.JSON;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import xyz.noark.core.lang.ByteArray;
 import xyz.noark.core.lang.ByteArrayOutputStream;
@@ -23,6 +24,7 @@ import xyz.noark.core.lang.ImmutableByteArray;
 import xyz.noark.core.network.NetworkPacket;
 import xyz.noark.core.network.NetworkProtocol;
 import xyz.noark.network.codec.AbstractPacketCodec;
+import xyz.noark.network.codec.BroadcastPacket;
 import xyz.noark.network.codec.ByteBufWrapper;
 import xyz.noark.network.codec.DefaultNetworkPacket;
 
@@ -53,6 +55,17 @@ public class SimpleJsonCodec extends AbstractPacketCodec {
 		return byteArray;
 	}
 
+	@Override
+	public ByteArray encodeBroadcast(NetworkProtocol networkProtocol) {
+		final byte[] bytes = JSON.toJSONBytes(networkProtocol.getProtocol());
+
+		ByteBuf frame = ByteBufAllocator.DEFAULT.directBuffer(bytes.length + 6);
+		frame.writeShort(bytes.length + 4);
+		frame.writeInt(networkProtocol.getOpcode());
+		frame.writeBytes(bytes);
+		return new BroadcastPacket(frame, 2);
+	}
+
 	@Override
 	public SimpleJsonLengthEncoder lengthEncoder() {
 		return new SimpleJsonLengthEncoder();
@@ -17,9 +17,12 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.MessageToByteEncoder;
 import xyz.noark.core.exception.DataException;
@@ -32,6 +35,7 @@ import xyz.noark.core.network.NetworkProtocol;
 import xyz.noark.core.util.MethodUtils;
 import xyz.noark.core.util.UnsignedUtils;
 import xyz.noark.network.codec.AbstractPacketCodec;
+import xyz.noark.network.codec.BroadcastPacket;
 import xyz.noark.network.codec.ByteBufWrapper;
 import xyz.noark.network.codec.DefaultNetworkPacket;
 
@@ -42,30 +46,37 @@ import xyz.noark.network.codec.DefaultNetworkPacket;
  * @author 小流氓(176543888@qq.com)
  */
 public class ProtobufCodec extends AbstractPacketCodec {
-	private static final ConcurrentHashMap<Class<?>, Method> CACHES = new ConcurrentHashMap<>(1024);
+	private static final ConcurrentHashMap<Class<?>, Parser<?>> PARSERS = new ConcurrentHashMap<>(1024);
 
+	/**
+	 * 使用缓存的Parser解码，网络封包直接从ByteBuf的NIO视图里解析，不再拷贝成数组.
+	 */
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T decodeProtocol(ByteArray bytes, Class<T> klass) {
-		Method method = CACHES.computeIfAbsent(klass, key -> MethodUtils.getMethod(key, "parseFrom", byte[].class));
-		return (T) MethodUtils.invoke(null, method, bytes.array());
+		Parser<?> parser = PARSERS.computeIfAbsent(klass, ProtobufCodec::getParser);
+		try {
+			if (bytes instanceof ByteBufWrapper) {
+				return (T) parser.parseFrom(((ByteBufWrapper) bytes).nioBuffer());
+			}
+			return (T) parser.parseFrom(bytes.array());
+		} catch (InvalidProtocolBufferException e) {
+			throw new DataException("PB parseFrom exception", e);
+		}
+	}
+
+	/**
+	 * 每个协议类只反射一次，拿到默认实例上的Parser.
+	 */
+	private static Parser<?> getParser(Class<?> klass) {
+		Method method = MethodUtils.getMethod(klass, "getDefaultInstance");
+		return ((MessageLite) MethodUtils.invoke(null, method)).getParserForType();
 	}
 
 	@Override
 	public ByteArray encodePacket(NetworkProtocol networkProtocol) {
 		final int opcode = networkProtocol.getOpcode();
-		if (opcode > Short.MAX_VALUE) {
-			throw new UnrealizedException("illegal opcode=" + opcode + ", max=65535");
-		}
-
-		MessageLite message = null;
-		if (networkProtocol.getProtocol() instanceof MessageLite) {
-			message = (MessageLite) networkProtocol.getProtocol();
-		} else if (networkProtocol.getProtocol() instanceof MessageLite.Builder) {
-			message = ((MessageLite.Builder) networkProtocol.getProtocol()).build();
-		} else {
-			throw new UnrealizedException("illegal data type：" + networkProtocol.getProtocol().getClass());
-		}
+		MessageLite message = toMessage(networkProtocol);
 
 		ImmutableByteArray byteArray = new ImmutableByteArray(message.getSerializedSize() + 2);
 		try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(byteArray)) {
@@ -81,6 +92,57 @@ public class ProtobufCodec extends AbstractPacketCodec {
 		}
 	}
 
+	/**
+	 * Builder在这里就构建好，编码是在IO线程里做的，不能再引用业务线程还可能修改的Builder.
+	 */
+	@Override
+	public Object encodeOutbound(NetworkProtocol networkProtocol) {
+		MessageLite message = toMessage(networkProtocol);
+		if (message == networkProtocol.getProtocol()) {
+			return networkProtocol;
+		}
+		NetworkProtocol result = new NetworkProtocol(networkProtocol.getOpcode(), message);
+		result.setReqId(networkProtocol.getReqId());
+		return result;
+	}
+
+	@Override
+	public int outboundSize(Object msg) {
+		if (msg instanceof NetworkProtocol) {
+			return ((MessageLite) ((NetworkProtocol) msg).getProtocol()).getSerializedSize() + ProtobufLengthEncoder.HEADER_LENGTH;
+		}
+		return super.outboundSize(msg);
+	}
+
+	@Override
+	public ByteArray encodeBroadcast(NetworkProtocol networkProtocol) {
+		MessageLite message = toMessage(networkProtocol);
+		ByteBuf frame = ByteBufAllocator.DEFAULT.directBuffer(message.getSerializedSize() + ProtobufLengthEncoder.HEADER_LENGTH);
+		try {
+			// 群发的封包是所有链接共用的，不区分链接是否协商了压缩
+			ProtobufLengthEncoder.writePacket(networkProtocol.getOpcode(), message, frame, null);
+		} catch (RuntimeException e) {
+			frame.release();
+			throw e;
+		}
+		return new BroadcastPacket(frame, 2);
+	}
+
+	private static MessageLite toMessage(NetworkProtocol networkProtocol) {
+		final int opcode = networkProtocol.getOpcode();
+		if (opcode > Short.MAX_VALUE) {
+			throw new UnrealizedException("illegal opcode=" + opcode + ", max=65535");
+		}
+
+		if (networkProtocol.getProtocol() instanceof MessageLite) {
+			return (MessageLite) networkProtocol.getProtocol();
+		} else if (networkProtocol.getProtocol() instanceof MessageLite.Builder) {
+			return ((MessageLite.Builder) networkProtocol.getProtocol()).build();
+		} else {
+			throw new UnrealizedException("illegal data type：" + networkProtocol.getProtocol().getClass());
+		}
+	}
+
 	@Override
 	public MessageToByteEncoder<?> lengthEncoder() {
 		return new ProtobufLengthEncoder();
@@ -13,22 +13,124 @@
  */
 package xyz.noark.network.codec.protobuf;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import xyz.noark.core.exception.DataException;
 import xyz.noark.core.lang.ByteArray;
+import xyz.noark.core.network.NetworkProtocol;
+import xyz.noark.network.codec.PacketCompressor;
 
 /**
  * 写入长度.
+ * <p>
+ * 除了已编码好的{@link ByteArray}，还可以直接接收{@link ProtobufCodec#encodeOutbound(NetworkProtocol)}构建的协议，<br>
+ * 包长、Opcode和协议内容都直接写入从Channel分配器申请的池化ByteBuf，中间不再有堆内数组和拷贝.
+ * <p>
+ * Channel上挂了{@link PacketCompressor}时，达到阈值的协议会压缩后再写入，Opcode的最高位标识为已压缩.
  *
  * @since 3.1
  * @author 小流氓(176543888@qq.com)
  */
-public class ProtobufLengthEncoder extends MessageToByteEncoder<ByteArray> {
+public class ProtobufLengthEncoder extends MessageToByteEncoder<Object> {
+	/** 包长与Opcode所占用的字节数 */
+	static final int HEADER_LENGTH = 4;
+
+	@Override
+	public boolean acceptOutboundMessage(Object msg) {
+		return msg instanceof ByteArray || msg instanceof NetworkProtocol;
+	}
+
+	@Override
+	protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Object msg, boolean preferDirect) {
+		// 长度是可以提前算出来的，一次申请到位，不要在写入时扩容
+		final int capacity;
+		if (msg instanceof NetworkProtocol) {
+			capacity = ((MessageLite) ((NetworkProtocol) msg).getProtocol()).getSerializedSize() + HEADER_LENGTH;
+		} else {
+			capacity = ((ByteArray) msg).length() + 2;
+		}
+		return preferDirect ? ctx.alloc().ioBuffer(capacity) : ctx.alloc().heapBuffer(capacity);
+	}
 
 	@Override
-	protected void encode(ChannelHandlerContext ctx, ByteArray msg, ByteBuf out) {
-		out.writeShortLE(msg.length());
-		out.writeBytes(msg.array());
+	protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) {
+		if (msg instanceof NetworkProtocol) {
+			NetworkProtocol networkProtocol = (NetworkProtocol) msg;
+			writePacket(networkProtocol.getOpcode(), (MessageLite) networkProtocol.getProtocol(), out, ctx.channel().attr(PacketCompressor.ATTR_KEY).get());
+		} else {
+			ByteArray array = (ByteArray) msg;
+			out.writeShortLE(array.length());
+			out.writeBytes(array.array());
+		}
+	}
+
+	/**
+	 * 把包长、Opcode和协议内容写入ByteBuf.
+	 * 
+	 * @param opcode 协议编号
+	 * @param message 协议内容
+	 * @param out 目标ByteBuf
+	 * @param compressor 压缩器，为null时不压缩
+	 */
+	static void writePacket(int opcode, MessageLite message, ByteBuf out, PacketCompressor compressor) {
+		final int size = message.getSerializedSize();
+		if (compressor != null && compressor.isNeedCompress(size)) {
+			writeCompressedPacket(opcode, message, size, out, compressor);
+			return;
+		}
+
+		out.writeShortLE(size + 2);
+		out.writeShortLE(opcode);
+
+		try {
+			out.ensureWritable(size);
+			if (out.nioBufferCount() == 1) {
+				// 直接写入ByteBuf的内存，没有中间缓冲区
+				ByteBuffer buffer = out.nioBuffer(out.writerIndex(), size);
+				CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+				message.writeTo(output);
+				output.checkNoSpaceLeft();
+				out.writerIndex(out.writerIndex() + size);
+			} else {
+				message.writeTo(new ByteBufOutputStream(out));
+			}
+		} catch (IOException e) {
+			throw new DataException("PB writeTo exception", e);
+		}
+	}
+
+	/**
+	 * 压缩的需要先序列化到线程本地的缓冲区里，压缩后没有变小就直接写入原内容.
+	 */
+	private static void writeCompressedPacket(int opcode, MessageLite message, int size, ByteBuf out, PacketCompressor compressor) {
+		final byte[] input = compressor.inputBuffer(size);
+		try {
+			CodedOutputStream output = CodedOutputStream.newInstance(input, 0, size);
+			message.writeTo(output);
+			output.checkNoSpaceLeft();
+		} catch (IOException e) {
+			throw new DataException("PB writeTo exception", e);
+		}
+
+		final int start = out.writerIndex();
+		out.writeShortLE(0);
+		out.writeShortLE(opcode | PacketCompressor.COMPRESS_FLAG);
+		int length = compressor.compress(input, size, out);
+		if (length < 0) {
+			out.writerIndex(start);
+			out.writeShortLE(size + 2);
+			out.writeShortLE(opcode);
+			out.writeBytes(input, 0, size);
+		} else {
+			out.setShortLE(start, length + 2);
+		}
 	}
 }
\ No newline at end of file
@@ -13,9 +13,10 @@
  */
 package xyz.noark.network.filter;
 
-import xyz.noark.core.lang.ByteArray;
+import io.netty.buffer.ByteBuf;
 import xyz.noark.core.network.NetworkPacket;
 import xyz.noark.network.IncodeSession;
+import xyz.noark.network.codec.ByteBufWrapper;
 
 /**
  * 一种默认的封包检测过滤实现.
@@ -36,13 +37,33 @@ public class DefaultPacketCheckFilter extends AbstractPacketCheckFilter {
 
 	@Override
 	protected boolean checkPacketChecksum(NetworkPacket packet) {
-		final ByteArray data = packet.getByteArray();
-
 		// 一种简单的计算方案....
-		int sum = 0;
-		for (int i = 0, len = data.length(); i < len; i++) {
-			sum += (data.getByte(i) & 0xFF);
+		return checksum(ByteBufWrapper.unwrap(packet.getByteArray())) == packet.getChecksum();
+	}
+
+	/**
+	 * 计算所有字节无符号值的和.
+	 * <p>
+	 * 一次读8个字节，奇偶字节分别落到4个16位的通道里累加，每个通道每次最多加510，<br>
+	 * 所以每128组就要把4个通道折叠一次，不足8字节的尾巴再逐字节累加.
+	 */
+	static int checksum(ByteBuf buf) {
+		final int start = buf.readerIndex();
+		final int len = buf.readableBytes();
+		final int end = len & ~7;
+
+		int sum = 0, i = 0;
+		while (i < end) {
+			long lanes = 0;
+			for (final int limit = Math.min(end, i + 1024); i < limit; i += Long.BYTES) {
+				long word = buf.getLongLE(start + i);
+				lanes += (word & 0x00FF00FF00FF00FFL) + ((word >>> 8) & 0x00FF00FF00FF00FFL);
+			}
+			sum += (int) ((lanes & 0xFFFF) + ((lanes >>> 16) & 0xFFFF) + ((lanes >>> 32) & 0xFFFF) + (lanes >>> 48));
+		}
+		for (; i < len; i++) {
+			sum += buf.getUnsignedByte(start + i);
 		}
-		return sum == packet.getChecksum();
+		return sum;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,305 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.filter;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import xyz.noark.core.annotation.Autowired;
+import xyz.noark.core.annotation.Service;
+import xyz.noark.core.annotation.Value;
+import xyz.noark.core.exception.ServerBootstrapException;
+import xyz.noark.core.network.NetworkListener;
+import xyz.noark.core.network.NetworkPacket;
+import xyz.noark.core.network.Session;
+import xyz.noark.core.util.StringUtils;
+import xyz.noark.network.NetworkConstant;
+
+/**
+ * 封包限流器.
+ * <p>
+ * 在Netty线程里派发封包之前，按链接、按IP、按协议分类用令牌桶限制每秒的封包数与字节数，<br>
+ * 刷包的请求在IO层就被挡住，不会再塞满业务线程的任务队列.
+ * <p>
+ * 链接的令牌桶挂在Channel的属性上，IP的令牌桶由同一IP的所有链接共用，最后一个链接断开时移除.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+@Service
+public class PacketRateLimiter {
+	private static final AttributeKey<SessionLimit> ATTR_KEY = AttributeKey.valueOf("noark.packet.limiter");
+	/** 暂停读取的最短时间 */
+	private static final long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	/** 同一链接的限流日志间隔 */
+	private static final long WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/** 封包限流功能是否激活 */
+	@Value(NetworkConstant.LIMIT_ACTIVE)
+	private boolean active = false;
+	/** 每个链接每秒最多接收的封包数，0表示不限制 */
+	@Value(NetworkConstant.LIMIT_SESSION_PACKETS)
+	private int sessionPackets = 50;
+	/** 每个链接每秒最多接收的字节数，0表示不限制 */
+	@Value(NetworkConstant.LIMIT_SESSION_BYTES)
+	private int sessionBytes = 65535;
+	/** 每个IP每秒最多接收的封包数，0表示不限制 */
+	@Value(NetworkConstant.LIMIT_IP_PACKETS)
+	private int ipPackets = 0;
+	/** 每个IP每秒最多接收的字节数，0表示不限制 */
+	@Value(NetworkConstant.LIMIT_IP_BYTES)
+	private int ipBytes = 0;
+	/** 按协议分类限制每个链接每秒的封包数 */
+	@Value(NetworkConstant.LIMIT_OPCODE_RATES)
+	private String opcodeRates = StringUtils.EMPTY;
+	/** 超出速率时的处理方式 */
+	@Value(NetworkConstant.LIMIT_ACTION)
+	private String action = RateLimitAction.DROP.name();
+
+	@Autowired(required = false)
+	private NetworkListener networkListener;
+
+	private final ConcurrentHashMap<String, IpLimit> ips = new ConcurrentHashMap<>(1024);
+	private OpcodeClass[] opcodeClasses = new OpcodeClass[0];
+	private RateLimitAction rateLimitAction = RateLimitAction.DROP;
+
+	public PacketRateLimiter() {}
+
+	/**
+	 * 不走配置注入，直接创建一个激活的限流器.
+	 * 
+	 * @param sessionPackets 每个链接每秒最多接收的封包数
+	 * @param sessionBytes 每个链接每秒最多接收的字节数
+	 * @param ipPackets 每个IP每秒最多接收的封包数
+	 * @param ipBytes 每个IP每秒最多接收的字节数
+	 * @param opcodeRates 按协议分类的限制，格式：1001-1099:10,2001:5
+	 * @param action 超出速率时的处理方式
+	 */
+	public PacketRateLimiter(int sessionPackets, int sessionBytes, int ipPackets, int ipBytes, String opcodeRates, RateLimitAction action) {
+		this.active = true;
+		this.sessionPackets = sessionPackets;
+		this.sessionBytes = sessionBytes;
+		this.ipPackets = ipPackets;
+		this.ipBytes = ipBytes;
+		this.opcodeRates = opcodeRates;
+		this.action = action.name();
+		this.init();
+	}
+
+	@PostConstruct
+	public void init() {
+		this.rateLimitAction = RateLimitAction.of(action);
+		this.opcodeClasses = parseOpcodeRates(opcodeRates);
+	}
+
+	/**
+	 * 解析协议分类的配置，格式：1001-1099:10,2001:5
+	 */
+	private static OpcodeClass[] parseOpcodeRates(String opcodeRates) {
+		if (StringUtils.isEmpty(opcodeRates)) {
+			return new OpcodeClass[0];
+		}
+
+		String[] array = StringUtils.split(opcodeRates, ",");
+		OpcodeClass[] result = new OpcodeClass[array.length];
+		try {
+			for (int i = 0; i < array.length; i++) {
+				String[] kv = StringUtils.split(array[i], ":");
+				String[] range = StringUtils.split(kv[0], "-");
+				int min = Integer.parseInt(range[0].trim());
+				int max = range.length > 1 ? Integer.parseInt(range[1].trim()) : min;
+				result[i] = new OpcodeClass(min, max, Integer.parseInt(kv[1].trim()));
+			}
+		} catch (RuntimeException e) {
+			throw new ServerBootstrapException("协议限流配置格式应该是：1001-1099:10,2001:5，当前配置：" + opcodeRates, e);
+		}
+		return result;
+	}
+
+	/**
+	 * 封包限流功能是否激活.
+	 * 
+	 * @return 如果激活返回true
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * 为这个封包拿令牌，拿不到时按配置的方式处理.
+	 * <p>
+	 * 只在链接的EventLoop线程里调用
+	 * 
+	 * @param channel 链接
+	 * @param session Session对象
+	 * @param packet 网络封包
+	 * @return 如果封包可以继续派发返回true
+	 */
+	public boolean acquire(Channel channel, Session session, NetworkPacket packet) {
+		final long now = System.nanoTime();
+		SessionLimit limit = channel.attr(ATTR_KEY).get();
+		if (limit == null) {
+			limit = this.createSessionLimit(channel, session.getIp(), now);
+		}
+
+		final long waitNanos = limit.acquire(packet, now);
+		if (waitNanos <= 0) {
+			return true;
+		}
+
+		if (now - limit.lastWarnNanos >= WARN_INTERVAL_NANOS) {
+			limit.lastWarnNanos = now;
+			logger.warn("封包超出限流速率，action={}, playerId={}, ip={}, opcode={}", rateLimitAction, session.getPlayerId(), session.getIp(), packet.getOpcode());
+		}
+		if (networkListener != null) {
+			networkListener.handleRateLimit(session, packet);
+		}
+
+		switch (rateLimitAction) {
+		case DELAY:
+			if (channel.config().isAutoRead()) {
+				channel.config().setAutoRead(false);
+				channel.eventLoop().schedule(() -> channel.config().setAutoRead(true), Math.max(MIN_DELAY_NANOS, waitNanos), TimeUnit.NANOSECONDS);
+			}
+			return true;
+		case DISCONNECT:
+			channel.close();
+			return false;
+		default:
+			return false;
+		}
+	}
+
+	private SessionLimit createSessionLimit(Channel channel, String ip, long now) {
+		IpLimit ipLimit = null;
+		if (ipPackets > 0 || ipBytes > 0) {
+			ipLimit = ips.compute(ip, (key, value) -> {
+				IpLimit result = value == null ? new IpLimit(now) : value;
+				result.channels++;
+				return result;
+			});
+			channel.closeFuture().addListener(future -> ips.computeIfPresent(ip, (key, value) -> --value.channels == 0 ? null : value));
+		}
+
+		SessionLimit limit = new SessionLimit(ipLimit, now);
+		channel.attr(ATTR_KEY).set(limit);
+		return limit;
+	}
+
+	/**
+	 * 当前有链接的IP数量.
+	 * 
+	 * @return IP数量
+	 */
+	public int getIpCount() {
+		return ips.size();
+	}
+
+	private static TokenBucket newBucket(int permitsPerSecond, long now) {
+		return permitsPerSecond > 0 ? new TokenBucket(permitsPerSecond, now) : null;
+	}
+
+	/**
+	 * 拿令牌，拿不到时返回还需要等待的时间.
+	 */
+	private static long acquire(TokenBucket bucket, long permits, long now) {
+		if (bucket == null || bucket.tryAcquire(permits, now)) {
+			return 0;
+		}
+		return Math.max(1, bucket.waitNanos(permits, now));
+	}
+
+	/**
+	 * 协议分类.
+	 */
+	private static class OpcodeClass {
+		private final int min;
+		private final int max;
+		private final int rate;
+
+		private OpcodeClass(int min, int max, int rate) {
+			this.min = min;
+			this.max = max;
+			this.rate = rate;
+		}
+	}
+
+	/**
+	 * 一个IP的令牌桶.
+	 */
+	private class IpLimit {
+		private final TokenBucket packets;
+		private final TokenBucket bytes;
+		/** 这个IP的链接数，只在ConcurrentHashMap的compute里修改 */
+		private int channels;
+
+		private IpLimit(long now) {
+			this.packets = newBucket(ipPackets, now);
+			this.bytes = newBucket(ipBytes, now);
+		}
+	}
+
+	/**
+	 * 一个链接的令牌桶.
+	 */
+	private class SessionLimit {
+		private final TokenBucket packets;
+		private final TokenBucket bytes;
+		private final TokenBucket[] opcodes;
+		private final IpLimit ip;
+		private long lastWarnNanos;
+
+		private SessionLimit(IpLimit ip, long now) {
+			this.packets = newBucket(sessionPackets, now);
+			this.bytes = newBucket(sessionBytes, now);
+			this.opcodes = new TokenBucket[opcodeClasses.length];
+			for (int i = 0; i < opcodes.length; i++) {
+				opcodes[i] = newBucket(opcodeClasses[i].rate, now);
+			}
+			this.ip = ip;
+			this.lastWarnNanos = now - WARN_INTERVAL_NANOS;
+		}
+
+		/**
+		 * 依次检测协议分类、链接、IP的令牌桶.
+		 * 
+		 * @return 全部通过返回0，否则返回还需要等待的时间
+		 */
+		private long acquire(NetworkPacket packet, long now) {
+			final int opcode = packet.getOpcode();
+			for (int i = 0; i < opcodes.length; i++) {
+				if (opcodeClasses[i].min <= opcode && opcode <= opcodeClasses[i].max) {
+					long waitNanos = PacketRateLimiter.acquire(opcodes[i], 1, now);
+					if (waitNanos > 0) {
+						return waitNanos;
+					}
+					break;
+				}
+			}
+
+			final int length = packet.getLength();
+			long waitNanos = Math.max(PacketRateLimiter.acquire(packets, 1, now), PacketRateLimiter.acquire(bytes, length, now));
+			if (waitNanos > 0 || ip == null) {
+				return waitNanos;
+			}
+			return Math.max(PacketRateLimiter.acquire(ip.packets, 1, now), PacketRateLimiter.acquire(ip.bytes, length, now));
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.filter;
+
+import xyz.noark.core.exception.UnrealizedException;
+
+/**
+ * 封包超出限流速率时的处理方式.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public enum RateLimitAction {
+	/**
+	 * 丢弃超出速率的封包.
+	 */
+	DROP,
+
+	/**
+	 * 放行这个封包，但暂停读取这个链接，等令牌够了再恢复读取.
+	 * <p>
+	 * 不再读取时数据就积压在对方的发送缓冲区里，由TCP的流量控制让客户端慢下来
+	 */
+	DELAY,
+
+	/**
+	 * 丢弃超出速率的封包，并断开这个链接.
+	 */
+	DISCONNECT;
+
+	/**
+	 * 根据配置的名称获取处理方式，忽略大小写.
+	 * 
+	 * @param name 处理方式名称
+	 * @return 处理方式
+	 */
+	public static RateLimitAction of(String name) {
+		for (RateLimitAction action : values()) {
+			if (action.name().equalsIgnoreCase(name)) {
+				return action;
+			}
+		}
+		throw new UnrealizedException("未知的封包限流处理方式：" + name);
+	}
+}
\ No newline at end of file
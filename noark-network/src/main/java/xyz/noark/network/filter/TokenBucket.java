@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.filter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶.
+ * <p>
+ * 按固定速率放入令牌，桶里最多存一秒的令牌，允许这个量的突发.<br>
+ * 每个IP的桶会被多个EventLoop线程同时访问，所以方法都是同步的，单个链接的桶没有竞争，同步的开销可以忽略.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class TokenBucket {
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	/** 桶的容量 */
+	private final double capacity;
+	/** 每纳秒放入的令牌数 */
+	private final double tokensPerNano;
+	/** 当前令牌数 */
+	private double tokens;
+	/** 上次放入令牌的时间 */
+	private long lastNanos;
+
+	/**
+	 * 创建一个令牌桶，初始是满的.
+	 * 
+	 * @param permitsPerSecond 每秒放入的令牌数
+	 * @param now 当前时间，单位：纳秒
+	 */
+	public TokenBucket(int permitsPerSecond, long now) {
+		this.capacity = permitsPerSecond;
+		this.tokensPerNano = permitsPerSecond / NANOS_PER_SECOND;
+		this.tokens = capacity;
+		this.lastNanos = now;
+	}
+
+	/**
+	 * 尝试拿走指定数量的令牌.
+	 * <p>
+	 * 超过容量的请求按容量算，不然这个请求永远也过不去.
+	 * 
+	 * @param permits 令牌数
+	 * @param now 当前时间，单位：纳秒
+	 * @return 如果令牌足够就拿走并返回true
+	 */
+	public synchronized boolean tryAcquire(long permits, long now) {
+		this.refill(now);
+		final double need = Math.min(permits, capacity);
+		if (tokens >= need) {
+			tokens -= need;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 计算还要等多久才能拿到指定数量的令牌.
+	 * 
+	 * @param permits 令牌数
+	 * @param now 当前时间，单位：纳秒
+	 * @return 需要等待的时间，单位：纳秒
+	 */
+	public synchronized long waitNanos(long permits, long now) {
+		this.refill(now);
+		final double lack = Math.min(permits, capacity) - tokens;
+		return lack <= 0 ? 0 : (long) Math.ceil(lack / tokensPerNano);
+	}
+
+	private void refill(long now) {
+		if (now > lastNanos) {
+			tokens = Math.min(capacity, tokens + (now - lastNanos) * tokensPerNano);
+			lastNanos = now;
+		}
+	}
+}
\ No newline at end of file
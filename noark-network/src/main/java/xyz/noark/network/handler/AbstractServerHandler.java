@@ -23,6 +23,8 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import xyz.noark.core.annotation.Autowired;
 import xyz.noark.core.annotation.Value;
 import xyz.noark.core.lang.ByteArray;
+import xyz.noark.core.lang.IntArrayList;
+import xyz.noark.core.lang.IntList;
 import xyz.noark.core.network.NetworkListener;
 import xyz.noark.core.network.NetworkPacket;
 import xyz.noark.core.network.Session;
@@ -31,7 +33,9 @@ import xyz.noark.core.thread.ThreadDispatcher;
 import xyz.noark.core.util.StringUtils;
 import xyz.noark.network.IncodeSession;
 import xyz.noark.network.NetworkConstant;
+import xyz.noark.network.SocketSession;
 import xyz.noark.network.filter.PacketCheckFilter;
+import xyz.noark.network.filter.PacketRateLimiter;
 
 /**
  * 抽象的服务器处理类.
@@ -44,6 +48,8 @@ public abstract class AbstractServerHandler<T> extends SimpleChannelInboundHandl
 	private ThreadDispatcher threadDispatcher;
 	@Autowired(required = false)
 	private PacketCheckFilter packetCheckFilter;
+	@Autowired
+	private PacketRateLimiter packetRateLimiter;
 
 	/** 接收封包统计预警功能是否激活 */
 	@Value(NetworkConstant.RECEIVE_ACTIVE)
@@ -67,6 +73,21 @@ public abstract class AbstractServerHandler<T> extends SimpleChannelInboundHandl
 	/** 网络加密之密钥：默认配置为无边落木萧萧下，不尽长江滚滚来 */
 	@Value(NetworkConstant.SECRET_KEY)
 	protected byte[] secretKey = StringUtils.utf8Bytes("do{ManyLeavesFly();YangtzeRiverFlows();}while(1==1);");
+	/** 合并刷新，默认不开启 */
+	@Value(NetworkConstant.FLUSH_CONSOLIDATION)
+	private boolean flushConsolidation = false;
+	/** 合并刷新时一个链接最多积攒的封包数量 */
+	@Value(NetworkConstant.FLUSH_MAX_PENDING)
+	private int flushMaxPending = 64;
+	/** 慢消费者缓冲区最多积压的字节数，0表示不开启 */
+	@Value(NetworkConstant.SLOW_CONSUMER_BUFFER)
+	private int slowConsumerBuffer = 0;
+	/** 慢消费者持续不可写多少秒就断开链接 */
+	@Value(NetworkConstant.SLOW_CONSUMER_TIMEOUT)
+	private int slowConsumerTimeout = 30;
+	/** 慢消费者缓冲区里可以合并的协议编号 */
+	@Value(NetworkConstant.SLOW_CONSUMER_COALESCE)
+	private IntList slowConsumerCoalesce = new IntArrayList();
 
 	/**
 	 * 处理链接通道激活逻辑
@@ -75,7 +96,7 @@ public abstract class AbstractServerHandler<T> extends SimpleChannelInboundHandl
 	 */
 	public void channelActive(Channel channel) {
 		// 只要第一个协议对了就要创建Session...
-		Session session = SessionManager.createSession(channel.id(), key -> createSession(channel));
+		Session session = SessionManager.createSession(channel.id(), key -> initSession(createSession(channel)));
 		logger.debug("创建Session={}", session.getId());
 		if (networkListener != null) {
 			networkListener.channelActive(session);
@@ -90,6 +111,16 @@ public abstract class AbstractServerHandler<T> extends SimpleChannelInboundHandl
 	 */
 	protected abstract Session createSession(Channel channel);
 
+	private Session initSession(Session session) {
+		if (flushConsolidation && session instanceof SocketSession) {
+			((SocketSession) session).setFlushMaxPending(flushMaxPending);
+		}
+		if (slowConsumerBuffer > 0 && session instanceof SocketSession) {
+			((SocketSession) session).enableSlowConsumerBuffer(slowConsumerBuffer, slowConsumerTimeout, slowConsumerCoalesce);
+		}
+		return session;
+	}
+
 	/**
 	 * 处理好网络封包后派发逻辑.
 	 * 
@@ -105,6 +136,11 @@ public abstract class AbstractServerHandler<T> extends SimpleChannelInboundHandl
 				this.statPacket(session, packet);
 			}
 
+			// 封包限流，超出速率的封包不再进入业务线程
+			if (packetRateLimiter.isActive() && !packetRateLimiter.acquire(ctx.channel(), session, packet)) {
+				return;
+			}
+
 			// 封包检测
 			if (this.checkPacket(session, packet)) {
 				threadDispatcher.dispatchPacket(session, packet);
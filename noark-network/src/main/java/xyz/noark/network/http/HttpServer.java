@@ -26,11 +26,14 @@ import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import xyz.noark.core.annotation.Autowired;
 import xyz.noark.core.annotation.Service;
 import xyz.noark.core.annotation.Value;
 import xyz.noark.core.exception.ServerBootstrapException;
 import xyz.noark.core.network.TcpServer;
 import xyz.noark.core.thread.NamedThreadFactory;
+import xyz.noark.core.thread.ThreadDispatcher;
 import xyz.noark.network.NetworkConstant;
 
 /**
@@ -48,6 +51,13 @@ public class HttpServer implements TcpServer {
 	private int port = 0;
 	@Value(NetworkConstant.HTTP_SECRET_KEY)
 	private String secretKey = null;
+	/** 长连接空闲多少秒后关闭，0表示不使用长连接 */
+	@Value(NetworkConstant.HTTP_KEEPALIVE_TIMEOUT)
+	private int keepAliveTimeout = 60;
+
+	/** 没有线程调度器时（比如单独启动HTTP服务），接口就直接在IO线程中执行 */
+	@Autowired(required = false)
+	private ThreadDispatcher threadDispatcher;
 
 	/**
 	 * 设置端口.
@@ -67,6 +77,15 @@ public class HttpServer implements TcpServer {
 		this.secretKey = secretKey;
 	}
 
+	/**
+	 * 设置长连接空闲超时时间.
+	 * 
+	 * @param keepAliveTimeout 空闲多少秒后关闭，0表示不使用长连接
+	 */
+	public void setKeepAliveTimeout(int keepAliveTimeout) {
+		this.keepAliveTimeout = keepAliveTimeout;
+	}
+
 	@Override
 	public void startup() {
 		if (port <= 0) {
@@ -85,10 +104,13 @@ public class HttpServer implements TcpServer {
 			@Override
 			public void initChannel(SocketChannel ch) {
 				ChannelPipeline p = ch.pipeline();
+				if (keepAliveTimeout > 0) {
+					p.addLast(new IdleStateHandler(0, 0, keepAliveTimeout));
+				}
 				p.addLast(new HttpServerCodec());
 				p.addLast(new HttpObjectAggregator(65536));
 				p.addLast(new ChunkedWriteHandler());
-				p.addLast(new HttpServerHandler(secretKey));
+				p.addLast(new HttpServerHandler(secretKey, threadDispatcher, keepAliveTimeout > 0));
 			}
 		});
 
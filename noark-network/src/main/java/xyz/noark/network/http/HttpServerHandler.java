@@ -18,25 +18,34 @@ import static xyz.noark.log.LogHelper.logger;
 import java.io.IOException;
 import java.lang.reflect.Parameter;
 import java.net.InetSocketAddress;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
 import xyz.noark.core.converter.ConvertManager;
 import xyz.noark.core.converter.Converter;
 import xyz.noark.core.exception.ConvertException;
@@ -44,27 +53,49 @@ import xyz.noark.core.exception.UnrealizedException;
 import xyz.noark.core.ioc.manager.HttpMethodManager;
 import xyz.noark.core.ioc.wrap.method.HttpMethodWrapper;
 import xyz.noark.core.ioc.wrap.param.HttpParamWrapper;
+import xyz.noark.core.thread.ThreadDispatcher;
+import xyz.noark.core.util.CharsetUtils;
 import xyz.noark.core.util.IpUtils;
 import xyz.noark.core.util.Md5Utils;
 import xyz.noark.core.util.StringUtils;
 
 /**
  * HTTP封包处理逻辑类.
+ * <p>
+ * 支持HTTP/1.1长连接和管线化请求，接口交给{@link ThreadDispatcher}在业务线程中执行，<br>
+ * 执行完成的响应按请求的顺序写回，排在前面的请求还没完成时先暂存起来.
  *
  * @since 3.0
  * @author 小流氓(176543888@qq.com)
  */
 public class HttpServerHandler extends ChannelInboundHandlerAdapter {
-	private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+	private static final Object[] EMPTY_ARGS = new Object[0];
 	/** 签名Key... */
 	private static final String SIGN = "sign";
 	/** 时间戳Key... */
 	private static final String TIME = "time";
 
 	private final String secretKey;
+	private final ThreadDispatcher threadDispatcher;
+	/** 是否支持长连接 */
+	private final boolean keepAlive;
+
+	// 以下属性只在这个链接的IO线程中访问
+	/** 下一个请求的序号 */
+	private int requestSeq = 0;
+	/** 下一个要写出的响应序号 */
+	private int responseSeq = 0;
+	/** 已完成但还不能写出的响应，前面还有请求没有完成 */
+	private final Map<Integer, FullHttpResponse> pendingResponses = new HashMap<>();
 
 	public HttpServerHandler(String secretKey) {
+		this(secretKey, null, false);
+	}
+
+	public HttpServerHandler(String secretKey, ThreadDispatcher threadDispatcher, boolean keepAlive) {
 		this.secretKey = secretKey;
+		this.threadDispatcher = threadDispatcher;
+		this.keepAlive = keepAlive;
 	}
 
 	@Override
@@ -75,18 +106,25 @@ public class HttpServerHandler extends ChannelInboundHandlerAdapter {
 	@Override
 	public void channelRead(ChannelHandlerContext ctx, Object msg) {
 		if (msg instanceof FullHttpRequest) {
-			HttpResult result = this.exec(ctx, (FullHttpRequest) msg);
-			ByteBuf buf = Unpooled.wrappedBuffer(JSON.toJSONString(result).getBytes(DEFAULT_CHARSET));
-			FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, buf);
-			ctx.write(response).addListener(ChannelFutureListener.CLOSE);
+			FullHttpRequest request = (FullHttpRequest) msg;
+			try {
+				final int seq = requestSeq++;
+				final boolean close = !keepAlive || !HttpUtil.isKeepAlive(request);
+				this.exec(ctx, request, result -> this.writeResponse(ctx, seq, close, result));
+			} finally {
+				request.release();
+			}
+		} else {
+			ReferenceCountUtil.release(msg);
 		}
 	}
 
-	private HttpResult exec(ChannelHandlerContext ctx, FullHttpRequest fhr) {
+	private void exec(ChannelHandlerContext ctx, FullHttpRequest fhr, Consumer<HttpResult> responder) {
 		// 局域网判定
 		final String ip = ((InetSocketAddress) ctx.channel().remoteAddress()).getAddress().getHostAddress();
 		if (!IpUtils.isInnerIP(ip)) {
-			return new HttpResult(HttpErrorCode.NOT_AUTHORIZED, "client request's not authorized.");
+			responder.accept(new HttpResult(HttpErrorCode.NOT_AUTHORIZED, "client request's not authorized."));
+			return;
 		}
 
 		final long createTime = System.nanoTime();
@@ -94,28 +132,35 @@ public class HttpServerHandler extends ChannelInboundHandlerAdapter {
 
 		// API不存在...
 		if (handler == null) {
-			return new HttpResult(HttpErrorCode.NO_API, "client request's API Unrealized.");
+			responder.accept(new HttpResult(HttpErrorCode.NO_API, "client request's API Unrealized."));
+			return;
 		}
 
 		// 已废弃
 		if (handler.isDeprecated()) {
-			return new HttpResult(HttpErrorCode.API_DEPRECATED, "client request's API Deprecated.");
+			responder.accept(new HttpResult(HttpErrorCode.API_DEPRECATED, "client request's API Deprecated."));
+			return;
 		}
 
-		// 解析参数...
-		Map<String, String> parameters = Collections.emptyMap();
+		// 解析参数，直接从ByteBuf中解码字符串，不再中转一次byte[]
+		Map<String, String> parameters = null;
 		try {
 			final ByteBuf buf = fhr.content();
-			byte[] bs = new byte[buf.readableBytes()];
-			buf.readBytes(bs);
-			parameters = JSON.parseObject(new String(bs), new TypeReference<Map<String, String>>() {});
+			if (buf.isReadable()) {
+				parameters = JSON.parseObject(buf.toString(CharsetUtils.CHARSET_UTF_8), new TypeReference<Map<String, String>>() {});
+			}
 		} catch (Exception e) {
-			return new HttpResult(HttpErrorCode.PARAMETERS_INVALID, "client request's parameters not json.");
+			responder.accept(new HttpResult(HttpErrorCode.PARAMETERS_INVALID, "client request's parameters not json."));
+			return;
+		}
+		if (parameters == null) {
+			parameters = Collections.emptyMap();
 		}
 
 		// 验证签名，如果未配置密钥，将忽略对签名的验证...
 		if (secretKey != null && !checkSign(parameters.getOrDefault(TIME, StringUtils.EMPTY), parameters.get(SIGN))) {
-			return new HttpResult(HttpErrorCode.SIGN_FAILED, "client request's sign failed.");
+			responder.accept(new HttpResult(HttpErrorCode.SIGN_FAILED, "client request's sign failed."));
+			return;
 		}
 
 		// 参数解析...
@@ -124,35 +169,115 @@ public class HttpServerHandler extends ChannelInboundHandlerAdapter {
 			args = this.analysisParam(handler, fhr.uri(), parameters);
 		} catch (Exception e) {
 			logger.warn("解析HTTP参数异常.{}", e);
-			return new HttpResult(HttpErrorCode.PARAMETERS_INVALID, "client request's parameters are invalid, " + e.getMessage());
+			responder.accept(new HttpResult(HttpErrorCode.PARAMETERS_INVALID, "client request's parameters are invalid, " + e.getMessage()));
+			return;
 		}
 
-		// 逻辑执行...
-		final long startExecuteTime = System.nanoTime();
+		// 逻辑执行，执行完成后在业务线程中就把结果写成JSON，再交给IO线程写回...
 		try {
+			this.invoke(handler, args == null ? EMPTY_ARGS : args, (returnValue, e) -> {
+				logger.info("handle {},exe={} ms,ip={}", handler.logCode(), (System.nanoTime() - createTime) / 100_0000F, ip);
+				responder.accept(this.buildResult(returnValue, e));
+			});
+		} catch (Exception e) {
+			responder.accept(this.buildResult(null, e));
+		}
+	}
+
+	private void invoke(HttpMethodWrapper handler, Object[] args, BiConsumer<Object, Throwable> callback) {
+		// 没有线程调度器时，就直接在IO线程中执行
+		if (threadDispatcher == null) {
 			Object returnValue = null;
-			if (args == null) {
-				returnValue = handler.invoke();
-			} else {
+			try {
 				returnValue = handler.invoke(args);
+			} catch (Throwable e) {
+				callback.accept(null, e);
+				return;
 			}
+			callback.accept(returnValue, null);
+		} else {
+			threadDispatcher.dispatchHttp(handler, callback, args);
+		}
+	}
+
+	private HttpResult buildResult(Object returnValue, Throwable e) {
+		if (e != null) {
+			return new HttpResult(HttpErrorCode.INTERNAL_ERROR, "server internal error, " + e.getMessage());
+		}
 
-			// 如果返回值就是这个接口那就直接返回吧...
-			if (returnValue instanceof HttpResult) {
-				return (HttpResult) returnValue;
+		// 如果返回值就是这个接口那就直接返回吧...
+		if (returnValue instanceof HttpResult) {
+			return (HttpResult) returnValue;
+		}
+
+		HttpResult result = new HttpResult(HttpErrorCode.OK);
+		result.setData(returnValue);
+		return result;
+	}
+
+	/**
+	 * 把结果写成HTTP响应，可以在任意线程中调用，最终由这个链接的IO线程按请求顺序写出.
+	 */
+	void writeResponse(ChannelHandlerContext ctx, int seq, boolean close, HttpResult result) {
+		FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, this.encode(ctx, result));
+		response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+		HttpUtil.setContentLength(response, response.content().readableBytes());
+		HttpUtil.setKeepAlive(response, !close);
+
+		if (ctx.executor().inEventLoop()) {
+			this.flushResponse(ctx, seq, response);
+		} else {
+			try {
+				ctx.executor().execute(() -> this.flushResponse(ctx, seq, response));
+			} catch (RejectedExecutionException e) {
+				// HTTP服务已经停了，这个响应也就没有机会再写出了
+				response.release();
 			}
+		}
+	}
 
-			HttpResult result = new HttpResult(HttpErrorCode.OK);
-			result.setData(returnValue);
-			return result;
+	/**
+	 * 把结果以流的方式直接写成JSON到ByteBuf中，不再生成中间的字符串和byte[]
+	 */
+	private ByteBuf encode(ChannelHandlerContext ctx, HttpResult result) {
+		ByteBuf buf = ctx.alloc().buffer();
+		try (ByteBufOutputStream out = new ByteBufOutputStream(buf)) {
+			JSON.writeJSONString(out, result);
+			return buf;
 		} catch (Exception e) {
-			return new HttpResult(HttpErrorCode.INTERNAL_ERROR, "server internal error, " + e.getMessage());
-		} finally {
-			final long endExecuteTime = System.nanoTime();
-			logger.info("handle {},delay={} ms,exe={} ms,ip={}", handler.logCode(), (startExecuteTime - createTime) / 100_0000F, (endExecuteTime - startExecuteTime) / 100_0000F, ip);
+			buf.release();
+			logger.warn("HTTP接口返回值无法转化为JSON.{}", e);
+			return this.encode(ctx, new HttpResult(HttpErrorCode.INTERNAL_ERROR, "server internal error, " + e.getMessage()));
 		}
 	}
 
+	/**
+	 * 写出响应，只在IO线程中调用.
+	 * <p>
+	 * 管线化的请求必需按顺序响应，还没轮到的先暂存起来，等前面的响应写出后再一起写出.
+	 */
+	private void flushResponse(ChannelHandlerContext ctx, int seq, FullHttpResponse response) {
+		// 链接已断开，暂存的响应也已释放，晚到的响应不能再放进去了
+		if (!ctx.channel().isActive()) {
+			response.release();
+			return;
+		}
+		if (seq != responseSeq) {
+			pendingResponses.put(seq, response);
+			return;
+		}
+
+		FullHttpResponse next = response;
+		do {
+			responseSeq++;
+			ChannelFuture future = ctx.write(next);
+			if (!HttpUtil.isKeepAlive(next)) {
+				future.addListener(ChannelFutureListener.CLOSE);
+			}
+		} while (!pendingResponses.isEmpty() && (next = pendingResponses.remove(responseSeq)) != null);
+		ctx.flush();
+	}
+
 	public Object[] analysisParam(HttpMethodWrapper handler, String uri, Map<String, String> parameters) throws IOException {
 		// 如果没有参数，返回null.
 		if (handler.getParameters().isEmpty()) {
@@ -219,5 +344,21 @@ public class HttpServerHandler extends ChannelInboundHandlerAdapter {
 	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
 		super.channelInactive(ctx);
 		logger.debug("HTTP客户端断开链接. channel={}", ctx.channel());
+		// 没有机会再写出的响应要释放掉
+		pendingResponses.values().forEach(ReferenceCountUtil::release);
+		pendingResponses.clear();
+	}
+
+	@Override
+	public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+		// 长连接空闲超时，还有请求在处理中时先不关
+		if (evt instanceof IdleStateEvent) {
+			if (requestSeq == responseSeq) {
+				logger.debug("HTTP长连接空闲超时. channel={}", ctx.channel());
+				ctx.close();
+			}
+		} else {
+			super.userEventTriggered(ctx, evt);
+		}
 	}
 }
\ No newline at end of file
@@ -15,13 +15,18 @@ package xyz.noark.network.init;
 
 import static xyz.noark.log.LogHelper.logger;
 
+import java.util.zip.Deflater;
+
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.MessageToByteEncoder;
 import xyz.noark.core.annotation.Autowired;
 import xyz.noark.core.annotation.Component;
+import xyz.noark.core.annotation.Value;
 import xyz.noark.core.network.PacketCodecHolder;
+import xyz.noark.network.NetworkConstant;
 import xyz.noark.network.codec.AbstractPacketCodec;
+import xyz.noark.network.codec.PacketCompressor;
 import xyz.noark.network.handler.SocketServerHandler;
 
 /**
@@ -35,6 +40,14 @@ public class SocketInitializeHandler extends AbstractInitializeHandler {
 	public static final String SOCKET_NAME = "________socket_________";
 	@Autowired
 	private SocketServerHandler socketServerHandler;
+	/** 封包压缩阈值，0表示不压缩 */
+	@Value(NetworkConstant.COMPRESS_THRESHOLD)
+	private int compressThreshold = 0;
+	/** 封包压缩级别 */
+	@Value(NetworkConstant.COMPRESS_LEVEL)
+	private int compressLevel = Deflater.BEST_SPEED;
+	/** 所有链接共用的压缩器，压缩器内部都是线程本地的 */
+	private volatile PacketCompressor compressor;
 
 	@Override
 	public void handle(ChannelHandlerContext ctx) {
@@ -48,6 +61,11 @@ public class SocketInitializeHandler extends AbstractInitializeHandler {
 			pipeline.addLast("encoder", codec.lengthEncoder());
 		}
 
+		// 配置了压缩也只是允许压缩，链接默认不压缩，客户端通过Session明确申请后才开启
+		if (compressThreshold > 0) {
+			ctx.channel().attr(PacketCompressor.SUPPORTED_ATTR_KEY).set(getCompressor());
+		}
+
 		// Socket有封包长度解码器...
 		pipeline.addLast("decoder", codec.lengthDecoder());
 
@@ -56,4 +74,15 @@ public class SocketInitializeHandler extends AbstractInitializeHandler {
 		// Socket是在接到喑号后进行初始化的...
 		socketServerHandler.channelActive(ctx.channel());
 	}
+
+	private PacketCompressor getCompressor() {
+		if (compressor == null) {
+			synchronized (this) {
+				if (compressor == null) {
+					compressor = new PacketCompressor(compressThreshold, compressLevel);
+				}
+			}
+		}
+		return compressor;
+	}
 }
\ No newline at end of file
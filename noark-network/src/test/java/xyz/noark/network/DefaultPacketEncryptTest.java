@@ -13,11 +13,19 @@
  */
 package xyz.noark.network;
 
+import static org.junit.Assert.assertArrayEquals;
+
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Test;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.noark.benchmark.Benchmark;
 import xyz.noark.core.lang.ImmutableByteArray;
+import xyz.noark.core.util.StringUtils;
+import xyz.noark.network.codec.ByteBufWrapper;
 
 /**
  * 加密方案测试.
@@ -40,4 +48,48 @@ public class DefaultPacketEncryptTest {
 		encrypt.decode(array, 1);
 		System.out.println(Arrays.toString(array.array()));
 	}
+
+	@Test
+	public void testDecode() {
+		byte[] secretKey = "1234567".getBytes();
+		DefaultPacketEncrypt encrypt = new DefaultPacketEncrypt(true, secretKey);
+		byte[] publicKey = StringUtils.utf8Bytes(encrypt.getPublicKey());
+
+		Random random = new Random(1);
+		for (int length = 0; length < 300; length++) {
+			byte[] data = new byte[length];
+			random.nextBytes(data);
+			int incode = random.nextInt(0xFFFF);
+
+			// 逐字节的原始算法
+			byte[] expected = data.clone();
+			for (int i = 0; i < length; i++) {
+				expected[i] ^= secretKey[i % secretKey.length] ^ publicKey[i % publicKey.length] ^ (incode << 2);
+			}
+
+			ImmutableByteArray array = new ImmutableByteArray(data.clone());
+			encrypt.decode(array, incode);
+			assertArrayEquals(expected, array.array());
+
+			// 网络封包的ByteBuf前面还有包头
+			ByteBuf byteBuf = Unpooled.directBuffer().writeBytes(new byte[6]).writeBytes(data);
+			byteBuf.skipBytes(6);
+			try (ByteBufWrapper wrapper = new ByteBufWrapper(byteBuf)) {
+				encrypt.decode(wrapper, incode);
+				assertArrayEquals(expected, wrapper.array());
+			}
+		}
+	}
+
+	@Test
+	public void testBenchmark() throws Exception {
+		DefaultPacketEncrypt encrypt = new DefaultPacketEncrypt(true, "123456".getBytes());
+		ByteBuf byteBuf = Unpooled.directBuffer(1024 * 1024).writeZero(1024 * 1024);
+		ByteBufWrapper wrapper = new ByteBufWrapper(byteBuf);
+
+		// 每次解密1MB，跑100次的耗时就是100MB的耗时
+		Benchmark benchmark = new Benchmark(100);
+		benchmark.doSomething("decode 100MB:", () -> encrypt.decode(wrapper, 1));
+		wrapper.close();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import xyz.noark.core.lang.LatencyHistogram;
+
+/**
+ * 传输层实现的压力测试.
+ * <p>
+ * 用同样的回显服务分别测试NIO与当前系统最优的实现，对比每秒建立的链接数与请求往返的P99延迟.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class NettyTransportTest {
+	private static final int CONNECTIONS = 500;
+	private static final int REQUESTS = 5000;
+
+	@Test
+	public void testSelect() {
+		assertSame(NettyTransport.NIO, NettyTransport.select("nio"));
+		assertSame(NettyTransport.select("auto"), NettyTransport.select("unknown"));
+		if (!NettyTransport.IO_URING.isAvailable()) {
+			assertSame(NettyTransport.select("auto"), NettyTransport.select("io_uring"));
+		}
+	}
+
+	@Test
+	public void testLoad() throws Exception {
+		Set<NettyTransport> transports = new LinkedHashSet<>();
+		transports.add(NettyTransport.NIO);
+		transports.add(NettyTransport.select("auto"));
+		for (NettyTransport transport : transports) {
+			this.load(transport);
+		}
+	}
+
+	private void load(NettyTransport transport) throws Exception {
+		EventLoopGroup bossGroup = transport.newEventLoopGroup(1, new DefaultThreadFactory("test-boss"));
+		EventLoopGroup workGroup = transport.newEventLoopGroup(2, new DefaultThreadFactory("test-work"));
+		try {
+			ServerBootstrap bootstrap = new ServerBootstrap().group(bossGroup, workGroup).channel(transport.serverChannelClass());
+			bootstrap.option(ChannelOption.SO_BACKLOG, 1024).childOption(ChannelOption.TCP_NODELAY, true);
+			bootstrap.childHandler(new ChannelInitializer<Channel>() {
+				@Override
+				protected void initChannel(Channel ch) {
+					ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+						@Override
+						public void channelRead(ChannelHandlerContext ctx, Object msg) {
+							ctx.writeAndFlush(msg);
+						}
+
+						@Override
+						public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+							ctx.close();
+						}
+					});
+				}
+			});
+			Channel server = bootstrap.bind("127.0.0.1", 0).sync().channel();
+			InetSocketAddress address = (InetSocketAddress) server.localAddress();
+
+			// 每秒建立的链接数
+			long start = System.nanoTime();
+			for (int i = 0; i < CONNECTIONS; i++) {
+				new Socket(address.getAddress(), address.getPort()).close();
+			}
+			double connectionsPerSecond = CONNECTIONS * 1_000_000_000D / (System.nanoTime() - start);
+
+			// 请求往返的延迟
+			LatencyHistogram histogram = new LatencyHistogram();
+			try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+				socket.setTcpNoDelay(true);
+				OutputStream out = socket.getOutputStream();
+				InputStream in = socket.getInputStream();
+				for (int i = 0; i < REQUESTS; i++) {
+					long begin = System.nanoTime();
+					out.write(i & 0x7F);
+					out.flush();
+					assertEquals(i & 0x7F, in.read());
+					histogram.record(System.nanoTime() - begin);
+				}
+			}
+			System.out.println(transport + "\tconnections/s=" + (int) connectionsPerSecond + ", " + histogram.snapshot());
+			server.close().sync();
+		} finally {
+			bossGroup.shutdownGracefully().sync();
+			workGroup.shutdownGracefully().sync();
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.protobuf.StringValue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import xyz.noark.core.lang.ImmutableByteArray;
+import xyz.noark.core.lang.IntArrayList;
+import xyz.noark.core.network.NetworkProtocol;
+import xyz.noark.core.network.PacketCodecHolder;
+import xyz.noark.network.codec.protobuf.ProtobufCodec;
+
+/**
+ * 慢消费者的出站缓冲区测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class SlowConsumerBufferTest {
+	private final EmbeddedChannel channel = new EmbeddedChannel();
+
+	@Before
+	public void setUp() {
+		PacketCodecHolder.setPacketCodec(new ProtobufCodec());
+	}
+
+	@Test
+	public void testOffer() {
+		IntArrayList coalesceOpcodes = new IntArrayList();
+		coalesceOpcodes.add(2001);
+		SlowConsumerBuffer buffer = new SlowConsumerBuffer(channel, 100, 0, coalesceOpcodes);
+
+		// 可写时直接写出
+		assertTrue(buffer.offer(new ImmutableByteArray(40)));
+
+		this.setWritable(false);
+		assertFalse(buffer.offer(new ImmutableByteArray(40)));
+		assertFalse(buffer.offer(new ImmutableByteArray(40)));
+		assertEquals(2, buffer.getPending());
+
+		// 超出上限的丢弃
+		assertFalse(buffer.offer(new ImmutableByteArray(40)));
+		assertEquals(2, buffer.getPending());
+		assertEquals(1, buffer.getDroppedPackets());
+		assertEquals(40, buffer.getDroppedBytes());
+		assertTrue(buffer.dropIfBlocked(10));
+		assertEquals(50, buffer.getDroppedBytes());
+
+		// 可合并的协议只保留最新的
+		NetworkProtocol last = new NetworkProtocol(2001, StringValue.newBuilder().setValue("bb").build());
+		assertFalse(buffer.offer(new NetworkProtocol(2001, StringValue.newBuilder().setValue("a").build())));
+		assertFalse(buffer.offer(last));
+		assertEquals(3, buffer.getPending());
+		assertEquals(80 + 8, buffer.getPendingBytes());
+
+		// 恢复可写后按顺序写出
+		this.setWritable(true);
+		buffer.drain();
+		assertEquals(0, buffer.getPending());
+		assertEquals(3, channel.outboundMessages().size());
+		assertTrue(channel.readOutbound() instanceof ImmutableByteArray);
+		assertTrue(channel.readOutbound() instanceof ImmutableByteArray);
+		assertSame(last, channel.readOutbound());
+		assertTrue(buffer.offer(new ImmutableByteArray(40)));
+
+		// 断开时积压的都算丢弃
+		this.setWritable(false);
+		assertFalse(buffer.offer(new ImmutableByteArray(40)));
+		channel.close();
+		assertEquals(0, buffer.getPending());
+		assertEquals(3, buffer.getDroppedPackets());
+	}
+
+	@Test
+	public void testDeadline() throws InterruptedException {
+		SlowConsumerBuffer buffer = new SlowConsumerBuffer(channel, 100, 1, new IntArrayList());
+		this.setWritable(false);
+		assertFalse(buffer.offer(new ImmutableByteArray(40)));
+
+		Thread.sleep(1100);
+		channel.runScheduledPendingTasks();
+		assertFalse(channel.isOpen());
+		assertEquals(1, buffer.getDroppedPackets());
+	}
+
+	private void setWritable(boolean writable) {
+		channel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+		assertEquals(writable, channel.isWritable());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.protobuf.StringValue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import xyz.noark.core.lang.ByteArray;
+import xyz.noark.core.network.NetworkProtocol;
+import xyz.noark.network.codec.protobuf.ProtobufCodec;
+import xyz.noark.network.codec.protobuf.ProtobufLengthEncoder;
+
+/**
+ * 群发封包测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class BroadcastPacketTest {
+	private final ProtobufCodec codec = new ProtobufCodec();
+
+	@Test
+	public void testBroadcast() {
+		NetworkProtocol protocol = new NetworkProtocol(1001, StringValue.newBuilder().setValue("hello noark").build());
+		ByteArray single = codec.encodePacket(protocol);
+
+		EmbeddedChannel socket = new EmbeddedChannel(new ProtobufLengthEncoder());
+		EmbeddedChannel websocket = new EmbeddedChannel();
+
+		BroadcastPacket packet = (BroadcastPacket) codec.encodeBroadcast(protocol);
+		assertEquals(ByteBufUtil.hexDump(single.array()), ByteBufUtil.hexDump(packet.array()));
+		packet.write(socket, false);
+		packet.write(websocket, true);
+		packet.close();
+
+		// 关闭后才会在各自的EventLoop里写出
+		socket.runPendingTasks();
+		websocket.runPendingTasks();
+
+		ByteBuf frame = socket.readOutbound();
+		assertEquals(single.length(), frame.readShortLE());
+		assertEquals(ByteBufUtil.hexDump(single.array()), ByteBufUtil.hexDump(frame));
+
+		BinaryWebSocketFrame webSocketFrame = websocket.readOutbound();
+		assertEquals(ByteBufUtil.hexDump(single.array()), ByteBufUtil.hexDump(webSocketFrame.content()));
+
+		// 所有的引用都释放后，内存就回收了
+		assertTrue(webSocketFrame.release());
+		assertTrue(frame.release());
+		assertTrue(!socket.finish() && !websocket.finish());
+	}
+}
\ No newline at end of file
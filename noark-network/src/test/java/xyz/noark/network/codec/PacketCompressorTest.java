@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.google.protobuf.StringValue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import xyz.noark.core.network.NetworkProtocol;
+import xyz.noark.core.util.ZlibUtils;
+import xyz.noark.network.codec.protobuf.ProtobufLengthEncoder;
+
+/**
+ * 封包压缩器测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class PacketCompressorTest {
+
+	@Test
+	public void testCompress() {
+		char[] chars = new char[4096];
+		Arrays.fill(chars, 'n');
+		StringValue message = StringValue.newBuilder().setValue(new String(chars)).build();
+
+		EmbeddedChannel channel = new EmbeddedChannel(new ProtobufLengthEncoder());
+		channel.attr(PacketCompressor.ATTR_KEY).set(new PacketCompressor(1024, 1));
+		channel.writeOutbound(new NetworkProtocol(1001, message));
+		ByteBuf out = channel.readOutbound();
+
+		int length = out.readUnsignedShortLE();
+		assertEquals(out.readableBytes(), length);
+		assertEquals(1001 | PacketCompressor.COMPRESS_FLAG, out.readUnsignedShortLE());
+		byte[] body = new byte[out.readableBytes()];
+		out.readBytes(body);
+		assertArrayEquals(message.toByteArray(), ZlibUtils.uncompress(body));
+		out.release();
+		channel.finishAndReleaseAll();
+	}
+
+	@Test
+	public void testOptIn() {
+		char[] chars = new char[4096];
+		Arrays.fill(chars, 'n');
+		StringValue message = StringValue.newBuilder().setValue(new String(chars)).build();
+
+		// 服务器配置了压缩，但客户端没有申请，还是不压缩
+		EmbeddedChannel channel = new EmbeddedChannel(new ProtobufLengthEncoder());
+		channel.attr(PacketCompressor.SUPPORTED_ATTR_KEY).set(new PacketCompressor(1024, 1));
+		channel.writeOutbound(new NetworkProtocol(1001, message));
+		ByteBuf out = channel.readOutbound();
+		out.skipBytes(2);
+		assertEquals(1001, out.readUnsignedShortLE());
+		out.release();
+
+		// 客户端申请后才压缩
+		assertTrue(PacketCompressor.enable(channel));
+		channel.writeOutbound(new NetworkProtocol(1001, message));
+		out = channel.readOutbound();
+		out.skipBytes(2);
+		assertEquals(1001 | PacketCompressor.COMPRESS_FLAG, out.readUnsignedShortLE());
+		out.release();
+
+		// 服务器没有配置压缩时，申请了也不会开启
+		assertFalse(PacketCompressor.enable(new EmbeddedChannel()));
+		channel.finishAndReleaseAll();
+	}
+
+	@Test
+	public void testNotCompress() {
+		StringValue message = StringValue.newBuilder().setValue("hello noark").build();
+
+		EmbeddedChannel channel = new EmbeddedChannel(new ProtobufLengthEncoder());
+		channel.attr(PacketCompressor.ATTR_KEY).set(new PacketCompressor(1024, 1));
+		channel.writeOutbound(new NetworkProtocol(1001, message));
+		ByteBuf out = channel.readOutbound();
+
+		assertEquals(message.getSerializedSize() + 2, out.readUnsignedShortLE());
+		assertEquals(1001, out.readUnsignedShortLE());
+		out.release();
+		channel.finishAndReleaseAll();
+	}
+}
\ No newline at end of file
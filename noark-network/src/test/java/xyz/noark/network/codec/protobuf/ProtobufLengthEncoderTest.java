@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.codec.protobuf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.protobuf.StringValue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.embedded.EmbeddedChannel;
+import xyz.noark.core.network.NetworkProtocol;
+
+/**
+ * Protobuf长度编码器测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class ProtobufLengthEncoderTest {
+	private final ProtobufCodec codec = new ProtobufCodec();
+
+	@Test
+	public void testEncodeOutbound() {
+		StringValue.Builder builder = StringValue.newBuilder().setValue("hello noark");
+		NetworkProtocol protocol = new NetworkProtocol(1001, builder);
+
+		// 先编码成数组再写长度的老路子
+		EmbeddedChannel channel = new EmbeddedChannel(new ProtobufLengthEncoder());
+		assertTrue(channel.writeOutbound(codec.encodePacket(protocol)));
+		ByteBuf expected = channel.readOutbound();
+
+		// 直接写入ByteBuf
+		Object outbound = codec.encodeOutbound(protocol);
+		assertTrue(((NetworkProtocol) outbound).getProtocol() instanceof StringValue);
+		assertTrue(channel.writeOutbound(outbound));
+		ByteBuf actual = channel.readOutbound();
+
+		assertEquals(ByteBufUtil.hexDump(expected), ByteBufUtil.hexDump(actual));
+		assertEquals(builder.build().getSerializedSize() + 4, actual.readableBytes());
+		expected.release();
+		actual.release();
+		channel.finishAndReleaseAll();
+	}
+}
\ No newline at end of file
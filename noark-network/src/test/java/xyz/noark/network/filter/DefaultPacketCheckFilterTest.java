@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import xyz.noark.benchmark.Benchmark;
+
+/**
+ * 默认封包检测过滤器测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class DefaultPacketCheckFilterTest {
+
+	@Test
+	public void testChecksum() {
+		Random random = new Random(1);
+		for (int length : new int[] { 0, 1, 7, 8, 9, 63, 1023, 1024, 1025, 65535 }) {
+			byte[] data = new byte[length];
+			random.nextBytes(data);
+
+			int expected = 0;
+			for (byte b : data) {
+				expected += b & 0xFF;
+			}
+
+			ByteBuf byteBuf = Unpooled.directBuffer().writeBytes(new byte[6]).writeBytes(data);
+			byteBuf.skipBytes(6);
+			assertEquals(expected, DefaultPacketCheckFilter.checksum(byteBuf));
+			byteBuf.release();
+		}
+
+		// 全是0xFF时每个通道都会加满
+		ByteBuf byteBuf = Unpooled.buffer().writeBytes(new byte[] { -1, -1, -1, -1, -1, -1, -1, -1 });
+		for (int i = 0; i < 12; i++) {
+			byteBuf.writeBytes(byteBuf, 0, byteBuf.readableBytes());
+		}
+		assertEquals(byteBuf.readableBytes() * 0xFF, DefaultPacketCheckFilter.checksum(byteBuf));
+	}
+
+	@Test
+	public void testBenchmark() throws Exception {
+		ByteBuf byteBuf = Unpooled.directBuffer(1024 * 1024).writeZero(1024 * 1024);
+
+		// 每次计算1MB，跑100次的耗时就是100MB的耗时
+		Benchmark benchmark = new Benchmark(100);
+		benchmark.doSomething("checksum 100MB:", () -> DefaultPacketCheckFilter.checksum(byteBuf));
+		byteBuf.release();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import xyz.noark.core.network.NetworkPacket;
+import xyz.noark.core.network.Session;
+import xyz.noark.network.codec.DefaultNetworkPacket;
+
+/**
+ * 封包限流器测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class PacketRateLimiterTest {
+	private final Session session = (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Session.class }, (proxy, method, args) -> "getIp".equals(method.getName()) ? "127.0.0.1" : null);
+
+	@Test
+	public void testDrop() {
+		PacketRateLimiter limiter = new PacketRateLimiter(3, 0, 0, 0, "", RateLimitAction.DROP);
+		EmbeddedChannel channel = new EmbeddedChannel();
+		for (int i = 0; i < 3; i++) {
+			assertTrue(limiter.acquire(channel, session, packet(1001, 10)));
+		}
+		assertFalse(limiter.acquire(channel, session, packet(1001, 10)));
+		assertTrue(channel.isOpen());
+
+		// 字节数超出
+		limiter = new PacketRateLimiter(0, 100, 0, 0, "", RateLimitAction.DROP);
+		channel = new EmbeddedChannel();
+		assertTrue(limiter.acquire(channel, session, packet(1001, 100)));
+		assertFalse(limiter.acquire(channel, session, packet(1001, 100)));
+	}
+
+	@Test
+	public void testOpcodeClass() {
+		PacketRateLimiter limiter = new PacketRateLimiter(0, 0, 0, 0, "2001-2099:1,3001:2", RateLimitAction.DROP);
+		EmbeddedChannel channel = new EmbeddedChannel();
+		assertTrue(limiter.acquire(channel, session, packet(2001, 10)));
+		assertFalse(limiter.acquire(channel, session, packet(2050, 10)));
+		assertTrue(limiter.acquire(channel, session, packet(3001, 10)));
+		assertTrue(limiter.acquire(channel, session, packet(3001, 10)));
+		assertFalse(limiter.acquire(channel, session, packet(3001, 10)));
+		assertTrue(limiter.acquire(channel, session, packet(1001, 10)));
+	}
+
+	@Test
+	public void testIp() {
+		PacketRateLimiter limiter = new PacketRateLimiter(0, 0, 4, 0, "", RateLimitAction.DROP);
+		EmbeddedChannel channel1 = new EmbeddedChannel();
+		EmbeddedChannel channel2 = new EmbeddedChannel();
+		for (int i = 0; i < 2; i++) {
+			assertTrue(limiter.acquire(channel1, session, packet(1001, 10)));
+			assertTrue(limiter.acquire(channel2, session, packet(1001, 10)));
+		}
+		assertFalse(limiter.acquire(channel1, session, packet(1001, 10)));
+		assertFalse(limiter.acquire(channel2, session, packet(1001, 10)));
+		assertEquals(1, limiter.getIpCount());
+
+		// 同一IP的链接全断开后就移除了
+		channel1.close();
+		assertEquals(1, limiter.getIpCount());
+		channel2.close();
+		assertEquals(0, limiter.getIpCount());
+	}
+
+	@Test
+	public void testDelay() throws InterruptedException {
+		PacketRateLimiter limiter = new PacketRateLimiter(1000, 0, 0, 0, "", RateLimitAction.DELAY);
+		EmbeddedChannel channel = new EmbeddedChannel();
+		boolean limited = false;
+		for (int i = 0; i < 100_000 && !limited; i++) {
+			assertTrue(limiter.acquire(channel, session, packet(1001, 10)));
+			limited = !channel.config().isAutoRead();
+		}
+		assertTrue(limited);
+
+		// 令牌够了就恢复读取
+		Thread.sleep(20);
+		channel.runScheduledPendingTasks();
+		assertTrue(channel.config().isAutoRead());
+	}
+
+	@Test
+	public void testDisconnect() {
+		PacketRateLimiter limiter = new PacketRateLimiter(1, 0, 0, 0, "", RateLimitAction.DISCONNECT);
+		EmbeddedChannel channel = new EmbeddedChannel();
+		assertTrue(limiter.acquire(channel, session, packet(1001, 10)));
+		assertFalse(limiter.acquire(channel, session, packet(1001, 10)));
+		assertFalse(channel.isOpen());
+	}
+
+	@Test
+	public void testTokenBucket() {
+		TokenBucket bucket = new TokenBucket(10, 0);
+		assertTrue(bucket.tryAcquire(10, 0));
+		assertFalse(bucket.tryAcquire(1, 0));
+		assertEquals(100_000_000L, bucket.waitNanos(1, 0));
+		assertTrue(bucket.tryAcquire(1, 100_000_000L));
+		// 超过容量的请求按容量算
+		assertTrue(bucket.tryAcquire(100, 2_000_000_000L));
+	}
+
+	private static NetworkPacket packet(int opcode, int length) {
+		DefaultNetworkPacket packet = new DefaultNetworkPacket();
+		packet.setOpcode(opcode);
+		packet.setLength(length);
+		return packet;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.network.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.alibaba.fastjson.JSON;
+
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledHeapByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpResponse;
+
+import xyz.noark.core.util.CharsetUtils;
+
+/**
+ * HTTP长连接与管线化测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class HttpServerHandlerTest {
+	private static HttpServer httpServer;
+	private static int port;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		httpServer = new HttpServer();
+		httpServer.setPort(port);
+		httpServer.startup();
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		httpServer.shutdown();
+	}
+
+	@Test
+	public void testPipelining() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			// 一次发出三个请求，响应要按顺序回来，而且不能断开链接
+			OutputStream out = socket.getOutputStream();
+			out.write((request("/api/a/", true) + request("/api/b/", true) + request("/api/c/", true)).getBytes(CharsetUtils.CHARSET_UTF_8));
+			out.flush();
+
+			InputStream in = socket.getInputStream();
+			for (int i = 0; i < 3; i++) {
+				String[] response = readResponse(in);
+				assertFalse(response[0].contains("connection: close"));
+				assertEquals(HttpErrorCode.NO_API, JSON.parseObject(response[1], HttpResult.class).getReq());
+			}
+
+			// 同一个链接还能继续使用，要求关闭的请求响应后就断开
+			out.write(request("/api/d/", false).getBytes(CharsetUtils.CHARSET_UTF_8));
+			out.flush();
+			String[] response = readResponse(in);
+			assertTrue(response[0].contains("connection: close"));
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	public void testOutOfOrder() {
+		RecordAllocator allocator = new RecordAllocator();
+		HttpServerHandler handler = new HttpServerHandler(null, null, true);
+		EmbeddedChannel channel = new EmbeddedChannel(handler);
+		channel.config().setAllocator(allocator);
+		ChannelHandlerContext ctx = channel.pipeline().context(handler);
+
+		// 后面的请求先完成，要等前面的完成后再按顺序一起写出
+		handler.writeResponse(ctx, 1, false, new HttpResult(HttpErrorCode.OK, "b"));
+		assertNull(channel.readOutbound());
+		handler.writeResponse(ctx, 0, false, new HttpResult(HttpErrorCode.OK, "a"));
+		assertEquals("a", readResult(channel).getMsg());
+		assertEquals("b", readResult(channel).getMsg());
+
+		// 断开时暂存的响应要释放，断开后才完成的响应也直接释放，不能再暂存了
+		handler.writeResponse(ctx, 3, false, new HttpResult(HttpErrorCode.OK, "d"));
+		channel.close();
+		handler.writeResponse(ctx, 4, false, new HttpResult(HttpErrorCode.OK, "e"));
+		assertEquals(4, allocator.buffers.size());
+		for (ByteBuf buf : allocator.buffers) {
+			assertEquals(0, buf.refCnt());
+		}
+		assertNull(channel.readOutbound());
+	}
+
+	private static HttpResult readResult(EmbeddedChannel channel) {
+		FullHttpResponse response = channel.readOutbound();
+		try {
+			return JSON.parseObject(response.content().toString(CharsetUtils.CHARSET_UTF_8), HttpResult.class);
+		} finally {
+			response.release();
+		}
+	}
+
+	/**
+	 * 记录分配出去的缓冲区，用来检测是否都释放了.
+	 */
+	private static class RecordAllocator extends AbstractByteBufAllocator {
+		private final List<ByteBuf> buffers = new ArrayList<>();
+
+		@Override
+		protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+			ByteBuf buf = new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
+			buffers.add(buf);
+			return buf;
+		}
+
+		@Override
+		protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+			return this.newHeapBuffer(initialCapacity, maxCapacity);
+		}
+
+		@Override
+		public boolean isDirectBufferPooled() {
+			return false;
+		}
+	}
+
+	private static String request(String uri, boolean keepAlive) {
+		return "GET " + uri + " HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: " + (keepAlive ? "keep-alive" : "close") + "\r\nContent-Length: 0\r\n\r\n";
+	}
+
+	/** 读取一个响应，返回响应头和响应内容 */
+	private static String[] readResponse(InputStream in) throws IOException {
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		while (!header.toString("UTF-8").endsWith("\r\n\r\n")) {
+			int b = in.read();
+			if (b == -1) {
+				throw new IOException("connection closed");
+			}
+			header.write(b);
+		}
+
+		String head = header.toString("UTF-8").toLowerCase();
+		int begin = head.indexOf("content-length:") + "content-length:".length();
+		int length = Integer.parseInt(head.substring(begin, head.indexOf("\r\n", begin)).trim());
+		byte[] body = new byte[length];
+		for (int offset = 0; offset < length;) {
+			offset += in.read(body, offset, length - offset);
+		}
+		return new String[] { head, new String(body, CharsetUtils.CHARSET_UTF_8) };
+	}
+}
\ No newline at end of file
@@ -29,5 +29,15 @@ public final class DataConstant {
 	 * 停止服务时存储数据最大等待时间，单位：分钟
 	 */
 	public static final int SHUTDOWN_MAX_TIME = 10;
+
+	/**
+	 * 默认的回写线程数
+	 */
+	public static final int DEFAULT_FLUSH_THREADS = 4;
+
+	/**
+	 * 回写失败的操作默认最多重试的次数
+	 */
+	public static final int DEFAULT_FLUSH_MAX_RETRIES = 3;
 	
 }
@@ -20,6 +20,7 @@ import xyz.noark.core.annotation.Autowired;
 import xyz.noark.core.annotation.Component;
 import xyz.noark.core.annotation.Value;
 import xyz.noark.orm.accessor.DataAccessor;
+import xyz.noark.orm.write.AsyncWriteConfig;
 import xyz.noark.orm.write.AsyncWriteService;
 
 /**
@@ -34,6 +35,18 @@ public class DataModular implements Modular {
 	public static final String DATA_SAVE_INTERVAL = "data.save.interval";
 	/** 服务器数据缓存间隔，单位：秒，默认值：1小时 */
 	public static final String DATA_OFFLINE_INTERVAL = "data.offline.interval";
+	/** 异步回写的线程数，即同时访问DB的回写数量上限，默认值：4 */
+	public static final String DATA_FLUSH_THREADS = "data.flush.threads";
+	/** 回写失败的操作最多重试的次数，超过后写入死信日志并放弃，默认值：3 */
+	public static final String DATA_FLUSH_MAX_RETRIES = "data.flush.max.retries";
+	/** 是否开启异步回写的预写日志，默认值：false */
+	public static final String DATA_JOURNAL_ENABLED = "data.journal.enabled";
+	/** 预写日志的存放目录，默认值：journal */
+	public static final String DATA_JOURNAL_DIR = "data.journal.dir";
+	/** 预写日志每个日志段的大小，单位：MB，默认值：64 */
+	public static final String DATA_JOURNAL_SEGMENT_SIZE = "data.journal.segment.size";
+	/** 预写日志的刷盘间隔，单位：毫秒，默认值：100 */
+	public static final String DATA_JOURNAL_SYNC_INTERVAL = "data.journal.sync.interval";
 	/** 数据存储默认开启下划线命名方式检测 */
 	public static boolean CheckUnderScoreCase = true;
 
@@ -42,6 +55,18 @@ public class DataModular implements Modular {
 	private int saveInterval = 300;
 	@Value(DataModular.DATA_OFFLINE_INTERVAL)
 	private int offlineInterval = 3600;
+	@Value(DataModular.DATA_FLUSH_THREADS)
+	private int flushThreads = DataConstant.DEFAULT_FLUSH_THREADS;
+	@Value(DataModular.DATA_FLUSH_MAX_RETRIES)
+	private int flushMaxRetries = DataConstant.DEFAULT_FLUSH_MAX_RETRIES;
+	@Value(DataModular.DATA_JOURNAL_ENABLED)
+	private boolean journalEnabled = false;
+	@Value(DataModular.DATA_JOURNAL_DIR)
+	private String journalDir = "journal";
+	@Value(DataModular.DATA_JOURNAL_SEGMENT_SIZE)
+	private int journalSegmentSize = 64;
+	@Value(DataModular.DATA_JOURNAL_SYNC_INTERVAL)
+	private int journalSyncInterval = 100;
 	@Autowired
 	private DataAccessor dataAccessor;
 	@Autowired
@@ -50,8 +75,17 @@ public class DataModular implements Modular {
 	@Override
 	public void init() {
 		dataAccessor.judgeAccessType();
-		logger.info("初始化数据存储模块，定时存档的时间间隔为 {}秒, 离线玩家在内存中的存活时间为 {}秒", saveInterval, offlineInterval);
-		asyncWriteService.init(saveInterval, offlineInterval);
+		logger.info("初始化数据存储模块，定时存档的时间间隔为 {}秒, 离线玩家在内存中的存活时间为 {}秒, 回写线程数为 {}", saveInterval, offlineInterval, flushThreads);
+		AsyncWriteConfig config = new AsyncWriteConfig();
+		config.setSaveInterval(saveInterval);
+		config.setOfflineInterval(offlineInterval);
+		config.setFlushThreads(flushThreads);
+		config.setFlushMaxRetries(flushMaxRetries);
+		config.setJournalEnabled(journalEnabled);
+		config.setJournalDir(journalDir);
+		config.setJournalSegmentSize(journalSegmentSize * 1024 * 1024);
+		config.setJournalSyncInterval(journalSyncInterval);
+		asyncWriteService.init(config);
 	}
 
 	@Override
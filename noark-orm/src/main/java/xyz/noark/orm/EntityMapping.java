@@ -41,6 +41,8 @@ public class EntityMapping<T> {
 
 	/** 抓取策略 */
 	protected final FetchType fetchType;
+	/** 是否开启脏数据检测 */
+	private final boolean dirtyCheck;
 	/** 表名 */
 	protected String tableName;
 	/** 注释 */
@@ -62,6 +64,7 @@ public class EntityMapping<T> {
 		this.klass = klass;
 		Entity entity = klass.getAnnotation(Entity.class);
 		this.fetchType = entity.fetch();
+		this.dirtyCheck = entity.dirtyCheck();
 		this.methodAccess = MethodAccess.get(klass);
 		this.constructorAccess = ConstructorAccess.get(klass);
 	}
@@ -70,6 +73,10 @@ public class EntityMapping<T> {
 		return fetchType;
 	}
 
+	public boolean isDirtyCheck() {
+		return dirtyCheck;
+	}
+
 	public String getTableName() {
 		return tableName;
 	}
@@ -146,6 +153,10 @@ public class EntityMapping<T> {
 		this.lastModifiedDate = lastModifiedDate;
 	}
 
+	public FieldMapping getLastModifiedDate() {
+		return lastModifiedDate;
+	}
+
 	/**
 	 * 构造一个回写数据的唯一Key.
 	 * <p>
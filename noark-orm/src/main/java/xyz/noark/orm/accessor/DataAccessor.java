@@ -17,6 +17,7 @@ import java.io.Serializable;
 import java.util.List;
 
 import xyz.noark.orm.EntityMapping;
+import xyz.noark.orm.FieldMapping;
 
 /**
  * 数据访问策略接口.
@@ -70,6 +71,50 @@ public interface DataAccessor {
 	 */
 	public <T> int update(EntityMapping<T> em, T entity);
 
+	/**
+	 * 批量插入数据.
+	 * <p>
+	 * 同一个表的数据共用一个链接和一个预编译语句，通过批处理提交，减少与DB的交互次数.<br>
+	 * 批量操作使用的都是{@link #encode(EntityMapping, Object)}编码好的字段值，不再接触实体对象.
+	 * 
+	 * @param <T> 实体对象类型
+	 * @param em 对象实体描述类.
+	 * @param rows 每条数据的各字段值，顺序与{@link EntityMapping#getFieldMapping()}一致.
+	 * @return 返回每条数据所受影响行数.
+	 */
+	public <T> int[] batchInsert(EntityMapping<T> em, List<Object[]> rows);
+
+	/**
+	 * 批量删除数据.
+	 * 
+	 * @param <T> 实体对象类型
+	 * @param em 对象实体描述类.
+	 * @param ids 主键值列表.
+	 * @return 返回每条数据所受影响行数.
+	 */
+	public <T> int[] batchDelete(EntityMapping<T> em, List<Serializable> ids);
+
+	/**
+	 * 批量修改数据的部分字段.
+	 * 
+	 * @param <T> 实体对象类型
+	 * @param em 对象实体描述类.
+	 * @param columns 需要修改的字段.
+	 * @param rows 每条数据需要修改的字段值，顺序与columns一致，最后一个为主键值.
+	 * @return 返回每条数据所受影响行数.
+	 */
+	public <T> int[] batchUpdate(EntityMapping<T> em, List<FieldMapping> columns, List<Object[]> rows);
+
+	/**
+	 * 把实体对象编码为各字段存储时的值.
+	 * 
+	 * @param <T> 实体对象类型
+	 * @param em 对象实体描述类.
+	 * @param entity 对象数据.
+	 * @return 各字段存储时的值，顺序与{@link EntityMapping#getFieldMapping()}一致.
+	 */
+	public <T> Object[] encode(EntityMapping<T> em, T entity);
+
 	/**
 	 * 加载一个指定ID的数据.
 	 * 
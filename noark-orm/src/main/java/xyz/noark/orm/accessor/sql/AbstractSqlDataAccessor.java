@@ -15,6 +15,7 @@ package xyz.noark.orm.accessor.sql;
 
 import static xyz.noark.log.LogHelper.logger;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -24,6 +25,7 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.sql.DataSource;
@@ -53,6 +55,8 @@ public abstract class AbstractSqlDataAccessor extends AbstractDataAccessor {
 	protected int slowQuerySqlMillis = 0;
 	/** 自动删除表中多余的字段 */
 	private boolean autoAlterTableDropColumn = false;
+	/** 批处理时一次最多提交的数据条数，太大了可能会超过max_allowed_packet */
+	protected int batchSize = 1000;
 
 	public AbstractSqlDataAccessor(SqlExpert expert, DataSource dataSource) {
 		this.expert = expert;
@@ -80,6 +84,10 @@ public abstract class AbstractSqlDataAccessor extends AbstractDataAccessor {
 		this.autoAlterTableDropColumn = autoAlterTableDropColumn;
 	}
 
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
 	protected <T> T executeStatement(StatementCallback<T> action) {
 		try (Connection con = dataSource.getConnection(); Statement stmt = con.createStatement()) {
 			return action.doInStatement(stmt);
@@ -100,6 +108,49 @@ public abstract class AbstractSqlDataAccessor extends AbstractDataAccessor {
 		}
 	}
 
+	/**
+	 * 批量执行同一个SQL.
+	 * <p>
+	 * 所有数据共用一个链接和一个预编译语句，每{@link #batchSize}条提交一次，<br>
+	 * 链接参数中开启rewriteBatchedStatements后，MySQL驱动会把批量插入改写为一条多值的INSERT语句.
+	 * <p>
+	 * 执行失败时抛出的{@link BatchUpdateException}中带有所有数据的影响行数，<br>
+	 * 前面几批已经提交了，驱动也可能跳过失败的那条继续执行，只有{@link Statement#EXECUTE_FAILED}的才是没有保存的.
+	 * 
+	 * @param setter 设置每条数据参数的回调
+	 * @param sql 预编译的SQL
+	 * @param entitys 数据列表
+	 * @return 返回每条数据所受影响行数
+	 */
+	protected <T> int[] executeBatch(BatchPreparedStatementSetter<T> setter, String sql, List<T> entitys) {
+		return this.execute((pstmt) -> {
+			final int[] result = new int[entitys.size()];
+			int offset = 0, count = 0;
+			for (T entity : entitys) {
+				setter.setValues(pstmt, entity);
+				pstmt.addBatch();
+
+				// 攒够一批或最后一条了，那就提交
+				if (++count == batchSize || offset + count == result.length) {
+					int[] rows;
+					try {
+						rows = pstmt.executeBatch();
+					} catch (BatchUpdateException e) {
+						int[] counts = e.getUpdateCounts() == null ? new int[0] : e.getUpdateCounts();
+						System.arraycopy(counts, 0, result, offset, Math.min(counts.length, count));
+						// 驱动没有执行的和后面还没提交的都算失败
+						Arrays.fill(result, offset + Math.min(counts.length, count), result.length, Statement.EXECUTE_FAILED);
+						throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), result, e);
+					}
+					System.arraycopy(rows, 0, result, offset, rows.length);
+					offset += count;
+					count = 0;
+				}
+			}
+			return result;
+		}, sql);
+	}
+
 	private void logExecutableSql(PreparedStatementProxy statement, String sql, long startTime) {
 		// 不输出，直接忽略所有.
 		if (!statementExecutableSqlLogEnable) {
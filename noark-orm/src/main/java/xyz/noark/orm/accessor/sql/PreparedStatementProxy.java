@@ -45,6 +45,14 @@ public class PreparedStatementProxy {
 		return pstmt.executeQuery();
 	}
 
+	public void addBatch() throws SQLException {
+		pstmt.addBatch();
+	}
+
+	public int[] executeBatch() throws SQLException {
+		return pstmt.executeBatch();
+	}
+
 	public void setObject(int parameterIndex, Object x) throws SQLException {
 		if (statementParameterSetLogEnable) {
 			parameters.add(x);
@@ -13,6 +13,8 @@
  */
 package xyz.noark.orm.accessor.sql;
 
+import java.util.List;
+
 import xyz.noark.orm.EntityMapping;
 import xyz.noark.orm.FieldMapping;
 
@@ -50,6 +52,16 @@ public interface SqlExpert {
 	 */
 	<T> String genUpdateSql(EntityMapping<T> em);
 
+	/**
+	 * 获取只更新部分字段的SQL语句.
+	 * 
+	 * @param <T> 实体对象类型
+	 * @param em 实体映射对象
+	 * @param columns 需要更新的字段
+	 * @return SQL语句
+	 */
+	<T> String genPartialUpdateSql(EntityMapping<T> em, List<FieldMapping> columns);
+
 	/**
 	 * 以玩家ID的方式去查询SQL语句.
 	 * 
@@ -45,19 +45,27 @@ public class MysqlDataAccessor extends AbstractSqlDataAccessor {
 	@Override
 	public <T> int insert(final EntityMapping<T> em, final T entity) {
 		class InsertPreparedStatementCallback implements PreparedStatementCallback<Integer> {
-			private int index = 1;
-
 			@Override
 			public Integer doInPreparedStatement(PreparedStatementProxy pstmt) throws Exception {
-				for (FieldMapping fm : em.getFieldMapping()) {
-					setPstmtParameter(em, fm, pstmt, entity, index++);
-				}
+				setInsertParameter(em, pstmt, entity);
 				return pstmt.executeUpdate();
 			}
 		}
 		return execute(new InsertPreparedStatementCallback(), expert.genInsertSql(em));
 	}
 
+	@Override
+	public <T> int[] batchInsert(final EntityMapping<T> em, final List<Object[]> rows) {
+		return executeBatch(this::setRowParameter, expert.genInsertSql(em), rows);
+	}
+
+	private <T> void setInsertParameter(EntityMapping<T> em, PreparedStatementProxy pstmt, T entity) throws Exception {
+		int index = 1;
+		for (FieldMapping fm : em.getFieldMapping()) {
+			setPstmtParameter(em, fm, pstmt, entity, index++);
+		}
+	}
+
 	@Override
 	public <T> int delete(final EntityMapping<T> em, final T entity) {
 		return delete(em, em.getPrimaryIdValue(entity));
@@ -74,28 +82,59 @@ public class MysqlDataAccessor extends AbstractSqlDataAccessor {
 		return execute(new DeletePreparedStatementCallback(), expert.genDeleteSql(em));
 	}
 
+	@Override
+	public <T> int[] batchDelete(final EntityMapping<T> em, final List<Serializable> ids) {
+		return executeBatch((pstmt, id) -> pstmt.setObject(1, id), expert.genDeleteSql(em), ids);
+	}
+
 	@Override
 	public <T> int update(final EntityMapping<T> em, final T entity) {
 		class UpdatePreparedStatementCallback implements PreparedStatementCallback<Integer> {
-			private int index = 1;
-
 			@Override
 			public Integer doInPreparedStatement(PreparedStatementProxy pstmt) throws Exception {
-				// 非主键
-				for (FieldMapping fm : em.getFieldMapping()) {
-					if (fm.isPrimaryId()) {
-						continue;
-					}
-					setPstmtParameter(em, fm, pstmt, entity, index++);
-				}
-				// 主键
-				setPstmtParameter(em, em.getPrimaryId(), pstmt, entity, index);
+				setUpdateParameter(em, pstmt, entity);
 				return pstmt.executeUpdate();
 			}
 		}
 		return execute(new UpdatePreparedStatementCallback(), expert.genUpdateSql(em));
 	}
 
+	@Override
+	public <T> int[] batchUpdate(final EntityMapping<T> em, final List<FieldMapping> columns, final List<Object[]> rows) {
+		return executeBatch(this::setRowParameter, expert.genPartialUpdateSql(em, columns), rows);
+	}
+
+	/** 编码好的字段值按顺序设置到参数中 */
+	private void setRowParameter(PreparedStatementProxy pstmt, Object[] row) throws SQLException {
+		for (int i = 0; i < row.length; i++) {
+			pstmt.setObject(i + 1, row[i]);
+		}
+	}
+
+	@Override
+	public <T> Object[] encode(final EntityMapping<T> em, final T entity) {
+		List<FieldMapping> fields = em.getFieldMapping();
+		Object[] values = new Object[fields.size()];
+		for (int i = 0; i < values.length; i++) {
+			FieldMapping fm = fields.get(i);
+			values[i] = ValueAdaptorManager.getValueAdaptor(fm.getType()).parameterToColumnValue(em, fm, entity);
+		}
+		return values;
+	}
+
+	private <T> void setUpdateParameter(EntityMapping<T> em, PreparedStatementProxy pstmt, T entity) throws Exception {
+		int index = 1;
+		// 非主键
+		for (FieldMapping fm : em.getFieldMapping()) {
+			if (fm.isPrimaryId()) {
+				continue;
+			}
+			setPstmtParameter(em, fm, pstmt, entity, index++);
+		}
+		// 主键
+		setPstmtParameter(em, em.getPrimaryId(), pstmt, entity, index);
+	}
+
 	@Override
 	public <T, K extends Serializable> T load(final EntityMapping<T> em, final K id) {
 		class LoadPreparedStatementCallback implements PreparedStatementCallback<T> {
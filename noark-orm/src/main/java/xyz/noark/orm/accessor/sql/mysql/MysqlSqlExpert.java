@@ -13,6 +13,8 @@
  */
 package xyz.noark.orm.accessor.sql.mysql;
 
+import java.util.List;
+
 import xyz.noark.core.util.StringUtils;
 import xyz.noark.orm.DataConstant;
 import xyz.noark.orm.EntityMapping;
@@ -182,6 +184,20 @@ public class MysqlSqlExpert extends AbstractSqlExpert {
 		return sb.toString();
 	}
 
+	@Override
+	public <T> String genPartialUpdateSql(EntityMapping<T> em, List<FieldMapping> columns) {
+		StringBuilder sb = new StringBuilder(128);
+		sb.append("UPDATE ").append(em.getTableName()).append(" SET ");
+		for (FieldMapping fm : columns) {
+			this.append(sb, fm.getColumnName()).append("=?,");
+		}
+		sb.setCharAt(sb.length() - 1, ' ');
+
+		sb.append("WHERE ");
+		this.append(sb, em.getPrimaryId().getColumnName()).append("=?");
+		return sb.toString();
+	}
+
 	@Override
 	public <T> String genSelectByPlayerId(EntityMapping<T> em) {
 		// Select id from item where role_id = ?
@@ -33,6 +33,30 @@ public abstract class AbstractValueAdaptor<T> {
 		this.toPreparedStatement(pstmt, value, index);
 	}
 
+	/**
+	 * 取出实体中这个属性存储时的值.
+	 * 
+	 * @param em 实体映射对象
+	 * @param fm 属性映射对象
+	 * @param entity 实体对象
+	 * @return 存储时的值，可以直接设置到PreparedStatement中
+	 */
+	@SuppressWarnings("unchecked")
+	public Object parameterToColumnValue(EntityMapping<?> em, FieldMapping fm, Object entity) {
+		T value = (T) em.getMethodAccess().invoke(entity, fm.getGetMethodIndex());
+		return value == null ? null : this.toColumnValue(value);
+	}
+
+	/**
+	 * 属性值转化为存储时的值，默认就是属性值本身.
+	 * 
+	 * @param value 属性值，不会为null
+	 * @return 存储时的值
+	 */
+	protected Object toColumnValue(T value) {
+		return value;
+	}
+
 	/**
 	 * 属性转化到PreparedStatement中
 	 * 
@@ -32,6 +32,11 @@ class AtomicIntegerAdaptor extends AbstractValueAdaptor<AtomicInteger> {
 		pstmt.setInt(parameterIndex, value.intValue());
 	}
 
+	@Override
+	protected Object toColumnValue(AtomicInteger value) {
+		return value.intValue();
+	}
+
 	@Override
 	protected Object toParameter(FieldMapping fm, ResultSet rs) throws Exception {
 		return new AtomicInteger(rs.getInt(fm.getColumnName()));
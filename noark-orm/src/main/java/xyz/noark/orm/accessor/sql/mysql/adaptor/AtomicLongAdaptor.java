@@ -32,6 +32,11 @@ class AtomicLongAdaptor extends AbstractValueAdaptor<AtomicLong> {
 		pstmt.setLong(parameterIndex, value.longValue());
 	}
 
+	@Override
+	protected Object toColumnValue(AtomicLong value) {
+		return value.longValue();
+	}
+
 	@Override
 	protected Object toParameter(FieldMapping fm, ResultSet rs) throws Exception {
 		return new AtomicLong(rs.getLong(fm.getColumnName()));
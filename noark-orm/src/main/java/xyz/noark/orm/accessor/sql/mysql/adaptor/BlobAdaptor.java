@@ -13,9 +13,15 @@
  */
 package xyz.noark.orm.accessor.sql.mysql.adaptor;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.sql.ResultSet;
 import java.sql.Types;
 
+import xyz.noark.core.exception.DataAccessException;
+import xyz.noark.core.exception.UnrealizedException;
 import xyz.noark.orm.FieldMapping;
 import xyz.noark.orm.accessor.sql.PreparedStatementProxy;
 
@@ -36,6 +42,32 @@ class BlobAdaptor extends AbstractValueAdaptor<Object> {
 		}
 	}
 
+	/**
+	 * 字段值快照必需与实体脱离关系，业务线程之后再修改也不能影响回写的值.
+	 * <p>
+	 * byte[]复制一份，其他可序列化的对象就在这里序列化成byte[]，与驱动setObject时写入的内容一样.
+	 */
+	@Override
+	protected Object toColumnValue(Object value) {
+		if (value instanceof byte[]) {
+			return ((byte[]) value).clone();
+		}
+		// 不可变的值就不用复制了
+		if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+			return value;
+		}
+		if (value instanceof Serializable) {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+				oos.writeObject(value);
+			} catch (IOException e) {
+				throw new DataAccessException(e);
+			}
+			return baos.toByteArray();
+		}
+		throw new UnrealizedException("未实现的Blob存储类型:" + value.getClass().getName());
+	}
+
 	@Override
 	protected Object toParameter(FieldMapping fm, ResultSet rs) throws Exception {
 		return rs.getObject(fm.getColumnName());
@@ -40,6 +40,11 @@ class DateAdaptor extends AbstractValueAdaptor<Date> {
 		}
 	}
 
+	@Override
+	protected Object toColumnValue(Date value) {
+		return new Timestamp(value.getTime());
+	}
+
 	@Override
 	protected Object toParameter(FieldMapping fm, ResultSet rs) throws Exception {
 		Timestamp ts = rs.getTimestamp(fm.getColumnName());
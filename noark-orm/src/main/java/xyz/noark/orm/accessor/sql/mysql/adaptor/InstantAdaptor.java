@@ -34,10 +34,15 @@ class InstantAdaptor extends AbstractValueAdaptor<Instant> {
 		if (value == null) {
 			pstmt.setNull(parameterIndex, Types.TIMESTAMP);
 		} else {
-			pstmt.setTimestamp(parameterIndex, new Timestamp(value.getEpochSecond()));
+			pstmt.setTimestamp(parameterIndex, Timestamp.from(value));
 		}
 	}
 
+	@Override
+	protected Object toColumnValue(Instant value) {
+		return Timestamp.from(value);
+	}
+
 	@Override
 	protected Object toParameter(FieldMapping fm, ResultSet rs) throws Exception {
 		Timestamp ts = rs.getTimestamp(fm.getColumnName());
@@ -37,6 +37,11 @@ class JsonAdaptor extends AbstractValueAdaptor<Object> {
 		}
 	}
 
+	@Override
+	protected Object toColumnValue(Object value) {
+		return JSON.toJSONString(value);
+	}
+
 	@Override
 	protected Object toParameter(FieldMapping fm, ResultSet rs) throws Exception {
 		String str = rs.getString(fm.getColumnName());
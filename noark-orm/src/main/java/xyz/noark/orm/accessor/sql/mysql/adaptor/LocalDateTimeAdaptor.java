@@ -42,6 +42,11 @@ class LocalDateTimeAdaptor extends AbstractValueAdaptor<LocalDateTime> {
 		}
 	}
 
+	@Override
+	protected Object toColumnValue(LocalDateTime value) {
+		return new Timestamp(Date.from(value.atZone(ZoneId.systemDefault()).toInstant()).getTime());
+	}
+
 	@Override
 	protected Object toParameter(FieldMapping fm, ResultSet rs) throws Exception {
 		Timestamp ts = rs.getTimestamp(fm.getColumnName());
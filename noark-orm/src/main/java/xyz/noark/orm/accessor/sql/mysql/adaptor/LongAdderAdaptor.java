@@ -32,6 +32,11 @@ class LongAdderAdaptor extends AbstractValueAdaptor<LongAdder> {
 		pstmt.setLong(parameterIndex, value.longValue());
 	}
 
+	@Override
+	protected Object toColumnValue(LongAdder value) {
+		return value.longValue();
+	}
+
 	@Override
 	protected Object toParameter(FieldMapping fm, ResultSet rs) throws Exception {
 		final LongAdder adder = new LongAdder();
@@ -40,6 +40,11 @@ class UnrealizedAdaptor extends AbstractValueAdaptor<Void> {
 		throw new UnrealizedException("未实现的数据存储类型:" + fm.getType());
 	}
 
+	@Override
+	public Object parameterToColumnValue(EntityMapping<?> em, FieldMapping fm, Object entity) {
+		throw new UnrealizedException("未实现的数据存储类型:" + fm.getType());
+	}
+
 	@Override
 	protected void toPreparedStatement(PreparedStatementProxy pstmt, Void value, int parameterIndex) {}
 
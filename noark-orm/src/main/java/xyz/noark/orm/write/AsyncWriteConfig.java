@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write;
+
+import xyz.noark.orm.DataConstant;
+
+/**
+ * 异步回写的配置.
+ * <p>
+ * 预写日志、回写线程数这些配置，不支持的实现可以忽略.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class AsyncWriteConfig {
+	/** 定时存档间隔，单位：秒 */
+	private int saveInterval = 300;
+	/** 离线玩家在内存中的存活时间，单位：秒 */
+	private int offlineInterval = 3600;
+	/** 回写线程数 */
+	private int flushThreads = DataConstant.DEFAULT_FLUSH_THREADS;
+	/** 回写失败的操作最多重试的次数 */
+	private int flushMaxRetries = DataConstant.DEFAULT_FLUSH_MAX_RETRIES;
+	/** 是否开启预写日志 */
+	private boolean journalEnabled = false;
+	/** 预写日志的存放目录 */
+	private String journalDir = "journal";
+	/** 预写日志每个日志段的大小，单位：字节 */
+	private int journalSegmentSize = 64 * 1024 * 1024;
+	/** 预写日志的刷盘间隔，单位：毫秒 */
+	private int journalSyncInterval = 100;
+
+	public int getSaveInterval() {
+		return saveInterval;
+	}
+
+	public void setSaveInterval(int saveInterval) {
+		this.saveInterval = saveInterval;
+	}
+
+	public int getOfflineInterval() {
+		return offlineInterval;
+	}
+
+	public void setOfflineInterval(int offlineInterval) {
+		this.offlineInterval = offlineInterval;
+	}
+
+	public int getFlushThreads() {
+		return flushThreads;
+	}
+
+	public void setFlushThreads(int flushThreads) {
+		this.flushThreads = flushThreads;
+	}
+
+	public int getFlushMaxRetries() {
+		return flushMaxRetries;
+	}
+
+	public void setFlushMaxRetries(int flushMaxRetries) {
+		this.flushMaxRetries = flushMaxRetries;
+	}
+
+	public boolean isJournalEnabled() {
+		return journalEnabled;
+	}
+
+	public void setJournalEnabled(boolean journalEnabled) {
+		this.journalEnabled = journalEnabled;
+	}
+
+	public String getJournalDir() {
+		return journalDir;
+	}
+
+	public void setJournalDir(String journalDir) {
+		this.journalDir = journalDir;
+	}
+
+	public int getJournalSegmentSize() {
+		return journalSegmentSize;
+	}
+
+	public void setJournalSegmentSize(int journalSegmentSize) {
+		this.journalSegmentSize = journalSegmentSize;
+	}
+
+	public int getJournalSyncInterval() {
+		return journalSyncInterval;
+	}
+
+	public void setJournalSyncInterval(int journalSyncInterval) {
+		this.journalSyncInterval = journalSyncInterval;
+	}
+}
\ No newline at end of file
@@ -88,4 +88,15 @@ public interface AsyncWriteService {
 	 * @param offlineInterval 定时清理缓存
 	 */
 	public void init(int saveInterval, int offlineInterval);
+
+	/**
+	 * 初始化存储系统，指定回写线程数，开启预写日志时先重放上次没有回写的操作.
+	 * <p>
+	 * 不支持这些配置的实现会忽略它们.
+	 * 
+	 * @param config 异步回写的配置
+	 */
+	public default void init(AsyncWriteConfig config) {
+		this.init(config.getSaveInterval(), config.getOfflineInterval());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write.impl;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import xyz.noark.orm.write.OperateType;
+
+/**
+ * 死信日志.
+ * <p>
+ * 多次重试都回写不了的操作（数据太长、违反约束等），或重放预写日志时恢复不了的操作，<br>
+ * 写到这里后就放弃了，不再占着回写容器和预写日志，由研发人员根据日志手动修复.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+class DeadLetterLog {
+	/** 死信日志的文件名，放在预写日志的目录中 */
+	static final String FILE_NAME = "dead-letter.log";
+
+	/** 没有开启预写日志时为null，只输出到日志里 */
+	private final File file;
+
+	DeadLetterLog(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * 写入一个回写失败的操作.
+	 * 
+	 * @param playerId 玩家ID
+	 * @param op 实体操作
+	 */
+	void write(Serializable playerId, EntityOperate<?> op) {
+		OperateType type = op.isDelete() ? OperateType.DELETE : op.isInsert() ? OperateType.INSERT : OperateType.UPDATE;
+		this.write(playerId, type, op.getEntityMapping().getEntityClass().getName(), op.getPrimaryIdValue(), op.getRow());
+	}
+
+	/**
+	 * 写入一个放弃的操作.
+	 * 
+	 * @param playerId 玩家ID
+	 * @param type 操作类型
+	 * @param className 实体类名
+	 * @param id 主键值
+	 * @param row 字段值快照，删除时为null
+	 */
+	synchronized void write(Serializable playerId, OperateType type, String className, Serializable id, Object[] row) {
+		String line = LocalDateTime.now() + " playerId=" + playerId + ", type=" + type + ", entity=" + className + ", id=" + id + ", row=" + Arrays.deepToString(row);
+		logger.error("放弃保存的操作已写入死信日志. {}", line);
+		if (file == null) {
+			return;
+		}
+
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+			writer.write(line);
+			writer.write(System.lineSeparator());
+		} catch (IOException e) {
+			logger.error("写入死信日志时异常，file={}{}", file.getAbsolutePath(), e);
+		}
+	}
+}
\ No newline at end of file
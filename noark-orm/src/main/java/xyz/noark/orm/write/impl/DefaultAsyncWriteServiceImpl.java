@@ -15,14 +15,17 @@ package xyz.noark.orm.write.impl;
 
 import static xyz.noark.log.LogHelper.logger;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
@@ -34,11 +37,13 @@ import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.RemovalListener;
 
 import xyz.noark.core.annotation.Autowired;
-import xyz.noark.core.exception.DataException;
+import xyz.noark.core.exception.ServerBootstrapException;
+import xyz.noark.core.lang.LatencyHistogram;
 import xyz.noark.core.thread.NamedThreadFactory;
 import xyz.noark.orm.DataConstant;
 import xyz.noark.orm.EntityMapping;
 import xyz.noark.orm.accessor.DataAccessor;
+import xyz.noark.orm.write.AsyncWriteConfig;
 import xyz.noark.orm.write.AsyncWriteService;
 import xyz.noark.orm.write.OperateType;
 
@@ -51,13 +56,43 @@ import xyz.noark.orm.write.OperateType;
 public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 	@Autowired
 	private DataAccessor dataAccessor;
-	/** 这个定时任务，有空就处理一下数据保存和缓存清理功能 */
-	private final static ScheduledExecutorService SCHEDULED_EXECUTOR = new ScheduledThreadPoolExecutor(4, new NamedThreadFactory("async-write-data"));
+	/** 这个定时任务只驱动回写时间轮、清理缓存和预写日志，真正的回写由回写线程处理 */
+	private final static ScheduledExecutorService SCHEDULED_EXECUTOR = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("async-write-data"));
 	/** 异步回写容器缓存 */
 	private LoadingCache<Serializable, AsyncWriteContainer> containers;
+	/** 回写调度器 */
+	private FlushScheduler flushScheduler;
+	/** 预写日志，没有开启时为null */
+	private WriteAheadJournal journal;
+	/** 放弃保存的操作写到这里 */
+	private DeadLetterLog deadLetterLog;
+	/** 回写失败的操作最多重试的次数 */
+	private int flushMaxRetries;
+	/** 还有操作没有回写到DB的容器，它们引用的日志段不能删除 */
+	private final Set<AsyncWriteContainer> journalContainers = ConcurrentHashMap.newKeySet();
 
 	@Override
 	public void init(final int saveInterval, final int offlineInterval) {
+		AsyncWriteConfig config = new AsyncWriteConfig();
+		config.setSaveInterval(saveInterval);
+		config.setOfflineInterval(offlineInterval);
+		this.init(config);
+	}
+
+	@Override
+	public void init(AsyncWriteConfig config) {
+		final int saveInterval = config.getSaveInterval();
+		final int offlineInterval = config.getOfflineInterval();
+		this.flushMaxRetries = config.getFlushMaxRetries();
+		if (config.isJournalEnabled()) {
+			this.deadLetterLog = new DeadLetterLog(new File(config.getJournalDir(), DeadLetterLog.FILE_NAME));
+			this.journal = this.openJournal(config);
+		} else {
+			this.deadLetterLog = new DeadLetterLog(null);
+		}
+		this.flushScheduler = new FlushScheduler(saveInterval, config.getFlushThreads());
+		flushScheduler.start(SCHEDULED_EXECUTOR);
+
 		RemovalListener<Serializable, AsyncWriteContainer> listener = new RemovalListener<Serializable, AsyncWriteContainer>() {
 			@Override
 			public void onRemoval(Serializable key, AsyncWriteContainer value, RemovalCause cause) {
@@ -71,7 +106,7 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 			@Override
 			public AsyncWriteContainer load(Serializable playerId) {
 				logger.debug("创建异步回写容器， playerId={}", playerId);
-				return new AsyncWriteContainer(playerId, saveInterval);
+				return new AsyncWriteContainer(playerId);
 			}
 		};
 
@@ -82,6 +117,48 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 				containers.cleanUp();
 			}
 		}, offlineInterval, offlineInterval, TimeUnit.SECONDS);
+
+		if (journal != null) {
+			SCHEDULED_EXECUTOR.scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					truncateJournal();
+				}
+			}, saveInterval, saveInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * 先把上次没有回写的操作补上，再打开预写日志开始记录新的操作.
+	 */
+	private WriteAheadJournal openJournal(AsyncWriteConfig config) {
+		WriteAheadJournal journal = new WriteAheadJournal(new File(config.getJournalDir()), config.getJournalSegmentSize(), config.getJournalSyncInterval());
+		journal.replay(dataAccessor, deadLetterLog);
+		try {
+			journal.open();
+		} catch (IOException e) {
+			throw new ServerBootstrapException("打开预写日志失败，dir=" + config.getJournalDir(), e);
+		}
+		logger.info("开启异步回写的预写日志，dir={}, 刷盘间隔为 {}毫秒", config.getJournalDir(), config.getJournalSyncInterval());
+		return journal;
+	}
+
+	/**
+	 * 删除已全部回写到DB的日志段.
+	 * <p>
+	 * 先切换日志段再统计引用，统计之后才引用日志的容器，它的记录一定写在新的日志段里.
+	 */
+	private void truncateJournal() {
+		try {
+			journal.roll();
+			long segment = journal.currentSegment();
+			for (AsyncWriteContainer container : journalContainers) {
+				segment = Math.min(segment, container.journalSegment());
+			}
+			journal.truncate(segment);
+		} catch (Exception e) {
+			logger.error("清理预写日志时异常.", e);
+		}
 	}
 
 	/**
@@ -103,6 +180,9 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 
 	/**
 	 * 数据操作.
+	 * <p>
+	 * 插入和修改时就在调用者（业务线程）中把实体编码为字段值快照，回写线程只使用这个快照，<br>
+	 * 这样回写时就不会与业务线程同时读写同一个实体对象了.
 	 * 
 	 * @param em 实体类的描述对象
 	 * @param entity 实体对象
@@ -111,15 +191,17 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 	private <T> void operation(EntityMapping<T> em, T entity, OperateType type) {
 		Serializable roleId = this.analysisRoleIdByEntity(em, entity);
 		AsyncWriteContainer container = containers.get(roleId);
+		Object[] row = type == OperateType.DELETE ? null : dataAccessor.encode(em, entity);
+		byte[] record = this.encodeJournal(em, entity, type, row);
 		switch (type) {
 		case INSERT:
-			container.insert(em, entity);
+			container.insert(em, entity, row, record);
 			break;
 		case DELETE:
-			container.delete(em, entity);
+			container.delete(em, entity, record);
 			break;
 		case UPDATE:
-			container.update(em, entity);
+			container.update(em, entity, row, record);
 			break;
 		default:
 			logger.warn("这是要干嘛？ type={},entity={}", type, entity);
@@ -127,6 +209,23 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 		}
 	}
 
+	/**
+	 * 在业务线程中编码预写日志的记录.
+	 * 
+	 * @return 没有开启预写日志或编码失败时返回null
+	 */
+	private <T> byte[] encodeJournal(EntityMapping<T> em, T entity, OperateType type, Object[] row) {
+		if (journal == null) {
+			return null;
+		}
+		try {
+			return WriteAheadJournal.encode(type, em, em.getPrimaryIdValue(entity), row);
+		} catch (Exception e) {
+			logger.error("编码预写日志时异常，这个操作宕机后将无法恢复. entity={}{}", em.getPrimaryKey(entity), e);
+			return null;
+		}
+	}
+
 	@Override
 	public <T> void insert(EntityMapping<T> em, T entity) {
 		this.operation(em, entity, OperateType.INSERT);
@@ -165,7 +264,12 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 			if (!SCHEDULED_EXECUTOR.awaitTermination(DataConstant.SHUTDOWN_MAX_TIME, TimeUnit.MINUTES)) {
 				SCHEDULED_EXECUTOR.shutdownNow();
 			}
+			flushScheduler.shutdown(DataConstant.SHUTDOWN_MAX_TIME, TimeUnit.MINUTES);
 			logger.info("数据保存任务线程池已全部回写完，关闭成功.");
+			if (journal != null) {
+				// 全部回写成功了，预写日志也就不需要了
+				journal.close(journalContainers.isEmpty());
+			}
 		} catch (InterruptedException ie) {
 			logger.error("数据保存任务线程池停机时发生异常.", ie);
 			SCHEDULED_EXECUTOR.shutdownNow();
@@ -186,12 +290,18 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 		private Map<String, EntityOperate<?>> flushOperates;
 		private final ReentrantLock dataUpdateLock = new ReentrantLock();
 		private final ReentrantLock dataFlushLock = new ReentrantLock();
-		/** 记录异步操作的结果，以便有需求时，操纵这个结果 */
-		private final ScheduledFuture<?> future;
+		/** 还没有取出回写的操作所在的最小日志段 */
+		private volatile long journalSegment = WriteAheadJournal.NONE;
+		/** 正在回写的操作所在的最小日志段 */
+		private volatile long flushingSegment = WriteAheadJournal.NONE;
+		/** 脏数据检测，只在回写时使用 */
+		private final DirtyTracker dirtyTracker = new DirtyTracker();
+		/** 在回写时间轮中的任务 */
+		private final FlushScheduler.Task flushTask;
 
-		private AsyncWriteContainer(Serializable playerId, int saveInterval) {
+		private AsyncWriteContainer(Serializable playerId) {
 			this.playerId = playerId;
-			this.future = SCHEDULED_EXECUTOR.scheduleAtFixedRate(this, saveInterval, saveInterval, TimeUnit.SECONDS);
+			this.flushTask = flushScheduler.register(this);
 		}
 
 		@SuppressWarnings("unchecked")
@@ -199,7 +309,7 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 			String entityId = em.getPrimaryKey(entity);
 			EntityOperate<T> entityOperate = (EntityOperate<T>) entityOperates.get(entityId);
 			if (null == entityOperate) {
-				entityOperate = new EntityOperate<>(entityId, em);
+				entityOperate = new EntityOperate<>(entityId, em, em.getPrimaryIdValue(entity));
 				entityOperates.put(entityId, entityOperate);
 			}
 			return entityOperate;
@@ -208,11 +318,12 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 		/**
 		 * 保存一个新增的数据
 		 */
-		public <T> void insert(EntityMapping<T> em, T entity) {
+		public <T> void insert(EntityMapping<T> em, T entity, Object[] row, byte[] record) {
 			dataUpdateLock.lock();
 			try {
+				this.appendJournal(record);
 				EntityOperate<T> entityOperate = getEntityOperate(em, entity);
-				entityOperate.insert(entity);
+				entityOperate.insert(row);
 			} finally {
 				dataUpdateLock.unlock();
 			}
@@ -221,11 +332,12 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 		/**
 		 * 保存一个修改过的数据.
 		 */
-		public <T> void update(EntityMapping<T> em, T entity) {
+		public <T> void update(EntityMapping<T> em, T entity, Object[] row, byte[] record) {
 			dataUpdateLock.lock();
 			try {
+				this.appendJournal(record);
 				EntityOperate<T> entityOperate = getEntityOperate(em, entity);
-				entityOperate.update(entity);
+				entityOperate.update(row);
 			} finally {
 				dataUpdateLock.unlock();
 			}
@@ -234,11 +346,12 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 		/**
 		 * 删除一个数据.
 		 */
-		public <T> void delete(EntityMapping<T> em, T entity) {
+		public <T> void delete(EntityMapping<T> em, T entity, byte[] record) {
 			dataUpdateLock.lock();
 			try {
+				this.appendJournal(record);
 				EntityOperate<T> entityOperate = getEntityOperate(em, entity);
-				boolean deleted = entityOperate.delete(entity);
+				boolean deleted = entityOperate.delete();
 				if (deleted) {
 					entityOperates.remove(entityOperate.getId());
 				}
@@ -247,8 +360,39 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 			}
 		}
 
+		/**
+		 * 追加预写日志，调用时必需持有数据修改锁.
+		 * <p>
+		 * 先记下引用的日志段再追加，这样清理日志时要么能统计到这个引用，要么这条记录写在了更新的日志段里.
+		 */
+		private void appendJournal(byte[] record) {
+			if (record == null) {
+				return;
+			}
+			if (journalSegment == WriteAheadJournal.NONE) {
+				this.journalSegment = journal.currentSegment();
+				journalContainers.add(this);
+			}
+			try {
+				journal.append(record);
+			} catch (Exception e) {
+				logger.error("追加预写日志时异常，playerId={}{}", playerId, e);
+			}
+		}
+
+		/**
+		 * 引用的最小日志段.
+		 * <p>
+		 * 取出回写时先记正在回写的，再清除未回写的，所以这里要反过来先读未回写的.
+		 */
+		private long journalSegment() {
+			long segment = journalSegment;
+			return Math.min(segment, flushingSegment);
+		}
+
 		private Map<String, EntityOperate<?>> getNewUpdateData() {
-			if (entityOperates.isEmpty()) {
+			// 插入后又删除的操作，可能没有留下数据，但还引用着日志段
+			if (entityOperates.isEmpty() && journalSegment == WriteAheadJournal.NONE) {
 				return Collections.emptyMap();
 			}
 			Map<String, EntityOperate<?>> updateData = null;
@@ -257,28 +401,42 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 			try {
 				updateData = entityOperates;
 				this.entityOperates = new HashMap<>(32);
+				this.flushingSegment = Math.min(flushingSegment, journalSegment);
+				this.journalSegment = WriteAheadJournal.NONE;
 			} finally {
 				dataUpdateLock.unlock();
 			}
 			return updateData;
 		}
 
+		/**
+		 * 合并到要回写的数据里，上次回写失败的操作还在里面，新的操作要合并到它上面.
+		 */
 		private void mergeFlushData(Map<String, EntityOperate<?>> updateData) {
 			if (flushOperates == null) {
 				flushOperates = updateData;
 			} else {
 				for (Entry<String, EntityOperate<?>> e : updateData.entrySet()) {
 					String id = e.getKey();
-					EntityOperate<?> existOperate = e.getValue();
-					flushOperates.put(id, existOperate);
+					EntityOperate<?> failedOperate = flushOperates.get(id);
+					if (failedOperate == null) {
+						flushOperates.put(id, e.getValue());
+					} else if (merge(failedOperate, e.getValue())) {
+						flushOperates.remove(id);
+					}
 				}
 			}
 		}
 
+		@SuppressWarnings("unchecked")
+		private <T> boolean merge(EntityOperate<T> failedOperate, EntityOperate<?> next) {
+			return failedOperate.merge((EntityOperate<T>) next);
+		}
+
 		/**
 		 * 同步式回写数据.
 		 */
-		public <T> void syncFlush() {
+		public void syncFlush() {
 			dataFlushLock.lock();
 			try {
 				// 取出最新有过改动的数据
@@ -286,42 +444,54 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 				// 合并到要回写的数据里
 				this.mergeFlushData(updateData);
 
-				if (flushOperates != null) {
-					try {
-						if (!flushOperates.isEmpty()) {
-							logger.info("开始保存数据，playerId={}", playerId);
-							for (EntityOperate<?> opx : flushOperates.values()) {
-								try {
-									@SuppressWarnings("unchecked")
-									EntityOperate<T> op = (EntityOperate<T>) opx;
-									if (op.isDelete()) {
-										// 那就是删除操作
-										dataAccessor.delete(op.getEntityMapping(), op.getEntity());
-									} else if (op.isInsert()) {
-										// 插入
-										dataAccessor.insert(op.getEntityMapping(), op.getEntity());
-									} else if (op.isUpdate()) {
-										// 修改
-										dataAccessor.update(op.getEntityMapping(), op.getEntity());
-									} else {
-										throw new DataException("未知的操作实现...");
-									}
-								} catch (Exception ex) {
-									logger.error("保存实体时数据异常，playerId={}{}", playerId, ex);
-									logger.error("保存实体时的异常数据 entity={}", opx.getEntity());
-								}
+				if (flushOperates != null && !flushOperates.isEmpty()) {
+					logger.info("开始保存数据，playerId={}", playerId);
+					// 按表和操作类型分组批量回写，每组只有一次DB交互
+					Map<String, EntityOperate<?>> failedOperates = new HashMap<>();
+					for (EntityBatch<?> batch : EntityBatch.group(flushOperates.values())) {
+						for (EntityOperate<?> op : batch.flush(dataAccessor, dirtyTracker, playerId)) {
+							// 数据太长、违反约束这些，重试多少次都没用，写入死信日志后放弃，不能让预写日志一直增长
+							if (op.fail() > flushMaxRetries) {
+								deadLetterLog.write(playerId, op);
+							} else {
+								failedOperates.put(op.getId(), op);
 							}
-							logger.info("保存数据完成，playerId={}", playerId);
 						}
-					} finally {
-						this.flushOperates = null;
 					}
+
+					// 没有写成功的留着下次再写，预写日志也要一直留着
+					if (!failedOperates.isEmpty()) {
+						this.flushOperates = failedOperates;
+						logger.warn("保存数据未全部完成，下次继续保存. playerId={}, failed={}", playerId, failedOperates.size());
+						return;
+					}
+					logger.info("保存数据完成，playerId={}", playerId);
 				}
+				this.flushOperates = null;
+				this.releaseJournal();
 			} finally {
 				dataFlushLock.unlock();
 			}
 		}
 
+		/**
+		 * 回写完成，不再引用已回写的日志段.
+		 */
+		private void releaseJournal() {
+			if (flushingSegment == WriteAheadJournal.NONE) {
+				return;
+			}
+			dataUpdateLock.lock();
+			try {
+				this.flushingSegment = WriteAheadJournal.NONE;
+				if (journalSegment == WriteAheadJournal.NONE) {
+					journalContainers.remove(this);
+				}
+			} finally {
+				dataUpdateLock.unlock();
+			}
+		}
+
 		@Override
 		public void run() {
 			try {
@@ -332,7 +502,7 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 		}
 
 		public void close() {
-			this.future.cancel(true);
+			flushScheduler.cancel(flushTask);
 		}
 	}
 
@@ -340,7 +510,36 @@ public class DefaultAsyncWriteServiceImpl implements AsyncWriteService {
 	public void asyncFlushByPlayerId(Serializable roleId) {
 		AsyncWriteContainer container = containers.get(roleId);
 		if (container != null) {
-			SCHEDULED_EXECUTOR.submit(container);
+			flushScheduler.submit(container.flushTask);
 		}
 	}
+
+	/**
+	 * 等待回写的容器数量.
+	 * <p>
+	 * 持续增长说明回写线程跟不上，需要调大回写线程数或存档间隔.
+	 * 
+	 * @return 队列深度
+	 */
+	public int getFlushQueueSize() {
+		return flushScheduler.getQueueSize();
+	}
+
+	/**
+	 * 获取回写延迟的快照，即从该回写到开始回写的时间.
+	 * 
+	 * @return 回写延迟的快照
+	 */
+	public LatencyHistogram.Snapshot getFlushLagSnapshot() {
+		return flushScheduler.getLagHistogram().snapshot();
+	}
+
+	/**
+	 * 获取每次回写耗时的快照.
+	 * 
+	 * @return 回写耗时的快照
+	 */
+	public LatencyHistogram.Snapshot getFlushExecSnapshot() {
+		return flushScheduler.getExecHistogram().snapshot();
+	}
 }
\ No newline at end of file
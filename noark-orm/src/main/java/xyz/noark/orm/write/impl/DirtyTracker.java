@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import xyz.noark.orm.EntityMapping;
+import xyz.noark.orm.FieldMapping;
+import xyz.noark.orm.accessor.DataAccessor;
+
+/**
+ * 脏数据检测.
+ * <p>
+ * 记录开启了脏数据检测的实体上次回写成功时各字段值的哈希，回写时对比一下，<br>
+ * 只修改有变化的字段，没有变化的实体就直接跳过.<br>
+ * 刚加载或刚插入的实体还没有记录，第一次修改时会回写全部字段.
+ * <p>
+ * 只在回写线程中使用，由回写容器的锁来保证线程安全.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+class DirtyTracker {
+	/** 空值的哈希，与空字符串等值区分开 */
+	private static final long NULL_HASH = 0x9E3779B97F4A7C15L;
+	private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+	private static final long FNV_PRIME = 0x100000001B3L;
+
+	/** 上次回写成功时各字段值的哈希，Key为实体的回写Key */
+	private final Map<String, long[]> savedHashes = new HashMap<>();
+
+	/**
+	 * 回写一批修改过的实体，只修改有变化的字段.
+	 * 
+	 * @param em 实体映射对象
+	 * @param operates 修改过的实体操作
+	 * @param dataAccessor 数据访问策略
+	 * @param playerId 玩家ID
+	 * @return 没有回写成功的实体操作
+	 */
+	<T> List<EntityOperate<T>> flush(EntityMapping<T> em, List<EntityOperate<T>> operates, DataAccessor dataAccessor, Serializable playerId) {
+		final List<FieldMapping> fields = em.getFieldMapping();
+		final int lastModifiedIndex = em.getLastModifiedDate() == null ? -1 : fields.indexOf(em.getLastModifiedDate());
+
+		// 按变化的字段分组，同一组共用一个SQL
+		Map<BitSet, PartialUpdate<T>> updates = new HashMap<>();
+		for (EntityOperate<T> op : operates) {
+			long[] hashes = hash(op.getRow());
+			BitSet changed = this.diff(fields, savedHashes.get(op.getId()), hashes, lastModifiedIndex);
+			if (changed.isEmpty()) {
+				continue;
+			}
+			updates.computeIfAbsent(changed, k -> new PartialUpdate<>(fields, k)).add(op, hashes);
+		}
+
+		List<EntityOperate<T>> failed = new ArrayList<>();
+		for (PartialUpdate<T> update : updates.values()) {
+			BitSet result = EntityBatch.execute(em, update.rows, v -> dataAccessor.batchUpdate(em, update.columns, v), (i, count) -> savedHashes.put(update.operates.get(i).getId(), update.hashes.get(i)), playerId);
+			failed.addAll(EntityBatch.select(update.operates, result));
+		}
+		return failed;
+	}
+
+	/**
+	 * 实体已删除，移除它的记录.
+	 * 
+	 * @param key 实体的回写Key
+	 */
+	void remove(String key) {
+		savedHashes.remove(key);
+	}
+
+	/**
+	 * 对比出有变化的字段.
+	 * <p>
+	 * 主键不参与对比，最后修改时间每次修改都会变，只有它变了也不算有变化.
+	 */
+	private BitSet diff(List<FieldMapping> fields, long[] saved, long[] hashes, int lastModifiedIndex) {
+		BitSet changed = new BitSet(hashes.length);
+		for (int i = 0; i < hashes.length; i++) {
+			if (!fields.get(i).isPrimaryId() && (saved == null || saved[i] != hashes[i])) {
+				changed.set(i);
+			}
+		}
+		if (lastModifiedIndex >= 0 && changed.cardinality() == 1 && changed.get(lastModifiedIndex)) {
+			changed.clear();
+		}
+		return changed;
+	}
+
+	/**
+	 * 计算各字段存储值的哈希.
+	 * <p>
+	 * 数值和时间直接取其值，字符串和字节数组使用64位的FNV-1a.
+	 */
+	static long[] hash(Object[] values) {
+		long[] hashes = new long[values.length];
+		for (int i = 0; i < values.length; i++) {
+			hashes[i] = hash(values[i]);
+		}
+		return hashes;
+	}
+
+	private static long hash(Object value) {
+		if (value == null) {
+			return NULL_HASH;
+		}
+		if (value instanceof String) {
+			String str = (String) value;
+			long hash = FNV_OFFSET_BASIS;
+			for (int i = 0, len = str.length(); i < len; i++) {
+				hash = (hash ^ str.charAt(i)) * FNV_PRIME;
+			}
+			return hash;
+		}
+		if (value instanceof byte[]) {
+			long hash = FNV_OFFSET_BASIS;
+			for (byte b : (byte[]) value) {
+				hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+			}
+			return hash;
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return Double.doubleToLongBits(((Number) value).doubleValue());
+		}
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		}
+		if (value instanceof Boolean) {
+			return ((Boolean) value).booleanValue() ? 1 : 0;
+		}
+		if (value instanceof java.util.Date) {
+			return ((java.util.Date) value).getTime();
+		}
+		return value.hashCode();
+	}
+
+	/**
+	 * 修改字段相同的一组实体.
+	 * <p>
+	 * 回写成功后再记录哈希，失败的操作留在回写容器中，下次还会再回写这些字段.
+	 */
+	private static class PartialUpdate<T> {
+		private final List<FieldMapping> columns;
+		private final int[] indexes;
+		private final List<EntityOperate<T>> operates = new ArrayList<>();
+		private final List<Object[]> rows = new ArrayList<>();
+		private final List<long[]> hashes = new ArrayList<>();
+
+		private PartialUpdate(List<FieldMapping> fields, BitSet changed) {
+			this.indexes = changed.stream().toArray();
+			this.columns = new ArrayList<>(indexes.length);
+			for (int index : indexes) {
+				columns.add(fields.get(index));
+			}
+		}
+
+		private void add(EntityOperate<T> op, long[] hashes) {
+			this.operates.add(op);
+			this.rows.add(EntityBatch.toUpdateRow(op, indexes));
+			this.hashes.add(hashes);
+		}
+	}
+}
\ No newline at end of file
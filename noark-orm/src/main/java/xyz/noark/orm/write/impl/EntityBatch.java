@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write.impl;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.io.Serializable;
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import xyz.noark.orm.EntityMapping;
+import xyz.noark.orm.FieldMapping;
+import xyz.noark.orm.accessor.DataAccessor;
+import xyz.noark.orm.write.OperateType;
+
+/**
+ * 同一个表同一种操作的一批实体.
+ * <p>
+ * 回写时按表和操作类型分组，每组只需一次批处理，而不是每个实体一次DB交互.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+class EntityBatch<T> {
+	private final OperateType type;
+	private final EntityMapping<T> em;
+	private final List<EntityOperate<T>> operates = new ArrayList<>();
+
+	private EntityBatch(OperateType type, EntityMapping<T> em) {
+		this.type = type;
+		this.em = em;
+	}
+
+	/**
+	 * 把实体操作按表和操作类型分组.
+	 * <p>
+	 * 先删除，再插入，最后修改.
+	 * 
+	 * @param operates 实体操作集合
+	 * @return 分组后的批次列表
+	 */
+	static List<EntityBatch<?>> group(Collection<EntityOperate<?>> operates) {
+		Map<EntityMapping<?>, EntityBatch<?>> deletes = new HashMap<>();
+		Map<EntityMapping<?>, EntityBatch<?>> inserts = new HashMap<>();
+		Map<EntityMapping<?>, EntityBatch<?>> updates = new HashMap<>();
+		for (EntityOperate<?> op : operates) {
+			if (op.isDelete()) {
+				add(deletes, OperateType.DELETE, op);
+			} else if (op.isInsert()) {
+				add(inserts, OperateType.INSERT, op);
+			} else if (op.isUpdate()) {
+				add(updates, OperateType.UPDATE, op);
+			} else {
+				logger.error("未知的操作实现... entity={}", op.getId());
+			}
+		}
+
+		List<EntityBatch<?>> result = new ArrayList<>(deletes.size() + inserts.size() + updates.size());
+		result.addAll(deletes.values());
+		result.addAll(inserts.values());
+		result.addAll(updates.values());
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void add(Map<EntityMapping<?>, EntityBatch<?>> batches, OperateType type, EntityOperate<T> op) {
+		EntityBatch<T> batch = (EntityBatch<T>) batches.computeIfAbsent(op.getEntityMapping(), key -> new EntityBatch<>(type, op.getEntityMapping()));
+		batch.operates.add(op);
+	}
+
+	/**
+	 * 回写这一批实体.
+	 * <p>
+	 * 只使用入队时编码好的字段值快照，不会接触实体对象本身.
+	 * 
+	 * @param dataAccessor 数据访问策略
+	 * @param dirtyTracker 脏数据检测
+	 * @param playerId 玩家ID
+	 * @return 没有回写成功的实体操作，需要下次再回写
+	 */
+	List<EntityOperate<T>> flush(DataAccessor dataAccessor, DirtyTracker dirtyTracker, Serializable playerId) {
+		// 开启了脏数据检测的实体，修改时只回写有变化的字段，插入和删除的就不用再对比了
+		if (em.isDirtyCheck()) {
+			if (type == OperateType.UPDATE) {
+				return dirtyTracker.flush(em, operates, dataAccessor, playerId);
+			}
+			operates.forEach(op -> dirtyTracker.remove(op.getId()));
+		}
+
+		switch (type) {
+		case DELETE: {
+			List<Serializable> ids = new ArrayList<>(operates.size());
+			operates.forEach(op -> ids.add(op.getPrimaryIdValue()));
+			return select(operates, execute(em, ids, v -> dataAccessor.batchDelete(em, v), null, playerId));
+		}
+		case INSERT: {
+			List<Object[]> rows = new ArrayList<>(operates.size());
+			operates.forEach(op -> rows.add(op.getRow()));
+			return select(operates, execute(em, rows, v -> dataAccessor.batchInsert(em, v), null, playerId));
+		}
+		default: {
+			// 修改全部非主键字段
+			List<FieldMapping> fields = em.getFieldMapping();
+			int[] indexes = new int[fields.size() - 1];
+			List<FieldMapping> columns = new ArrayList<>(indexes.length);
+			for (int i = 0, j = 0; i < fields.size(); i++) {
+				if (!fields.get(i).isPrimaryId()) {
+					indexes[j++] = i;
+					columns.add(fields.get(i));
+				}
+			}
+
+			// 只有主键的实体，没什么可修改的
+			if (columns.isEmpty()) {
+				return Collections.emptyList();
+			}
+
+			List<Object[]> rows = new ArrayList<>(operates.size());
+			operates.forEach(op -> rows.add(toUpdateRow(op, indexes)));
+			return select(operates, execute(em, rows, v -> dataAccessor.batchUpdate(em, columns, v), null, playerId));
+		}
+		}
+	}
+
+	/**
+	 * 按位置取出回写失败的元素.
+	 */
+	static <E> List<E> select(List<E> list, BitSet failed) {
+		if (failed.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<E> result = new ArrayList<>(failed.cardinality());
+		failed.stream().forEach(i -> result.add(list.get(i)));
+		return result;
+	}
+
+	/**
+	 * 取出修改语句的参数，先是需要修改的字段值，最后是主键值.
+	 * 
+	 * @param op 实体操作
+	 * @param indexes 需要修改的字段位置
+	 * @return 修改语句的参数
+	 */
+	static Object[] toUpdateRow(EntityOperate<?> op, int[] indexes) {
+		Object[] values = op.getRow();
+		Object[] row = new Object[indexes.length + 1];
+		for (int i = 0; i < indexes.length; i++) {
+			row[i] = values[indexes[i]];
+		}
+		row[indexes.length] = op.getPrimaryIdValue();
+		return row;
+	}
+
+	/**
+	 * 批量执行.
+	 * <p>
+	 * 批处理失败时改为逐条执行，把有问题的那条数据找出来，不影响其他数据的保存.<br>
+	 * 批处理失败前已经保存了的数据（前面已提交的批次，或驱动跳过失败的那条继续执行的），不再重复执行.
+	 * 
+	 * @param em 实体映射对象
+	 * @param rows 每条数据的参数
+	 * @param action 批量执行的逻辑
+	 * @param saved 执行成功后的回调，可以为null
+	 * @param playerId 玩家ID
+	 * @return 执行失败的数据在列表中的位置
+	 */
+	static <R> BitSet execute(EntityMapping<?> em, List<R> rows, Function<List<R>, int[]> action, SavedCallback saved, Serializable playerId) {
+		int[] counts = null;
+		// 只有一条就没必要先试一次批处理了
+		if (rows.size() > 1) {
+			try {
+				int[] result = action.apply(rows);
+				if (saved != null) {
+					for (int i = 0; i < rows.size(); i++) {
+						saved.accept(i, result[i]);
+					}
+				}
+				return new BitSet();
+			} catch (Exception e) {
+				counts = updateCounts(e);
+				logger.warn("批量保存实体时异常，改为逐条保存. playerId={}, entity={}{}", playerId, em.getEntityClass().getName(), e);
+			}
+		}
+
+		BitSet failed = new BitSet(rows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			// 批处理中已经保存成功了的，再执行一次插入就主键冲突了
+			if (counts != null && i < counts.length && counts[i] != Statement.EXECUTE_FAILED) {
+				if (saved != null) {
+					saved.accept(i, counts[i]);
+				}
+				continue;
+			}
+
+			R row = rows.get(i);
+			try {
+				int[] result = action.apply(Collections.singletonList(row));
+				if (saved != null) {
+					saved.accept(i, result[0]);
+				}
+			} catch (Exception ex) {
+				failed.set(i);
+				logger.error("保存实体时数据异常，playerId={}{}", playerId, ex);
+				logger.error("保存实体时的异常数据 entity={}, row={}", em.getEntityClass().getName(), row instanceof Object[] ? Arrays.toString((Object[]) row) : row);
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * 取出批处理异常中每条数据的影响行数.
+	 * 
+	 * @return 不是批处理异常时返回null
+	 */
+	private static int[] updateCounts(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof BatchUpdateException) {
+				return ((BatchUpdateException) cause).getUpdateCounts();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 一条数据执行成功后的回调.
+	 */
+	@FunctionalInterface
+	interface SavedCallback {
+		/**
+		 * 一条数据执行成功了.
+		 * 
+		 * @param index 数据在列表中的位置
+		 * @param count 影响行数
+		 */
+		void accept(int index, int count);
+	}
+
+	OperateType getType() {
+		return type;
+	}
+
+	EntityMapping<T> getEntityMapping() {
+		return em;
+	}
+
+	List<EntityOperate<T>> getOperates() {
+		return operates;
+	}
+}
\ No newline at end of file
@@ -13,10 +13,14 @@
  */
 package xyz.noark.orm.write.impl;
 
+import java.io.Serializable;
+
 import xyz.noark.orm.EntityMapping;
 
 /**
  * 实体操作包装类.
+ * <p>
+ * 保存的是实体在业务线程中编码好的各字段值快照，回写线程只使用这个快照，不再接触实体对象本身.
  *
  * @since 3.0
  * @author 小流氓(176543888@qq.com)
@@ -25,22 +29,28 @@ public class EntityOperate<T> {
 	private String id;
 
 	private EntityMapping<T> em;
-	private T entity;
+	/** 主键值，删除时只需要它 */
+	private Serializable primaryIdValue;
+	/** 实体各字段存储时的值，顺序与{@link EntityMapping#getFieldMapping()}一致 */
+	private Object[] row;
 
 	private boolean insert = false;
 	private boolean update = false;
 	private boolean delete = false;
+	/** 回写失败的次数 */
+	private int failures = 0;
 
-	public EntityOperate(String entityId, EntityMapping<T> em) {
+	public EntityOperate(String entityId, EntityMapping<T> em, Serializable primaryIdValue) {
 		this.em = em;
 		this.id = entityId;
+		this.primaryIdValue = primaryIdValue;
 	}
 
-	private void updateEntity(T entity) {
-		this.entity = entity;
+	private void updateRow(Object[] row) {
+		this.row = row;
 	}
 
-	public void insert(T insertEntity) {
+	public void insert(Object[] insertRow) {
 		if (delete) {
 			this.delete = false;
 			this.update = true;
@@ -48,24 +58,52 @@ public class EntityOperate<T> {
 			this.insert = true;
 		}
 
-		this.updateEntity(insertEntity);
+		this.updateRow(insertRow);
 	}
 
-	public void update(T entity) {
+	public void update(Object[] row) {
 		this.update = true;
-		this.updateEntity(entity);
+		this.updateRow(row);
 	}
 
-	public boolean delete(T deleteEntity) {
+	public boolean delete() {
 		// 如果是刚插入的状态，直接返回true，由调用层删除
 		if (insert) {
 			return true;
 		}
 		this.delete = true;
-		this.updateEntity(deleteEntity);
 		return false;
 	}
 
+	/**
+	 * 把之后的操作合并到这个还没回写成功的操作上.
+	 * <p>
+	 * 按之后的操作最终的状态再执行一次插入、修改或删除，保证插入失败的还是插入，删除失败后又插入的变成修改.
+	 * 
+	 * @param next 之后的操作
+	 * @return 如果合并后什么都不需要做了则返回true，由调用层删除
+	 */
+	boolean merge(EntityOperate<T> next) {
+		if (next.isDelete()) {
+			return this.delete();
+		}
+		if (next.isInsert()) {
+			this.insert(next.row);
+		} else {
+			this.update(next.row);
+		}
+		return false;
+	}
+
+	/**
+	 * 记录一次回写失败，合并之后的操作也不会清零.
+	 * 
+	 * @return 已回写失败的次数
+	 */
+	int fail() {
+		return ++failures;
+	}
+
 	public String getId() {
 		return id;
 	}
@@ -74,6 +112,10 @@ public class EntityOperate<T> {
 		return em;
 	}
 
+	public Serializable getPrimaryIdValue() {
+		return primaryIdValue;
+	}
+
 	public boolean isDelete() {
 		return delete;
 	}
@@ -92,8 +134,7 @@ public class EntityOperate<T> {
 		return update;
 	}
 
-	public T getEntity() {
-		// FIXME 这里再好弄成深拷贝
-		return entity;
+	public Object[] getRow() {
+		return row;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write.impl;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import xyz.noark.core.lang.LatencyHistogram;
+import xyz.noark.core.thread.NamedThreadFactory;
+
+/**
+ * 基于时间轮的回写调度器.
+ * <p>
+ * 每秒走一格，一圈正好是一个存档间隔，回写容器按注册顺序轮流分到各个格子里，<br>
+ * 同一时间大量玩家登录也不会在同一秒集中回写，调度器本身也只有一个定时任务.
+ * <p>
+ * 真正的回写交给固定数量的回写线程，线程数就是同时访问DB的回写数量上限.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+class FlushScheduler {
+	private final List<Set<Task>> wheel;
+	/** 下一个注册的回写任务分到的格子 */
+	private final AtomicInteger nextSlot = new AtomicInteger();
+	/** 当前走到的格子，只在定时线程中修改 */
+	private int currentSlot = 0;
+	private final ThreadPoolExecutor flushExecutor;
+
+	/** 从该回写到开始回写的延迟 */
+	private final LatencyHistogram lagHistogram = new LatencyHistogram();
+	/** 每次回写的耗时 */
+	private final LatencyHistogram execHistogram = new LatencyHistogram();
+
+	/**
+	 * 创建一个回写调度器.
+	 * 
+	 * @param saveInterval 存档间隔，单位：秒
+	 * @param flushThreads 回写线程数
+	 */
+	FlushScheduler(int saveInterval, int flushThreads) {
+		int slots = Math.max(1, saveInterval);
+		this.wheel = new ArrayList<>(slots);
+		for (int i = 0; i < slots; i++) {
+			wheel.add(ConcurrentHashMap.newKeySet());
+		}
+		this.flushExecutor = new ThreadPoolExecutor(flushThreads, flushThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("async-write-flush"));
+	}
+
+	/**
+	 * 开始转动时间轮.
+	 * 
+	 * @param scheduledExecutor 驱动时间轮的定时器
+	 */
+	void start(ScheduledExecutorService scheduledExecutor) {
+		scheduledExecutor.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * 注册一个定时回写任务，注册后一个存档间隔左右开始第一次回写.
+	 * 
+	 * @param flush 回写逻辑
+	 * @return 回写任务
+	 */
+	Task register(Runnable flush) {
+		Task task = new Task(flush, Math.floorMod(nextSlot.getAndIncrement(), wheel.size()));
+		wheel.get(task.slot).add(task);
+		return task;
+	}
+
+	/**
+	 * 取消一个定时回写任务，已提交的回写还会执行.
+	 * 
+	 * @param task 回写任务
+	 */
+	void cancel(Task task) {
+		wheel.get(task.slot).remove(task);
+	}
+
+	/**
+	 * 立即提交一次回写.
+	 * <p>
+	 * 这个任务已在排队时就不再重复提交，排队的那次回写会把最新的数据一起写掉.
+	 * 
+	 * @param task 回写任务
+	 */
+	void submit(Task task) {
+		this.submit(task, System.nanoTime());
+	}
+
+	private void submit(Task task, long dueTime) {
+		if (!task.queued.compareAndSet(false, true)) {
+			return;
+		}
+		flushExecutor.execute(() -> {
+			task.queued.set(false);
+			long startTime = System.nanoTime();
+			lagHistogram.record(startTime - dueTime);
+			try {
+				task.flush.run();
+			} finally {
+				execHistogram.record(System.nanoTime() - startTime);
+			}
+		});
+	}
+
+	/**
+	 * 走一格，提交这一格里的全部回写任务.
+	 */
+	void tick() {
+		try {
+			Set<Task> tasks = wheel.get(currentSlot);
+			this.currentSlot = (currentSlot + 1) % wheel.size();
+			long now = System.nanoTime();
+			for (Task task : tasks) {
+				this.submit(task, now);
+			}
+		} catch (Exception e) {// 时间轮不能停了
+			logger.error("提交回写任务时异常.", e);
+		}
+	}
+
+	/**
+	 * 停止接收新的回写，并等待已提交的回写完成.
+	 * 
+	 * @param timeout 最长等待时间
+	 * @param unit 时间单位
+	 * @return 全部回写完成时返回true
+	 * @throws InterruptedException 等待时被中断
+	 */
+	boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		flushExecutor.shutdown();
+		if (flushExecutor.awaitTermination(timeout, unit)) {
+			return true;
+		}
+		flushExecutor.shutdownNow();
+		return false;
+	}
+
+	/**
+	 * 等待回写的任务数量.
+	 * 
+	 * @return 队列深度
+	 */
+	int getQueueSize() {
+		return flushExecutor.getQueue().size();
+	}
+
+	LatencyHistogram getLagHistogram() {
+		return lagHistogram;
+	}
+
+	LatencyHistogram getExecHistogram() {
+		return execHistogram;
+	}
+
+	/**
+	 * 时间轮中的一个回写任务.
+	 */
+	static class Task {
+		private final Runnable flush;
+		private final int slot;
+		/** 是否已提交还没开始执行 */
+		private final AtomicBoolean queued = new AtomicBoolean(false);
+
+		private Task(Runnable flush, int slot) {
+			this.flush = flush;
+			this.slot = slot;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,569 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write.impl;
+
+import static xyz.noark.log.LogHelper.logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import xyz.noark.core.thread.NamedThreadFactory;
+import xyz.noark.orm.AnnotationEntityMaker;
+import xyz.noark.orm.EntityMapping;
+import xyz.noark.orm.FieldMapping;
+import xyz.noark.orm.accessor.DataAccessor;
+import xyz.noark.orm.write.OperateType;
+
+/**
+ * 异步回写的预写日志.
+ * <p>
+ * 业务线程每次插入、修改、删除时都先把字段值快照追加到内存映射的日志文件中，<br>
+ * 由后台线程按固定间隔统一刷盘（组提交），停服或宕机重启时在异步回写服务初始化时重放没有回写的操作.
+ * <p>
+ * 日志按段存储，每段一个文件，所有回写容器都不再引用的旧段会被删除.<br>
+ * 每条记录的格式为：[长度][CRC32][内容]，重放时遇到长度为0或校验不通过的记录就认为这一段已读完.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+class WriteAheadJournal {
+	/** 没有引用任何日志段 */
+	static final long NONE = Long.MAX_VALUE;
+	/** 日志段文件的后缀 */
+	private static final String SUFFIX = ".wal";
+	/** 每条记录头的长度：长度+CRC32 */
+	private static final int HEADER_LENGTH = 8;
+
+	private static final byte TAG_NULL = 0;
+	private static final byte TAG_STRING = 1;
+	private static final byte TAG_INT = 2;
+	private static final byte TAG_LONG = 3;
+	private static final byte TAG_BOOLEAN = 4;
+	private static final byte TAG_FLOAT = 5;
+	private static final byte TAG_DOUBLE = 6;
+	private static final byte TAG_TIMESTAMP = 7;
+	private static final byte TAG_BYTES = 8;
+	private static final byte TAG_OBJECT = 9;
+
+	private final File dir;
+	private final int segmentSize;
+	private final int syncInterval;
+
+	private Segment current;
+	private long nextSegmentIndex = 0;
+	/** 已切换出去还没有刷盘的日志段，由刷盘线程去刷 */
+	private final Queue<Segment> rolled = new ConcurrentLinkedQueue<>();
+	private ScheduledExecutorService syncExecutor;
+
+	/**
+	 * 创建一个预写日志.
+	 * 
+	 * @param dir 日志文件存放目录
+	 * @param segmentSize 每个日志段的大小，单位：字节
+	 * @param syncInterval 刷盘间隔，单位：毫秒
+	 */
+	WriteAheadJournal(File dir, int segmentSize, int syncInterval) {
+		this.dir = dir;
+		this.segmentSize = segmentSize;
+		this.syncInterval = syncInterval;
+	}
+
+	/**
+	 * 重放上次没有回写到DB的操作.
+	 * <p>
+	 * 同一个实体只重放最后一次操作，插入和修改都是全字段的快照，先修改，没有这条数据时再插入.<br>
+	 * 恢复不了的操作写入死信日志，不影响服务启动，重放完成后删除这些日志段.
+	 * 
+	 * @param dataAccessor 数据访问策略
+	 * @param deadLetterLog 死信日志
+	 * @return 重放的实体数量
+	 */
+	int replay(DataAccessor dataAccessor, DeadLetterLog deadLetterLog) {
+		File[] files = this.listSegments();
+		if (files.length == 0) {
+			return 0;
+		}
+
+		// 同一个实体只保留最后一次操作，保持原来的先后顺序
+		Map<String, Record> records = new LinkedHashMap<>();
+		for (File file : files) {
+			for (Record record : read(file)) {
+				String key = record.className + "#" + record.id;
+				records.remove(key);
+				records.put(key, record);
+			}
+		}
+
+		logger.info("开始重放预写日志，segments={}, entitys={}", files.length, records.size());
+		Map<String, EntityMapping<?>> mappings = new HashMap<>();
+		Map<EntityMapping<?>, List<Record>> deletes = new LinkedHashMap<>();
+		Map<EntityMapping<?>, List<Record>> saves = new LinkedHashMap<>();
+		List<Record> failed = new ArrayList<>();
+		for (Record record : records.values()) {
+			EntityMapping<?> em = mappings.computeIfAbsent(record.className, WriteAheadJournal::make);
+			if (em == null) {
+				failed.add(record);
+			} else if (record.type == OperateType.DELETE) {
+				deletes.computeIfAbsent(em, key -> new ArrayList<>()).add(record);
+			} else {
+				saves.computeIfAbsent(em, key -> new ArrayList<>()).add(record);
+			}
+		}
+
+		for (Map.Entry<EntityMapping<?>, List<Record>> e : deletes.entrySet()) {
+			EntityMapping<?> em = e.getKey();
+			List<Serializable> ids = new ArrayList<>(e.getValue().size());
+			e.getValue().forEach(v -> ids.add(v.id));
+			failed.addAll(EntityBatch.select(e.getValue(), EntityBatch.execute(em, ids, v -> dataAccessor.batchDelete(em, v), null, "journal")));
+		}
+		for (Map.Entry<EntityMapping<?>, List<Record>> e : saves.entrySet()) {
+			failed.addAll(save(dataAccessor, e.getKey(), e.getValue()));
+		}
+
+		// 恢复不了的隔离到死信日志里，不能因为几条坏数据就启动不了服务
+		for (Record record : failed) {
+			deadLetterLog.write("journal", record.type, record.className, record.id, record.row);
+		}
+		logger.info("重放预写日志完成，entitys={}, failed={}", records.size(), failed.size());
+
+		for (File file : files) {
+			if (!file.delete()) {
+				logger.warn("删除已重放的预写日志失败，file={}", file.getAbsolutePath());
+			}
+		}
+		return records.size();
+	}
+
+	/**
+	 * 保存全字段的快照，先修改，修改不到的再插入.
+	 * 
+	 * @return 保存失败的记录
+	 */
+	private static List<Record> save(DataAccessor dataAccessor, EntityMapping<?> em, List<Record> records) {
+		List<FieldMapping> fields = em.getFieldMapping();
+		int[] indexes = new int[fields.size() - 1];
+		List<FieldMapping> columns = new ArrayList<>(indexes.length);
+		int primaryIndex = 0;
+		for (int i = 0, j = 0; i < fields.size(); i++) {
+			if (fields.get(i).isPrimaryId()) {
+				primaryIndex = i;
+			} else {
+				indexes[j++] = i;
+				columns.add(fields.get(i));
+			}
+		}
+
+		List<Record> failed = new ArrayList<>();
+		List<Record> inserts = new ArrayList<>();
+		if (columns.isEmpty()) {
+			inserts.addAll(records);
+		} else {
+			List<Object[]> updateRows = new ArrayList<>(records.size());
+			for (Record record : records) {
+				Object[] values = record.row;
+				Object[] row = new Object[indexes.length + 1];
+				for (int i = 0; i < indexes.length; i++) {
+					row[i] = values[indexes[i]];
+				}
+				row[indexes.length] = values[primaryIndex];
+				updateRows.add(row);
+			}
+			BitSet result = EntityBatch.execute(em, updateRows, v -> dataAccessor.batchUpdate(em, columns, v), (i, count) -> {
+				// 一条都没有修改到的，说明插入的还没有回写，那就插入
+				if (count == 0) {
+					inserts.add(records.get(i));
+				}
+			}, "journal");
+			failed.addAll(EntityBatch.select(records, result));
+		}
+
+		if (!inserts.isEmpty()) {
+			List<Object[]> insertRows = new ArrayList<>(inserts.size());
+			inserts.forEach(v -> insertRows.add(v.row));
+			failed.addAll(EntityBatch.select(inserts, EntityBatch.execute(em, insertRows, v -> dataAccessor.batchInsert(em, v), null, "journal")));
+		}
+		return failed;
+	}
+
+	private static EntityMapping<?> make(String className) {
+		try {
+			return new AnnotationEntityMaker().make(Class.forName(className));
+		} catch (Exception e) {
+			logger.error("重放预写日志时找不到实体类，它的操作写入死信日志. class={}{}", className, e);
+			return null;
+		}
+	}
+
+	/**
+	 * 读取一个日志段中的所有完整记录.
+	 */
+	static List<Record> read(File file) {
+		List<Record> result = new ArrayList<>();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			CRC32 crc = new CRC32();
+			while (buffer.remaining() >= HEADER_LENGTH) {
+				int length = buffer.getInt();
+				int checksum = buffer.getInt();
+				// 没有写过的区域都是0，说明这一段读完了
+				if (length <= 0 || length > buffer.remaining()) {
+					break;
+				}
+
+				byte[] payload = new byte[length];
+				buffer.get(payload);
+				crc.reset();
+				crc.update(payload);
+				if ((int) crc.getValue() != checksum) {
+					logger.warn("预写日志记录校验失败，之后的记录都忽略. file={}, position={}", file.getName(), buffer.position() - length - HEADER_LENGTH);
+					break;
+				}
+				result.add(decode(payload));
+			}
+		} catch (Exception e) {
+			logger.error("读取预写日志时异常，file={}{}", file.getAbsolutePath(), e);
+		}
+		return result;
+	}
+
+	/**
+	 * 打开日志，开始接收新的记录.
+	 * 
+	 * @throws IOException 创建日志文件失败时抛出
+	 */
+	synchronized void open() throws IOException {
+		if (!dir.exists() && !dir.mkdirs()) {
+			throw new IOException("创建预写日志目录失败，dir=" + dir.getAbsolutePath());
+		}
+		// 接着已有日志段的编号，不要覆盖了还没有重放的日志
+		for (File file : this.listSegments()) {
+			nextSegmentIndex = Math.max(nextSegmentIndex, parseIndex(file) + 1);
+		}
+		this.current = new Segment(nextSegmentIndex++, segmentSize);
+
+		this.syncExecutor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("journal-sync"));
+		syncExecutor.scheduleWithFixedDelay(this::sync, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 编码一条操作记录，在业务线程中调用，不需要加锁.
+	 * 
+	 * @param type 操作类型
+	 * @param em 实体映射对象
+	 * @param id 主键值
+	 * @param row 字段值快照，删除时为null
+	 * @return 包含记录头的完整记录
+	 * @throws IOException 字段值无法编码时抛出
+	 */
+	static byte[] encode(OperateType type, EntityMapping<?> em, Serializable id, Object[] row) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(baos);
+		// 先占个记录头的位置
+		out.writeLong(0);
+		out.writeByte(type.ordinal());
+		out.writeUTF(em.getEntityClass().getName());
+		writeValue(out, id);
+		if (row != null) {
+			out.writeInt(row.length);
+			for (Object value : row) {
+				writeValue(out, value);
+			}
+		}
+		out.flush();
+
+		byte[] record = baos.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(record, HEADER_LENGTH, record.length - HEADER_LENGTH);
+		ByteBuffer.wrap(record).putInt(record.length - HEADER_LENGTH).putInt((int) crc.getValue());
+		return record;
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(TAG_NULL);
+		} else if (value instanceof String) {
+			// writeUTF最长只能64K，Json字段可能会超过
+			byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+			out.writeByte(TAG_STRING);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		} else if (value instanceof Integer) {
+			out.writeByte(TAG_INT);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(TAG_LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(TAG_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Float) {
+			out.writeByte(TAG_FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Double) {
+			out.writeByte(TAG_DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Timestamp) {
+			out.writeByte(TAG_TIMESTAMP);
+			out.writeLong(((Timestamp) value).getTime());
+			out.writeInt(((Timestamp) value).getNanos());
+		} else if (value instanceof byte[]) {
+			out.writeByte(TAG_BYTES);
+			out.writeInt(((byte[]) value).length);
+			out.write((byte[]) value);
+		} else {
+			// 其他类型的少见，就用Java序列化吧
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+				oos.writeObject(value);
+			}
+			out.writeByte(TAG_OBJECT);
+			out.writeInt(baos.size());
+			baos.writeTo(out);
+		}
+	}
+
+	static Record decode(byte[] payload) throws IOException, ClassNotFoundException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		Record record = new Record();
+		record.type = OperateType.values()[in.readByte()];
+		record.className = in.readUTF();
+		record.id = (Serializable) readValue(in);
+		if (record.type != OperateType.DELETE) {
+			record.row = new Object[in.readInt()];
+			for (int i = 0; i < record.row.length; i++) {
+				record.row[i] = readValue(in);
+			}
+		}
+		return record;
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case TAG_NULL:
+			return null;
+		case TAG_STRING: {
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		case TAG_INT:
+			return in.readInt();
+		case TAG_LONG:
+			return in.readLong();
+		case TAG_BOOLEAN:
+			return in.readBoolean();
+		case TAG_FLOAT:
+			return in.readFloat();
+		case TAG_DOUBLE:
+			return in.readDouble();
+		case TAG_TIMESTAMP: {
+			Timestamp timestamp = new Timestamp(in.readLong());
+			timestamp.setNanos(in.readInt());
+			return timestamp;
+		}
+		case TAG_BYTES: {
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			return bytes;
+		}
+		case TAG_OBJECT: {
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+				return ois.readObject();
+			}
+		}
+		default:
+			throw new IOException("未知的字段值类型，tag=" + tag);
+		}
+	}
+
+	/**
+	 * 追加一条记录，只是写入内存映射区，由刷盘线程统一刷到磁盘.
+	 * 
+	 * @param record 由{@link #encode(OperateType, EntityMapping, Serializable, Object[])}编码好的记录
+	 * @throws IOException 切换日志段失败时抛出
+	 */
+	synchronized void append(byte[] record) throws IOException {
+		if (current.buffer.remaining() < record.length) {
+			this.roll(record.length);
+		}
+		current.buffer.put(record);
+		current.dirty = true;
+	}
+
+	/**
+	 * 当前正在写入的日志段编号.
+	 * <p>
+	 * 编号只增不减，比这个编号小的日志段都不会再写入了.
+	 * 
+	 * @return 日志段编号
+	 */
+	synchronized long currentSegment() {
+		return current.index;
+	}
+
+	/**
+	 * 当前日志段有记录时切换到新的日志段，以便旧的日志段能被删除.
+	 * 
+	 * @throws IOException 创建日志文件失败时抛出
+	 */
+	synchronized void roll() throws IOException {
+		if (current.buffer.position() > 0) {
+			this.roll(0);
+		}
+	}
+
+	/**
+	 * 锁内只创建新的映射区，旧的日志段交给刷盘线程去刷，不要让业务线程等一整段的刷盘.
+	 */
+	private void roll(int minSize) throws IOException {
+		Segment old = current;
+		this.current = new Segment(nextSegmentIndex++, Math.max(segmentSize, minSize));
+		if (old.dirty) {
+			rolled.add(old);
+		}
+	}
+
+	/**
+	 * 删除编号比指定编号小的日志段，这些日志段里的操作都已回写到DB了.
+	 * 
+	 * @param segment 还在引用的最小日志段编号
+	 */
+	void truncate(long segment) {
+		long min = Math.min(segment, this.currentSegment());
+		for (File file : this.listSegments()) {
+			if (parseIndex(file) < min && !file.delete()) {
+				logger.warn("删除预写日志失败，file={}", file.getAbsolutePath());
+			}
+		}
+	}
+
+	/**
+	 * 把写入内存映射区的记录刷到磁盘.
+	 * <p>
+	 * 锁内只取出要刷的日志段，刷盘在锁外进行，不影响业务线程追加记录.
+	 */
+	void sync() {
+		for (Segment segment = rolled.poll(); segment != null; segment = rolled.poll()) {
+			segment.buffer.force();
+		}
+
+		Segment segment = null;
+		synchronized (this) {
+			if (current != null && current.dirty) {
+				segment = current;
+				// 先清标记，刷盘期间追加的记录会重新标记，下次再刷
+				segment.dirty = false;
+			}
+		}
+		if (segment != null) {
+			segment.buffer.force();
+		}
+	}
+
+	/**
+	 * 关闭日志.
+	 * 
+	 * @param clean 所有操作都已回写到DB时为true，删除全部日志段
+	 */
+	void close(boolean clean) {
+		if (syncExecutor != null) {
+			syncExecutor.shutdown();
+		}
+		synchronized (this) {
+			if (current != null && current.dirty) {
+				rolled.add(current);
+			}
+			this.current = null;
+		}
+		this.sync();
+		if (clean) {
+			for (File file : this.listSegments()) {
+				if (!file.delete()) {
+					logger.warn("删除预写日志失败，file={}", file.getAbsolutePath());
+				}
+			}
+		}
+	}
+
+	private File[] listSegments() {
+		File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+		if (files == null) {
+			return new File[0];
+		}
+		Arrays.sort(files, (a, b) -> Long.compare(parseIndex(a), parseIndex(b)));
+		return files;
+	}
+
+	private static long parseIndex(File file) {
+		String name = file.getName();
+		return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+	}
+
+	/**
+	 * 一条重放的操作记录.
+	 */
+	static class Record {
+		OperateType type;
+		String className;
+		Serializable id;
+		Object[] row;
+	}
+
+	/**
+	 * 一个日志段.
+	 */
+	private class Segment {
+		private final long index;
+		private final MappedByteBuffer buffer;
+		private boolean dirty = false;
+
+		private Segment(long index, int size) throws IOException {
+			this.index = index;
+			// 映射区在文件关闭后依然有效
+			try (RandomAccessFile raf = new RandomAccessFile(new File(dir, String.format("%020d", index) + SUFFIX), "rw")) {
+				this.buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, size);
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.accessor.sql.mysql;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+import xyz.noark.core.exception.DataAccessException;
+import xyz.noark.orm.AnnotationEntityMaker;
+import xyz.noark.orm.DataModular;
+import xyz.noark.orm.EntityMapping;
+import xyz.noark.orm.domain.Item;
+
+/**
+ * MySQL批量保存测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class MysqlDataAccessorTest {
+
+	@Test
+	public void testBatchUpdateCounts() {
+		DataModular.CheckUnderScoreCase = false;
+		EntityMapping<Item> em = new AnnotationEntityMaker().make(Item.class);
+		AtomicInteger batches = new AtomicInteger();
+		MysqlDataAccessor dataAccessor = new MysqlDataAccessor(newDataSource(batches));
+		dataAccessor.setBatchSize(2);
+
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) {
+			rows.add(new Object[] { i, i });
+		}
+		try {
+			dataAccessor.batchInsert(em, rows);
+			fail();
+		} catch (DataAccessException e) {
+			// 第一批已经提交了，第二批驱动跳过失败的那条继续执行，第三批没有提交
+			assertTrue(e.getCause() instanceof BatchUpdateException);
+			int[] counts = ((BatchUpdateException) e.getCause()).getUpdateCounts();
+			assertArrayEquals(new int[] { 1, 1, 1, Statement.EXECUTE_FAILED, Statement.EXECUTE_FAILED }, counts);
+		}
+		assertEquals(2, batches.get());
+	}
+
+	/**
+	 * 第一批全部成功，第二批的第二条失败.
+	 */
+	private static DataSource newDataSource(AtomicInteger batches) {
+		PreparedStatement pstmt = proxy(PreparedStatement.class, (method, args) -> {
+			if ("executeBatch".equals(method)) {
+				if (batches.incrementAndGet() == 2) {
+					throw new BatchUpdateException(new int[] { 1, Statement.EXECUTE_FAILED });
+				}
+				return new int[] { 1, 1 };
+			}
+			return null;
+		});
+		Connection con = proxy(Connection.class, (method, args) -> "prepareStatement".equals(method) ? pstmt : null);
+		return proxy(DataSource.class, (method, args) -> "getConnection".equals(method) ? con : null);
+	}
+
+	private static <T> T proxy(Class<T> klass, Handler handler) {
+		return klass.cast(Proxy.newProxyInstance(klass.getClassLoader(), new Class<?>[] { klass }, (p, method, args) -> {
+			Object result = handler.invoke(method.getName(), args);
+			if (result == null && method.getReturnType() == boolean.class) {
+				return false;
+			}
+			return result;
+		}));
+	}
+
+	private interface Handler {
+		Object invoke(String method, Object[] args) throws Exception;
+	}
+}
\ No newline at end of file
@@ -30,6 +30,9 @@ public class Item {
 	@Column(name = "ID")
 	private int id;
 
+	@Column(name = "NUM")
+	private int num;
+
 	public int getId() {
 		return id;
 	}
@@ -37,4 +40,12 @@ public class Item {
 	public void setId(int id) {
 		this.id = id;
 	}
+
+	public int getNum() {
+		return num;
+	}
+
+	public void setNum(int num) {
+		this.num = num;
+	}
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import xyz.noark.orm.AnnotationEntityMaker;
+import xyz.noark.orm.DataModular;
+import xyz.noark.orm.EntityMapping;
+import xyz.noark.orm.domain.Item;
+import xyz.noark.orm.write.AsyncWriteConfig;
+
+/**
+ * 异步回写服务的失败重试测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class DefaultAsyncWriteServiceImplTest {
+
+	@Test
+	public void testDeadLetter() throws Exception {
+		DataModular.CheckUnderScoreCase = false;
+		EntityMapping<Item> em = new AnnotationEntityMaker().make(Item.class);
+		File dir = Files.createTempDirectory("journal").toFile();
+		RecordDataAccessor dataAccessor = new RecordDataAccessor();
+		dataAccessor.badRow = row -> ((Object[]) row)[0].equals(2);
+
+		DefaultAsyncWriteServiceImpl service = new DefaultAsyncWriteServiceImpl();
+		Field field = DefaultAsyncWriteServiceImpl.class.getDeclaredField("dataAccessor");
+		field.setAccessible(true);
+		field.set(service, dataAccessor);
+		AsyncWriteConfig config = new AsyncWriteConfig();
+		config.setSaveInterval(3600);
+		config.setFlushMaxRetries(1);
+		config.setJournalEnabled(true);
+		config.setJournalDir(dir.getAbsolutePath());
+		config.setJournalSegmentSize(1024);
+		service.init(config);
+
+		Item item = new Item();
+		item.setId(2);
+		item.setNum(20);
+		service.insert(em, item);
+
+		// 失败了先重试，超过重试次数就写入死信日志并放弃
+		service.syncFlushAll();
+		service.syncFlushAll();
+		service.syncFlushAll();
+		assertEquals(Arrays.asList("batchInsert:1", "batchInsert:1"), dataAccessor.records);
+
+		File deadLetter = new File(dir, DeadLetterLog.FILE_NAME);
+		List<String> lines = Files.readAllLines(deadLetter.toPath());
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0).contains("id=2, row=[2, 20]"));
+
+		// 放弃的操作不再引用预写日志，停服时日志段都删除了
+		service.shutdown();
+		assertEquals(Arrays.asList(deadLetter), Arrays.asList(dir.listFiles()));
+		deadLetter.delete();
+		dir.delete();
+	}
+}
\ No newline at end of file
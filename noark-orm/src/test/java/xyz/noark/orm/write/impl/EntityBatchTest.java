@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import xyz.noark.orm.AnnotationEntityMaker;
+import xyz.noark.orm.DataModular;
+import xyz.noark.orm.EntityMapping;
+import xyz.noark.orm.domain.Item;
+import xyz.noark.orm.domain.Role;
+import xyz.noark.orm.write.OperateType;
+
+/**
+ * 批量回写分组、快照与脏数据检测测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class EntityBatchTest {
+	private EntityMapping<Item> em;
+	private final RecordDataAccessor dataAccessor = new RecordDataAccessor();
+
+	@Before
+	public void setUp() {
+		DataModular.CheckUnderScoreCase = false;
+		em = new AnnotationEntityMaker().make(Item.class);
+	}
+
+	@Test
+	public void testGroup() {
+		List<EntityOperate<?>> operates = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) {
+			EntityOperate<Item> op = newOperate(em, newItem(i, i));
+			// 1,2,3修改，4,5删除
+			if (i <= 3) {
+				op.update(op.getRow());
+			} else {
+				op.delete();
+			}
+			operates.add(op);
+		}
+		EntityOperate<Item> insert = newOperate(em, newItem(6, 6));
+		insert.insert(insert.getRow());
+		operates.add(insert);
+
+		List<EntityBatch<?>> batches = EntityBatch.group(operates);
+		assertEquals(3, batches.size());
+		assertEquals(OperateType.DELETE, batches.get(0).getType());
+		assertEquals(2, batches.get(0).getOperates().size());
+		assertEquals(OperateType.INSERT, batches.get(1).getType());
+		assertEquals(1, batches.get(1).getOperates().size());
+		assertEquals(OperateType.UPDATE, batches.get(2).getType());
+		assertEquals(3, batches.get(2).getOperates().size());
+
+		batches.forEach(v -> v.flush(dataAccessor, new DirtyTracker(), 1L));
+		assertEquals(Arrays.asList("batchDelete:2", "batchInsert:1", "batchUpdate[NUM]:3"), dataAccessor.records);
+	}
+
+	@Test
+	public void testSnapshot() {
+		Item item = newItem(1, 10);
+		EntityOperate<Item> op = newOperate(em, item);
+		op.update(op.getRow());
+
+		// 入队之后业务线程再怎么改，回写的还是入队时的快照
+		item.setNum(20);
+		EntityBatch.group(Arrays.asList(op)).forEach(v -> v.flush(dataAccessor, new DirtyTracker(), 1L));
+		assertArrayEquals(new Object[] { 10, 1 }, dataAccessor.rows.get(0));
+	}
+
+	@Test
+	public void testFallback() {
+		List<EntityOperate<?>> operates = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			EntityOperate<Item> op = newOperate(em, newItem(i, i));
+			op.update(op.getRow());
+			operates.add(op);
+		}
+
+		// 批处理失败了就逐条保存，有问题的那一条也不影响其他的
+		dataAccessor.batchFailed = true;
+		List<EntityOperate<?>> failed = new ArrayList<>();
+		EntityBatch.group(operates).forEach(v -> failed.addAll(v.flush(dataAccessor, new DirtyTracker(), 1L)));
+		assertEquals(Arrays.asList("batchUpdate[NUM]:3", "batchUpdate[NUM]:1", "batchUpdate[NUM]:1", "batchUpdate[NUM]:1"), dataAccessor.records);
+		// 没有保存成功的要交还给回写容器，下次再保存
+		assertEquals(operates, failed);
+	}
+
+	@Test
+	public void testPartialBatch() {
+		List<EntityOperate<?>> operates = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			EntityOperate<Item> op = newOperate(em, newItem(i, i));
+			op.insert(op.getRow());
+			operates.add(op);
+		}
+
+		// 批处理中只有第2条失败了，其他的已经保存了，只重试失败的那一条，不然就主键冲突了
+		dataAccessor.badRow = row -> ((Object[]) row)[0].equals(2);
+		List<EntityOperate<?>> failed = new ArrayList<>();
+		EntityBatch.group(operates).forEach(v -> failed.addAll(v.flush(dataAccessor, new DirtyTracker(), 1L)));
+		assertEquals(Arrays.asList("batchInsert:3", "batchInsert:1"), dataAccessor.records);
+		assertEquals(Arrays.asList(operates.get(1)), failed);
+	}
+
+	@Test
+	public void testMerge() {
+		// 插入失败后又修改，还是插入，只是用新的快照
+		EntityOperate<Item> failed = newOperate(em, newItem(1, 1));
+		failed.insert(failed.getRow());
+		EntityOperate<Item> next = newOperate(em, newItem(1, 2));
+		assertFalse(failed.merge(next));
+		assertTrue(failed.isInsert());
+		assertArrayEquals(new Object[] { 1, 2 }, failed.getRow());
+
+		// 删除失败后又插入，数据还在DB中，变成修改
+		failed = newOperate(em, newItem(1, 1));
+		failed.delete();
+		next = new EntityOperate<>("1", em, 1);
+		next.insert(new Object[] { 1, 3 });
+		assertFalse(failed.merge(next));
+		assertTrue(failed.isUpdate());
+
+		// 插入失败后又删除，那就什么都不用做了
+		failed = new EntityOperate<>("1", em, 1);
+		failed.insert(new Object[] { 1, 1 });
+		next = new EntityOperate<>("1", em, 1);
+		next.delete();
+		assertTrue(failed.merge(next));
+	}
+
+	@Test
+	public void testDirtyCheck() {
+		EntityMapping<Role> roleMapping = new AnnotationEntityMaker().make(Role.class);
+		DirtyTracker dirtyTracker = new DirtyTracker();
+		Role role1 = newRole(1, 100, "a");
+		Role role2 = newRole(2, 200, "b");
+
+		// 第一次回写时还没有记录，全部字段都要写
+		dirtyTracker.flush(roleMapping, updates(roleMapping, role1, role2), dataAccessor, 1L);
+		assertEquals(Arrays.asList("batchUpdate[gold, name]:2"), dataAccessor.records);
+
+		// 没有变化的就不写了
+		dirtyTracker.flush(roleMapping, updates(roleMapping, role1, role2), dataAccessor, 1L);
+		assertEquals(1, dataAccessor.records.size());
+
+		// 只写变化的字段，变化相同的合成一批
+		role1.setGold(101);
+		role2.setGold(201);
+		dirtyTracker.flush(roleMapping, updates(roleMapping, role1, role2), dataAccessor, 1L);
+		assertEquals("batchUpdate[gold]:2", dataAccessor.records.get(1));
+
+		// 回写失败了，下次还要写
+		role1.setName("c");
+		dataAccessor.batchFailed = true;
+		assertEquals(1, dirtyTracker.flush(roleMapping, updates(roleMapping, role1), dataAccessor, 1L).size());
+		dataAccessor.batchFailed = false;
+		dirtyTracker.flush(roleMapping, updates(roleMapping, role1), dataAccessor, 1L);
+		assertEquals(Arrays.asList("batchUpdate[name]:1", "batchUpdate[name]:1"), dataAccessor.records.subList(2, 4));
+	}
+
+	@SafeVarargs
+	private final <T> List<EntityOperate<T>> updates(EntityMapping<T> em, T... entitys) {
+		List<EntityOperate<T>> result = new ArrayList<>(entitys.length);
+		for (T entity : entitys) {
+			EntityOperate<T> op = newOperate(em, entity);
+			op.update(op.getRow());
+			result.add(op);
+		}
+		return result;
+	}
+
+	/** 模拟业务线程入队，编码好字段值快照 */
+	private <T> EntityOperate<T> newOperate(EntityMapping<T> em, T entity) {
+		EntityOperate<T> op = new EntityOperate<>(em.getPrimaryKey(entity), em, em.getPrimaryIdValue(entity));
+		op.update(dataAccessor.encode(em, entity));
+		return op;
+	}
+
+	private static Role newRole(long id, int gold, String name) {
+		Role role = new Role();
+		role.setId(id);
+		role.setGold(gold);
+		role.setName(name);
+		return role;
+	}
+
+	private static Item newItem(int id, int num) {
+		Item item = new Item();
+		item.setId(id);
+		item.setNum(num);
+		return item;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+/**
+ * 回写时间轮测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class FlushSchedulerTest {
+
+	@Test
+	public void testSpread() throws InterruptedException {
+		FlushScheduler scheduler = new FlushScheduler(3, 2);
+		AtomicIntegerArray counts = new AtomicIntegerArray(6);
+		FlushScheduler.Task[] tasks = new FlushScheduler.Task[6];
+		for (int i = 0; i < tasks.length; i++) {
+			final int index = i;
+			tasks[i] = scheduler.register(() -> counts.incrementAndGet(index));
+		}
+
+		// 同时注册的容器轮流分到各个格子里，每一格只回写其中一部分
+		scheduler.tick();
+		scheduler.tick();
+		scheduler.cancel(tasks[2]);
+		scheduler.tick();
+		assertTrue(scheduler.shutdown(1, TimeUnit.SECONDS));
+		assertEquals("[1, 1, 0, 1, 1, 1]", counts.toString());
+		assertEquals(5, scheduler.getLagHistogram().snapshot().getCount());
+	}
+
+	@Test
+	public void testSubmit() throws InterruptedException {
+		FlushScheduler scheduler = new FlushScheduler(1, 1);
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		int[] counts = new int[2];
+		FlushScheduler.Task slow = scheduler.register(() -> {
+			counts[0]++;
+			running.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		FlushScheduler.Task task = scheduler.register(() -> counts[1]++);
+
+		// 回写线程被占住时，已在排队的任务不会重复提交，正在执行的还可以再排一次
+		scheduler.submit(slow);
+		running.await();
+		scheduler.submit(task);
+		scheduler.submit(task);
+		scheduler.tick();
+		assertEquals(2, scheduler.getQueueSize());
+
+		release.countDown();
+		assertTrue(scheduler.shutdown(1, TimeUnit.SECONDS));
+		assertArrayEquals(new int[] { 2, 1 }, counts);
+		assertEquals(3, scheduler.getExecHistogram().snapshot().getCount());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write.impl;
+
+import java.io.Serializable;
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import xyz.noark.core.exception.DataAccessException;
+import xyz.noark.orm.EntityMapping;
+import xyz.noark.orm.FieldMapping;
+import xyz.noark.orm.accessor.AbstractDataAccessor;
+
+/**
+ * 记录批量回写调用的数据访问策略，回写和重放的测试共用.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+class RecordDataAccessor extends AbstractDataAccessor {
+	/** 调用记录，格式为：方法名[修改的列]:数量 */
+	final List<String> records = new ArrayList<>();
+	/** 批量插入和修改的行 */
+	final List<Object[]> rows = new ArrayList<>();
+	/** 批量删除的主键 */
+	final List<Serializable> ids = new ArrayList<>();
+	/** 这些实体的修改都修改不到，用来模拟插入后还没回写就宕机了 */
+	final Set<Class<?>> unmatched = new HashSet<>();
+	/** 为true时所有的批量操作都抛异常 */
+	boolean batchFailed = false;
+	/** 保存失败的数据，其他的数据在抛异常前都已经保存了，用来模拟驱动跳过失败的那条继续执行 */
+	Predicate<Object> badRow;
+
+	@Override
+	public void judgeAccessType() {}
+
+	@Override
+	public <T> int insert(EntityMapping<T> em, T entity) {
+		records.add("insert");
+		return 1;
+	}
+
+	@Override
+	public <T> int delete(EntityMapping<T> em, T entity) {
+		records.add("delete");
+		return 1;
+	}
+
+	@Override
+	public <T> int update(EntityMapping<T> em, T entity) {
+		records.add("update");
+		return 1;
+	}
+
+	@Override
+	public <T> int[] batchInsert(EntityMapping<T> em, List<Object[]> rows) {
+		this.rows.addAll(rows);
+		return this.batch("batchInsert", rows, 1);
+	}
+
+	@Override
+	public <T> int[] batchDelete(EntityMapping<T> em, List<Serializable> ids) {
+		this.ids.addAll(ids);
+		return this.batch("batchDelete", ids, 1);
+	}
+
+	@Override
+	public <T> int[] batchUpdate(EntityMapping<T> em, List<FieldMapping> columns, List<Object[]> rows) {
+		this.rows.addAll(rows);
+		String name = "batchUpdate" + columns.stream().map(FieldMapping::getColumnName).collect(Collectors.toList());
+		return this.batch(name, rows, unmatched.contains(em.getEntityClass()) ? 0 : 1);
+	}
+
+	@Override
+	public <T> Object[] encode(EntityMapping<T> em, T entity) {
+		return em.getFieldMapping().stream().map(fm -> em.getMethodAccess().invoke(entity, fm.getGetMethodIndex())).toArray();
+	}
+
+	private int[] batch(String name, List<?> entitys, int affected) {
+		records.add(name + ":" + entitys.size());
+		if (batchFailed) {
+			throw new DataAccessException(new RuntimeException("batch failed"));
+		}
+		int[] result = new int[entitys.size()];
+		Arrays.fill(result, affected);
+		if (badRow != null && entitys.stream().anyMatch(badRow)) {
+			for (int i = 0; i < result.length; i++) {
+				if (badRow.test(entitys.get(i))) {
+					result[i] = Statement.EXECUTE_FAILED;
+				}
+			}
+			throw new DataAccessException(new BatchUpdateException(result));
+		}
+		return result;
+	}
+
+	@Override
+	public <T, K extends Serializable> T load(EntityMapping<T> em, K id) {
+		return null;
+	}
+
+	@Override
+	public <T> List<T> loadAll(EntityMapping<T> em) {
+		return new ArrayList<>();
+	}
+
+	@Override
+	public <T> List<T> loadAll(EntityMapping<T> em, Serializable playerId) {
+		return new ArrayList<>();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2018 www.noark.xyz All Rights Reserved.
+ * 
+ * 感谢您选择Noark框架，希望我们的努力能为您提供一个简单、易用、稳定的服务器端框架 ！
+ * 除非符合Noark许可协议，否则不得使用该文件，您可以下载许可协议文件：
+ * 
+ * 		http://www.noark.xyz/LICENSE
+ *
+ * 1.未经许可，任何公司及个人不得以任何方式或理由对本框架进行修改、使用和传播;
+ * 2.禁止在本项目或任何子项目的基础上发展任何派生版本、修改版本或第三方版本;
+ * 3.无论你对源代码做出任何修改和改进，版权都归Noark研发团队所有，我们保留所有权利;
+ * 4.凡侵犯Noark版权等知识产权的，必依法追究其法律责任，特此郑重法律声明！
+ */
+package xyz.noark.orm.write.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import xyz.noark.orm.AnnotationEntityMaker;
+import xyz.noark.orm.DataModular;
+import xyz.noark.orm.EntityMapping;
+import xyz.noark.orm.domain.Item;
+import xyz.noark.orm.domain.Role;
+import xyz.noark.orm.write.OperateType;
+
+/**
+ * 预写日志的写入、重放与清理测试.
+ *
+ * @since 3.3
+ * @author 小流氓(176543888@qq.com)
+ */
+public class WriteAheadJournalTest {
+	private File dir;
+	private EntityMapping<Item> em;
+
+	@Before
+	public void setUp() throws IOException {
+		DataModular.CheckUnderScoreCase = false;
+		dir = Files.createTempDirectory("journal").toFile();
+		em = new AnnotationEntityMaker().make(Item.class);
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+
+	@Test
+	public void testReplay() throws IOException {
+		EntityMapping<Role> roleMapping = new AnnotationEntityMaker().make(Role.class);
+		WriteAheadJournal journal = new WriteAheadJournal(dir, 1024, 10);
+		journal.open();
+		journal.append(WriteAheadJournal.encode(OperateType.INSERT, em, 1, new Object[] { 1, 10 }));
+		journal.append(WriteAheadJournal.encode(OperateType.UPDATE, em, 1, new Object[] { 1, 11 }));
+		journal.append(WriteAheadJournal.encode(OperateType.INSERT, em, 2, new Object[] { 2, 20 }));
+		journal.append(WriteAheadJournal.encode(OperateType.DELETE, em, 2, null));
+		journal.append(WriteAheadJournal.encode(OperateType.UPDATE, roleMapping, 3L, new Object[] { 3L, 300, "小流氓" }));
+		// 模拟宕机，日志还在
+		journal.close(false);
+
+		// 道具的修改都修改不到，模拟插入后还没回写就宕机了
+		RecordDataAccessor dataAccessor = new RecordDataAccessor();
+		dataAccessor.unmatched.add(Item.class);
+		assertEquals(3, new WriteAheadJournal(dir, 1024, 10).replay(dataAccessor, new DeadLetterLog(new File(dir, DeadLetterLog.FILE_NAME))));
+		// 同一个实体只重放最后一次操作，修改不到的再插入
+		assertEquals(Arrays.asList(2), dataAccessor.ids);
+		assertEquals(Arrays.asList("[11, 1]", "[1, 11]", "[300, 小流氓, 3]"), dataAccessor.rows.stream().map(Arrays::toString).collect(Collectors.toList()));
+		assertEquals("batchInsert:1", dataAccessor.records.get(2));
+		assertEquals(0, dir.listFiles().length);
+	}
+
+	@Test
+	public void testReplayQuarantine() throws IOException {
+		WriteAheadJournal journal = new WriteAheadJournal(dir, 1024, 10);
+		journal.open();
+		journal.append(WriteAheadJournal.encode(OperateType.INSERT, em, 1, new Object[] { 1, 10 }));
+		journal.append(WriteAheadJournal.encode(OperateType.INSERT, em, 2, new Object[] { 2, 20 }));
+		journal.close(false);
+
+		// 第2条怎么都插入不了，隔离到死信日志里，其他的照常恢复，服务也能启动
+		RecordDataAccessor dataAccessor = new RecordDataAccessor();
+		dataAccessor.unmatched.add(Item.class);
+		dataAccessor.badRow = row -> ((Object[]) row)[0].equals(2);
+		File deadLetter = new File(dir, DeadLetterLog.FILE_NAME);
+		assertEquals(2, new WriteAheadJournal(dir, 1024, 10).replay(dataAccessor, new DeadLetterLog(deadLetter)));
+
+		List<String> lines = Files.readAllLines(deadLetter.toPath());
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0).contains("type=INSERT, entity=" + Item.class.getName() + ", id=2, row=[2, 20]"));
+		// 日志段都删除了，只剩下死信日志
+		assertEquals(1, dir.listFiles().length);
+	}
+
+	@Test
+	public void testBrokenRecord() throws IOException {
+		WriteAheadJournal journal = new WriteAheadJournal(dir, 1024, 10);
+		journal.open();
+		byte[] first = WriteAheadJournal.encode(OperateType.UPDATE, em, 1, new Object[] { 1, 10 });
+		journal.append(first);
+		journal.append(WriteAheadJournal.encode(OperateType.UPDATE, em, 2, new Object[] { 2, 20 }));
+		journal.close(false);
+
+		// 写了一半就宕机的记录校验不通过，只重放完整的记录
+		File file = dir.listFiles()[0];
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(first.length + 10);
+			raf.write(0xFF);
+		}
+		List<WriteAheadJournal.Record> records = WriteAheadJournal.read(file);
+		assertEquals(1, records.size());
+		assertEquals(1, records.get(0).id);
+		assertArrayEquals(new Object[] { 1, 10 }, records.get(0).row);
+	}
+
+	@Test
+	public void testTruncate() throws IOException {
+		WriteAheadJournal journal = new WriteAheadJournal(dir, 1024, 10);
+		journal.open();
+		journal.append(WriteAheadJournal.encode(OperateType.UPDATE, em, 1, new Object[] { 1, 10 }));
+		long segment = journal.currentSegment();
+
+		// 还在引用的日志段不能删除
+		journal.roll();
+		journal.append(WriteAheadJournal.encode(OperateType.UPDATE, em, 2, new Object[] { 2, 20 }));
+		journal.truncate(segment);
+		assertEquals(2, dir.listFiles().length);
+
+		// 不再引用就删除了，当前的日志段永远不会删除
+		journal.truncate(WriteAheadJournal.NONE);
+		assertEquals(1, dir.listFiles().length);
+		journal.close(true);
+		assertEquals(0, dir.listFiles().length);
+	}
+
+	@Test
+	public void testRollOver() throws IOException {
+		// 日志段很小，每条记录都会切换一次，旧的日志段由刷盘线程去刷
+		WriteAheadJournal journal = new WriteAheadJournal(dir, 16, 60000);
+		journal.open();
+		for (int i = 1; i <= 3; i++) {
+			journal.append(WriteAheadJournal.encode(OperateType.UPDATE, em, i, new Object[] { i, i * 10 }));
+		}
+		journal.sync();
+		journal.close(false);
+
+		// 第一个日志段是空的
+		File[] files = dir.listFiles();
+		assertEquals(4, files.length);
+		int count = 0;
+		for (File file : files) {
+			count += WriteAheadJournal.read(file).size();
+		}
+		assertEquals(3, count);
+	}
+}
\ No newline at end of file